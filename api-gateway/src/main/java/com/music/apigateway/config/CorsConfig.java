@@ -26,7 +26,7 @@ public class CorsConfig {
         
         // Разрешенные методы
         corsConfig.setAllowedMethods(Arrays.asList(
-            "GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"
+            "GET", "HEAD", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"
         ));
         
         // Разрешенные заголовки
@@ -52,7 +52,14 @@ public class CorsConfig {
             "Content-Type",
             "Authorization",
             "Access-Control-Allow-Origin",
-            "Access-Control-Allow-Credentials"
+            "Access-Control-Allow-Credentials",
+            "Location",
+            "Upload-Offset",
+            "Upload-Length",
+            "X-Start-Time",
+            "X-Cache",
+            "Retry-After",
+            "X-RateLimit-Remaining"
         ));
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,10 +1,15 @@
 package com.music.apigateway.controller;
 
+import com.music.apigateway.filter.CachedResponse;
+import com.music.apigateway.filter.ResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -13,6 +18,9 @@ import java.util.Map;
 @RequestMapping("/fallback")
 public class FallbackController {
     
+    @Autowired
+    private ResponseCache responseCache;
+    
     @GetMapping("/user-service")
     public ResponseEntity<Map<String, String>> userServiceFallback() {
         Map<String, String> response = new HashMap<>();
@@ -30,27 +38,27 @@ public class FallbackController {
     }
     
     @GetMapping("/artist-service")
-    public ResponseEntity<Map<String, String>> artistServiceFallback() {
+    public ResponseEntity<?> artistServiceFallback(ServerWebExchange exchange) {
         Map<String, String> response = new HashMap<>();
         response.put("message", "Artist Service is temporarily unavailable. Please try again later.");
         response.put("status", "SERVICE_UNAVAILABLE");
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        return staleOrUnavailable(exchange, response);
     }
     
     @GetMapping("/album-service")
-    public ResponseEntity<Map<String, String>> albumServiceFallback() {
+    public ResponseEntity<?> albumServiceFallback(ServerWebExchange exchange) {
         Map<String, String> response = new HashMap<>();
         response.put("message", "Album Service is temporarily unavailable. Please try again later.");
         response.put("status", "SERVICE_UNAVAILABLE");
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        return staleOrUnavailable(exchange, response);
     }
     
     @GetMapping("/track-service")
-    public ResponseEntity<Map<String, String>> trackServiceFallback() {
+    public ResponseEntity<?> trackServiceFallback(ServerWebExchange exchange) {
         Map<String, String> response = new HashMap<>();
         response.put("message", "Track Service is temporarily unavailable. Please try again later.");
         response.put("status", "SERVICE_UNAVAILABLE");
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        return staleOrUnavailable(exchange, response);
     }
     
     @GetMapping("/notification-service")
@@ -76,5 +84,33 @@ public class FallbackController {
         response.put("status", "SERVICE_UNAVAILABLE");
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
     }
+    
+    @GetMapping("/search-service")
+    public ResponseEntity<Map<String, String>> searchServiceFallback() {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Search Service is temporarily unavailable. Please try again later.");
+        response.put("status", "SERVICE_UNAVAILABLE");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+    
+    @GetMapping("/genre-service")
+    public ResponseEntity<Map<String, String>> genreServiceFallback() {
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Genre Service is temporarily unavailable. Please try again later.");
+        response.put("status", "SERVICE_UNAVAILABLE");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+    
+    // Последний удачный ответ каталога из кэша шлюза, а если его нет - 503
+    private ResponseEntity<?> staleOrUnavailable(ServerWebExchange exchange, Map<String, String> unavailable) {
+        CachedResponse cached = responseCache.getStale(exchange);
+        if (cached == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(unavailable);
+        }
+        return ResponseEntity.ok()
+                .headers(cached.getHeaders())
+                .header(HttpHeaders.AGE, String.valueOf(cached.getAgeSeconds()))
+                .header(ResponseCache.CACHE_HEADER, "STALE")
+                .body(cached.getBody());
+    }
 }
-
@@ -0,0 +1,69 @@
+package com.music.apigateway.filter;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Фильтр Bulkhead: ограничивает число одновременных запросов маршрута
+ * через Bulkhead resilience4j из resilience4j.bulkhead.instances.
+ * Разрешение держится, пока тело ответа не отдано клиенту целиком, поэтому
+ * долгие скачивания files-service не занимают место запросов JSON API.
+ * Запрос сверх лимита сразу получает 503, max-wait-duration должен быть 0:
+ * ожидание разрешения блокировало бы поток event loop.
+ */
+@Component
+public class BulkheadGatewayFilterFactory extends AbstractGatewayFilterFactory<BulkheadGatewayFilterFactory.Config> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadGatewayFilterFactory.class);
+    
+    @Autowired
+    private BulkheadRegistry bulkheadRegistry;
+    
+    public BulkheadGatewayFilterFactory() {
+        super(Config.class);
+    }
+    
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("name");
+    }
+    
+    @Override
+    public GatewayFilter apply(Config config) {
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(config.getName());
+        return (exchange, chain) -> {
+            if (!bulkhead.tryAcquirePermission()) {
+                logger.debug("Bulkhead {} is full, rejecting {}", bulkhead.getName(), exchange.getRequest().getURI());
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                return response.setComplete();
+            }
+            return chain.filter(exchange).doFinally(signal -> bulkhead.onComplete());
+        };
+    }
+    
+    public static class Config {
+        
+        private String name;
+        
+        public String getName() {
+            return name;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.music.apigateway.filter;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Сохранённый успешный ответ GET: тело и заголовки, которые имеет смысл отдать повторно
+ */
+public class CachedResponse {
+    
+    // Остальные заголовки (Date, Content-Length, Transfer-Encoding, CORS) выставляются заново
+    private static final List<String> STORED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED);
+    
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final long storedAt;
+    private final Duration ttl;
+    private final Duration staleTtl;
+    
+    public CachedResponse(HttpHeaders source, byte[] body, Duration ttl, Duration staleTtl) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : STORED_HEADERS) {
+            List<String> values = source.get(name);
+            if (values != null) {
+                headers.put(name, values);
+            }
+        }
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.storedAt = System.currentTimeMillis();
+        this.ttl = ttl;
+        this.staleTtl = staleTtl;
+    }
+    
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+    
+    public byte[] getBody() {
+        return body;
+    }
+    
+    /**
+     * Ответ моложе ttl и отдаётся без обращения к сервису
+     */
+    public boolean isFresh() {
+        return System.currentTimeMillis() - storedAt < ttl.toMillis();
+    }
+    
+    /**
+     * Возраст ответа в секундах для заголовка Age
+     */
+    public long getAgeSeconds() {
+        return Math.max(0, (System.currentTimeMillis() - storedAt) / 1000);
+    }
+    
+    /**
+     * Сколько ответ живёт в кэше всего, включая время, когда он отдаётся устаревшим
+     */
+    public Duration getStaleTtl() {
+        return staleTtl;
+    }
+    
+    // Примерный размер записи для ограничения кэша по памяти
+    int getWeight() {
+        return body.length + 256;
+    }
+}
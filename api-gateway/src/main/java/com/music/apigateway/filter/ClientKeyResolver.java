@@ -0,0 +1,36 @@
+package com.music.apigateway.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Клиент для RequestRateLimiter: значение заголовка gateway.rate-limit.key-header,
+ * если он задан и пришёл в запросе, иначе IP адрес клиента.
+ * Заголовок стоит задавать, только если его выставляет доверенный прокси перед шлюзом.
+ */
+@Component
+public class ClientKeyResolver implements KeyResolver {
+    
+    @Value("${gateway.rate-limit.key-header:}")
+    private String keyHeader;
+    
+    @Override
+    public Mono<String> resolve(ServerWebExchange exchange) {
+        if (!keyHeader.isEmpty()) {
+            String key = exchange.getRequest().getHeaders().getFirst(keyHeader);
+            if (key != null && !key.isBlank()) {
+                return Mono.just("header:" + key);
+            }
+        }
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        if (address == null) {
+            return Mono.empty();
+        }
+        return Mono.just("ip:" + address.getAddress().getHostAddress());
+    }
+}
@@ -0,0 +1,428 @@
+package com.music.apigateway.filter;
+
+import com.music.apigateway.loadbalancer.LoadBalancerStats;
+import com.music.apigateway.loadbalancer.LoadBalancerStatsFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Фильтр Hedge для идемпотентных GET маршрутов с lb://: если выбранный балансировщиком
+ * экземпляр не прислал заголовки ответа за percentile задержек маршрута, тот же запрос уходит
+ * второму, наименее загруженному экземпляру. Клиент получает ответ, заголовки которого
+ * пришли первыми, второй запрос отменяется.
+ * <p>
+ * Основной запрос идёт обычным путём через NettyRoutingFilter с его таймаутами:
+ * chain.filter завершается, когда пришли заголовки, тело потом пишет NettyWriteResponseFilter.
+ * Повтор отправляется WebClient с тем же таймаутом ответа; если он выиграл, основной запрос
+ * отменяется, а тело повтора передаётся клиенту потоком, без чтения в память.
+ * Неуспешный ответ повтора (4xx, 5xx) не выигрывает: клиент дождётся основного.
+ * Тяжёлые и неограниченные списки исключаются из повторов параметром exclude:
+ * их повтор удваивает работу сервиса.
+ * <p>
+ * Повторы ограничены бюджетом: каждый запрос добавляет budget-percent сотых повтора,
+ * повтор тратит единицу, так что повторов не больше budget-percent процентов трафика.
+ * Пока маршрут не набрал MIN_SAMPLES замеров, повторов нет.
+ */
+@Component
+public class HedgeGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config> {
+    
+    private static final int WINDOW_SIZE = 1024;
+    private static final int MIN_SAMPLES = 100;
+    private static final long PERCENTILE_REFRESH_NANOS = Duration.ofSeconds(1).toNanos();
+    
+    // Накопленный бюджет в сотых долях повтора: не больше 10 повторов подряд
+    private static final long HEDGE_COST = 100;
+    private static final long MAX_BUDGET = 10 * HEDGE_COST;
+    
+    // Заголовки основного запроса пришли первыми
+    private static final Attempt PRIMARY = new Attempt(null, null);
+    
+    @Autowired
+    private LoadBalancerClientFactory loadBalancerClientFactory;
+    
+    @Autowired
+    private LoadBalancerStats loadBalancerStats;
+    
+    @Autowired
+    private ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    
+    @Autowired
+    private HttpClientProperties httpClientProperties;
+    
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private WebClient webClient;
+    
+    private final Map<String, RouteState> routes = new ConcurrentHashMap<>();
+    
+    private Counter hedgesSent;
+    private Counter hedgesWon;
+    
+    public HedgeGatewayFilterFactory() {
+        super(Config.class);
+    }
+    
+    @PostConstruct
+    public void init() {
+        webClient = webClientBuilder.build();
+        hedgesSent = meterRegistry.counter("gateway.hedging.hedges", "result", "sent");
+        hedgesWon = meterRegistry.counter("gateway.hedging.hedges", "result", "won");
+    }
+    
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("percentile", "budgetPercent");
+    }
+    
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> excluded = new ArrayList<>();
+        for (String pattern : config.getExclude()) {
+            excluded.add(PathPatternParser.defaultInstance.parse(pattern));
+        }
+        return apply(config, excluded);
+    }
+    
+    private GatewayFilter apply(Config config, List<PathPattern> excluded) {
+        // После ReactiveLoadBalancerClientFilter и LoadBalancerStatsFilter: нужен выбранный экземпляр
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            HttpMethod method = exchange.getRequest().getMethod();
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            if ((method != HttpMethod.GET && method != HttpMethod.HEAD) || route == null || chosen == null
+                    || !chosen.hasServer() || requestUrl == null || ServerWebExchangeUtils.isAlreadyRouted(exchange)
+                    || isExcluded(exchange, config, excluded)) {
+                return chain.filter(exchange);
+            }
+            
+            RouteState state = routes.computeIfAbsent(route.getId(), id -> new RouteState());
+            state.deposit(config.getBudgetPercent());
+            long threshold = state.getPercentileNanos(config.getPercentile());
+            
+            // Порог считается по основным запросам; отменённый медленный запрос даёт оценку снизу
+            long startedAt = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Mono<Attempt> primary = chain.filter(exchange)
+                    .then(Mono.just(PRIMARY))
+                    .doOnSuccess(attempt -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            state.record(System.nanoTime() - startedAt);
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            state.record(System.nanoTime() - startedAt);
+                        }
+                    });
+            if (threshold <= 0 || !state.hasBudget()) {
+                return primary.then();
+            }
+            
+            HttpHeaders headers = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(List::of), exchange);
+            headers.remove(HttpHeaders.HOST);
+            long delay = Math.max(threshold, config.getMinDelay().toNanos());
+            // Полученный, но проигравший ответ повтора: его тело нужно отпустить, иначе соединение повиснет
+            AtomicReference<Attempt> hedged = new AtomicReference<>();
+            Mono<Attempt> hedge = Mono.delay(Duration.ofNanos(delay))
+                    .filter(tick -> state.tryWithdraw())
+                    .flatMap(tick -> getAlternative(route, chosen.getServer()))
+                    .flatMap(instance -> {
+                        hedgesSent.increment();
+                        return sendTo(instance, method, requestUrl, headers, getResponseTimeout(route));
+                    })
+                    .doOnNext(hedged::set)
+                    // Повтор не удался или не отправлен: ждём основной запрос
+                    .onErrorResume(e -> Mono.empty())
+                    .switchIfEmpty(Mono.never());
+            return Mono.firstWithSignal(primary, hedge)
+                    .flatMap(attempt -> {
+                        if (attempt == PRIMARY) {
+                            return Mono.empty();
+                        }
+                        hedged.set(null);
+                        return write(exchange, attempt);
+                    })
+                    .doFinally(signal -> {
+                        Attempt lost = hedged.getAndSet(null);
+                        if (lost != null) {
+                            lost.release();
+                        }
+                    });
+        }, ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 2);
+    }
+    
+    // Таймаут ответа как у NettyRoutingFilter: из метаданных маршрута или spring.cloud.gateway.httpclient
+    private Duration getResponseTimeout(Route route) {
+        Object timeout = route.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR);
+        if (timeout instanceof Number millis) {
+            return millis.longValue() >= 0 ? Duration.ofMillis(millis.longValue()) : null;
+        }
+        return httpClientProperties.getResponseTimeout();
+    }
+    
+    // Исключённые пути с параметром boundedParam (страница списка) всё же повторяются
+    private boolean isExcluded(ServerWebExchange exchange, Config config, List<PathPattern> excluded) {
+        if (config.getBoundedParam() != null && exchange.getRequest().getQueryParams().containsKey(config.getBoundedParam())) {
+            return false;
+        }
+        return excluded.stream().anyMatch(pattern -> pattern.matches(exchange.getRequest().getPath().pathWithinApplication()));
+    }
+    
+    // Повтор учитывается в статистике балансировщика так же, как основной запрос
+    private Mono<Attempt> sendTo(ServiceInstance instance, HttpMethod method, URI requestUrl, HttpHeaders headers,
+                                 Duration responseTimeout) {
+        URI url = UriComponentsBuilder.fromUri(requestUrl)
+                .scheme(instance.isSecure() ? "https" : "http")
+                .host(instance.getHost())
+                .port(instance.getPort())
+                .build(true)
+                .toUri();
+        return Mono.defer(() -> {
+            LoadBalancerStats.Call call = loadBalancerStats.start(instance);
+            Mono<ResponseEntity<Flux<DataBuffer>>> response = webClient.method(method)
+                    .uri(url)
+                    .headers(h -> h.addAll(headers))
+                    .retrieve()
+                    .toEntityFlux(DataBuffer.class);
+            if (responseTimeout != null) {
+                response = response.timeout(responseTimeout);
+            }
+            return response
+                    .map(entity -> new Attempt(entity, call))
+                    .doOnNext(attempt -> call.record(call.getElapsedNanos()))
+                    .doOnError(e -> {
+                        call.record(e instanceof WebClientResponseException failed && !failed.getStatusCode().is5xxServerError()
+                                ? call.getElapsedNanos()
+                                : Math.max(call.getElapsedNanos(), loadBalancerStats.getFailurePenaltyNanos()));
+                        call.finish();
+                    })
+                    .doOnCancel(() -> {
+                        call.record(call.getElapsedNanos());
+                        call.finish();
+                    });
+        });
+    }
+    
+    /**
+     * Наименее загруженный экземпляр сервиса, кроме уже выбранного
+     */
+    private Mono<ServiceInstance> getAlternative(Route route, ServiceInstance chosen) {
+        String serviceId = route.getUri().getHost();
+        ServiceInstanceListSupplier supplier = loadBalancerClientFactory
+                .getLazyProvider(serviceId, ServiceInstanceListSupplier.class).getIfAvailable();
+        if (supplier == null) {
+            return Mono.empty();
+        }
+        return supplier.get().next().flatMap(instances -> Mono.justOrEmpty(instances.stream()
+                .filter(instance -> !(instance.getHost().equals(chosen.getHost()) && instance.getPort() == chosen.getPort()))
+                .min((a, b) -> Double.compare(loadBalancerStats.getCost(a), loadBalancerStats.getCost(b)))));
+    }
+    
+    private Mono<Void> write(ServerWebExchange exchange, Attempt attempt) {
+        hedgesWon.increment();
+        // Основной запрос уже отменён; если его заголовки успели прийти, соединение закрывается здесь
+        LoadBalancerStats.Call primaryCall = exchange.getAttribute(LoadBalancerStatsFilter.CALL_ATTR);
+        if (primaryCall != null) {
+            primaryCall.record(primaryCall.getElapsedNanos());
+            primaryCall.finish();
+        }
+        Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+        }
+        exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR);
+        
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(attempt.entity.getStatusCode());
+        response.getHeaders().putAll(HttpHeadersFilter.filter(headersFilters.getIfAvailable(List::of),
+                attempt.entity.getHeaders(), exchange, HttpHeadersFilter.Type.RESPONSE));
+        Flux<DataBuffer> body = attempt.entity.getBody();
+        return response.writeWith(body != null ? body : Flux.empty())
+                .doFinally(signal -> attempt.call.finish());
+    }
+    
+    /**
+     * Ответ повтора с ещё не прочитанным телом; call - его учёт в статистике балансировщика
+     */
+    private record Attempt(ResponseEntity<Flux<DataBuffer>> entity, LoadBalancerStats.Call call) {
+        
+        // Подписка с немедленной отменой закрывает соединение с непрочитанным телом
+        void release() {
+            if (entity.getBody() != null) {
+                entity.getBody().subscribe(DataBufferUtils::release).dispose();
+            }
+            call.finish();
+        }
+    }
+    
+    /**
+     * Недавние задержки ответов маршрута и бюджет повторов
+     */
+    private static class RouteState {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong budget = new AtomicLong();
+        
+        private volatile long percentileNanos = -1;
+        private volatile double percentile;
+        private volatile long computedAt;
+        
+        void record(long nanos) {
+            int index = count.getAndIncrement();
+            samples[Math.floorMod(index, WINDOW_SIZE)] = nanos;
+        }
+        
+        /**
+         * @return задержка percentile или -1, пока замеров мало
+         */
+        long getPercentileNanos(double percentile) {
+            long now = System.nanoTime();
+            if (this.percentile == percentile && now - computedAt < PERCENTILE_REFRESH_NANOS) {
+                return percentileNanos;
+            }
+            synchronized (this) {
+                if (this.percentile != percentile || now - computedAt >= PERCENTILE_REFRESH_NANOS) {
+                    int size = Math.min(count.get(), WINDOW_SIZE);
+                    if (size < MIN_SAMPLES) {
+                        percentileNanos = -1;
+                    } else {
+                        long[] sorted = Arrays.copyOf(samples, size);
+                        Arrays.sort(sorted);
+                        percentileNanos = sorted[Math.min(size - 1, (int) Math.ceil(percentile / 100 * size) - 1)];
+                    }
+                    this.percentile = percentile;
+                    computedAt = now;
+                }
+                return percentileNanos;
+            }
+        }
+        
+        void deposit(int budgetPercent) {
+            budget.updateAndGet(value -> Math.min(MAX_BUDGET, value + budgetPercent));
+        }
+        
+        boolean hasBudget() {
+            return budget.get() >= HEDGE_COST;
+        }
+        
+        boolean tryWithdraw() {
+            while (true) {
+                long value = budget.get();
+                if (value < HEDGE_COST) {
+                    return false;
+                }
+                if (budget.compareAndSet(value, value - HEDGE_COST)) {
+                    return true;
+                }
+            }
+        }
+    }
+    
+    public static class Config {
+        
+        // Повтор уходит, если ответа нет дольше этого процентиля задержек маршрута
+        private double percentile = 95;
+        
+        // Доля повторов от всех запросов маршрута, в процентах
+        private int budgetPercent = 10;
+        
+        // Не повторять раньше этой задержки, даже если сервис отвечает быстрее
+        private Duration minDelay = Duration.ofMillis(20);
+        
+        // Пути, которые не повторяются: потоковые ответы и списки без ограничения размера
+        private List<String> exclude = new ArrayList<>();
+        
+        // Параметр ограниченной страницы: с ним исключённые списки повторяются
+        private String boundedParam;
+        
+        public double getPercentile() {
+            return percentile;
+        }
+        
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+        
+        public int getBudgetPercent() {
+            return budgetPercent;
+        }
+        
+        public void setBudgetPercent(int budgetPercent) {
+            this.budgetPercent = budgetPercent;
+        }
+        
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+        
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+        
+        public List<String> getExclude() {
+            return exclude;
+        }
+        
+        public void setExclude(List<String> exclude) {
+            this.exclude = exclude;
+        }
+        
+        public String getBoundedParam() {
+            return boundedParam;
+        }
+        
+        public void setBoundedParam(String boundedParam) {
+            this.boundedParam = boundedParam;
+        }
+    }
+}
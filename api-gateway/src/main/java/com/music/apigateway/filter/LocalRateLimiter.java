@@ -0,0 +1,151 @@
+package com.music.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ограничение частоты запросов для фильтра RequestRateLimiter без Redis:
+ * у каждого клиента на каждом маршруте своё ведро токенов в памяти шлюза.
+ * Ведро пополняется со скоростью local-rate-limiter.replenish-rate токенов в секунду
+ * до local-rate-limiter.burst-capacity; ведра без запросов дольше
+ * gateway.rate-limit.idle-timeout удаляются.
+ * <p>
+ * Лимиты считаются в каждом экземпляре шлюза отдельно.
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+    
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+    
+    @Value("${gateway.rate-limit.idle-timeout:10m}")
+    private Duration idleTimeout;
+    
+    @Value("${gateway.rate-limit.max-keys:100000}")
+    private long maxKeys;
+    
+    private Cache<String, TokenBucket> buckets;
+    
+    public LocalRateLimiter(ConfigurationService configurationService) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+    }
+    
+    @PostConstruct
+    public void init() {
+        buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxKeys)
+                .build();
+    }
+    
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().get(routeId);
+        if (config == null) {
+            config = getConfig().get(RouteDefinitionRouteLocator.DEFAULT_FILTERS);
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("No Configuration found for route " + routeId);
+        }
+        
+        Config routeConfig = config;
+        TokenBucket bucket = buckets.get(routeId + " " + id, key -> new TokenBucket(routeConfig.getBurstCapacity()));
+        long remaining = bucket.tryConsume(routeConfig, System.nanoTime());
+        return Mono.just(new Response(remaining >= 0, getHeaders(routeConfig, Math.max(remaining, 0))));
+    }
+    
+    // Те же заголовки, что у RedisRateLimiter
+    private Map<String, String> getHeaders(Config config, long remaining) {
+        return Map.of(
+                RedisRateLimiter.REMAINING_HEADER, String.valueOf(remaining),
+                RedisRateLimiter.REPLENISH_RATE_HEADER, String.valueOf(config.getReplenishRate()),
+                RedisRateLimiter.BURST_CAPACITY_HEADER, String.valueOf(config.getBurstCapacity()),
+                RedisRateLimiter.REQUESTED_TOKENS_HEADER, String.valueOf(config.getRequestedTokens()));
+    }
+    
+    /**
+     * Ведро токенов одного клиента; состояние меняется через compareAndSet без блокировок
+     */
+    static class TokenBucket {
+        
+        private final AtomicReference<State> state;
+        
+        TokenBucket(int capacity) {
+            state = new AtomicReference<>(new State(capacity, System.nanoTime()));
+        }
+        
+        /**
+         * @return сколько токенов осталось после запроса или -1, если запрос не разрешён
+         */
+        long tryConsume(Config config, long now) {
+            while (true) {
+                State current = state.get();
+                double elapsedSeconds = Math.max(0, now - current.refilledAt) / 1_000_000_000.0;
+                double tokens = Math.min(config.getBurstCapacity(),
+                        current.tokens + elapsedSeconds * config.getReplenishRate());
+                boolean allowed = tokens >= config.getRequestedTokens();
+                State next = new State(allowed ? tokens - config.getRequestedTokens() : tokens,
+                        Math.max(now, current.refilledAt));
+                if (state.compareAndSet(current, next)) {
+                    return allowed ? (long) next.tokens : -1;
+                }
+            }
+        }
+        
+        private record State(double tokens, long refilledAt) {
+        }
+    }
+    
+    @Validated
+    public static class Config {
+        
+        // Токенов в секунду
+        @Min(1)
+        private int replenishRate = 20;
+        
+        // Сколько запросов можно сделать подряд после паузы
+        @Min(1)
+        private int burstCapacity = 40;
+        
+        // Сколько токенов стоит один запрос
+        @Min(1)
+        private int requestedTokens = 1;
+        
+        public int getReplenishRate() {
+            return replenishRate;
+        }
+        
+        public void setReplenishRate(int replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+        
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+        
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+        
+        public int getRequestedTokens() {
+            return requestedTokens;
+        }
+        
+        public void setRequestedTokens(int requestedTokens) {
+            this.requestedTokens = requestedTokens;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.music.apigateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Объединение одинаковых одновременных GET запросов к каталогу: первый запрос
+ * уходит в сервис, остальные с тем же маршрутом, путём, query и заголовками из KEY_HEADERS
+ * ждут его ответ и получают копию буферизованного тела.
+ * <p>
+ * Если ответ больше gateway.coalescing.max-body-size, содержит Set-Cookie
+ * или первый запрос оборвался, ожидающие запросы идут в сервис сами.
+ * Метрика gateway.coalescing.requests с тегом role (leader, follower, bypass)
+ * показывает, какая доля запросов не дошла до сервиса.
+ */
+@Component
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+    
+    // Раньше NettyWriteResponseFilter, иначе тело пишется мимо LeaderResponse
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    
+    // Заголовки, от которых зависит ответ; Authorization не учитывается, каталог публичный
+    private static final List<String> KEY_HEADERS = List.of(
+            HttpHeaders.ACCEPT,
+            HttpHeaders.ACCEPT_ENCODING,
+            HttpHeaders.ACCEPT_LANGUAGE,
+            HttpHeaders.RANGE,
+            HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE);
+    
+    // Первый запрос не дал ответа, который можно отдать остальным
+    private static final SharedResponse NOT_SHARED = new SharedResponse(null, null, null);
+    
+    @Value("${gateway.coalescing.routes:artist-service,album-service,track-service,genre-service,search-service}")
+    private List<String> routes;
+    
+    @Value("${gateway.coalescing.max-body-size:1MB}")
+    private DataSize maxBodySize;
+    
+    @Value("${gateway.coalescing.max-waiters:1000}")
+    private int maxWaiters;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    
+    private Counter leaders;
+    private Counter followers;
+    private Counter bypassed;
+    
+    @PostConstruct
+    public void init() {
+        leaders = meterRegistry.counter("gateway.coalescing.requests", "role", "leader");
+        followers = meterRegistry.counter("gateway.coalescing.requests", "role", "follower");
+        bypassed = meterRegistry.counter("gateway.coalescing.requests", "role", "bypass");
+        meterRegistry.gaugeMapSize("gateway.coalescing.in-flight", List.of(), flights);
+    }
+    
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (exchange.getRequest().getMethod() != HttpMethod.GET || route == null || !routes.contains(route.getId())) {
+            return chain.filter(exchange);
+        }
+        
+        String key = getKey(route, exchange.getRequest());
+        Flight flight = new Flight();
+        Flight existing = flights.putIfAbsent(key, flight);
+        if (existing == null) {
+            leaders.increment();
+            return lead(exchange, chain, key, flight);
+        }
+        if (existing.waiters.incrementAndGet() > maxWaiters) {
+            bypassed.increment();
+            return chain.filter(exchange);
+        }
+        return existing.result.asMono().flatMap(shared -> {
+            if (shared == NOT_SHARED) {
+                // Ответ не удалось разделить: этот запрос идёт в сервис сам
+                bypassed.increment();
+                return chain.filter(exchange);
+            }
+            followers.increment();
+            return write(exchange.getResponse(), shared);
+        });
+    }
+    
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, String key, Flight flight) {
+        LeaderResponse response = new LeaderResponse(exchange.getResponse());
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> {
+                    flights.remove(key, flight);
+                    SharedResponse shared = signal == SignalType.ON_COMPLETE ? response.getShared() : null;
+                    flight.result.tryEmitValue(shared != null ? shared : NOT_SHARED);
+                });
+    }
+    
+    // Заголовки ожидающего запроса (CORS, Vary) не перезаписываются заголовками первого
+    private Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status);
+        HttpHeaders headers = response.getHeaders();
+        shared.headers.forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, values);
+            }
+        });
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body)));
+    }
+    
+    private static String getKey(Route route, ServerHttpRequest request) {
+        URI uri = request.getURI();
+        StringBuilder key = new StringBuilder(route.getId()).append(' ').append(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+        for (String name : KEY_HEADERS) {
+            List<String> values = request.getHeaders().get(name);
+            if (values != null) {
+                key.append('\n').append(name).append(':').append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+    
+    /**
+     * Запрос, ушедший в сервис, и его результат для ожидающих запросов
+     */
+    private static class Flight {
+        private final Sinks.One<SharedResponse> result = Sinks.one();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+    
+    private static class SharedResponse {
+        private final HttpStatusCode status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+        
+        SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+    
+    /**
+     * Пропускает тело ответа сервиса клиенту первого запроса, копируя его для остальных
+     */
+    private class LeaderResponse extends ServerHttpResponseDecorator {
+        
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        
+        // Тело больше gateway.coalescing.max-body-size
+        private boolean overflow;
+        
+        private boolean written;
+        
+        LeaderResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+        
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long limit = maxBodySize.toBytes();
+            Flux<DataBuffer> copying = Flux.<DataBuffer>from(body)
+                    .map(buffer -> {
+                        int count = buffer.readableByteCount();
+                        if (!overflow && copy.size() + count <= limit) {
+                            int position = buffer.readPosition();
+                            byte[] bytes = new byte[count];
+                            buffer.read(bytes);
+                            buffer.readPosition(position);
+                            copy.writeBytes(bytes);
+                        } else {
+                            overflow = true;
+                            copy.reset();
+                        }
+                        return buffer;
+                    })
+                    .doOnComplete(() -> written = true);
+            return super.writeWith(copying);
+        }
+        
+        /**
+         * @return копия ответа или null, если её нельзя отдать другим клиентам
+         */
+        SharedResponse getShared() {
+            HttpHeaders headers = getHeaders();
+            if (!written || overflow || getStatusCode() == null || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+                return null;
+            }
+            HttpHeaders shared = new HttpHeaders();
+            headers.forEach((name, values) -> {
+                if (!HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                    shared.put(name, List.copyOf(values));
+                }
+            });
+            return new SharedResponse(getStatusCode(), shared, copy.toByteArray());
+        }
+    }
+}
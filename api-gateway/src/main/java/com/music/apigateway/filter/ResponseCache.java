@@ -0,0 +1,105 @@
+package com.music.apigateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Кэш ответов каталога в памяти шлюза. Записи вытесняются по суммарному размеру
+ * gateway.response-cache.max-size и удаляются по истечении staleTtl маршрута;
+ * до этого устаревшая запись отдаётся, пока идёт её обновление,
+ * и вместо 503, когда срабатывает CircuitBreaker.
+ */
+@Component
+public class ResponseCache {
+    
+    // Ключ кэша текущего запроса, по нему FallbackController находит устаревший ответ
+    public static final String CACHE_KEY_ATTR = ResponseCache.class.getName() + ".key";
+    
+    public static final String CACHE_HEADER = "X-Cache";
+    
+    @Value("${gateway.response-cache.max-size:32MB}")
+    private DataSize maxSize;
+    
+    @Value("${gateway.response-cache.max-entry-size:1MB}")
+    private DataSize maxEntrySize;
+    
+    private Cache<String, CachedResponse> responses;
+    
+    @PostConstruct
+    public void init() {
+        responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse response) -> response.getWeight())
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                        return response.getStaleTtl().toNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+                                                  long currentDuration) {
+                        return response.getStaleTtl().toNanos();
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse response, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+    
+    /**
+     * @return свежий или устаревший ответ, null если его нет
+     */
+    public CachedResponse get(String key) {
+        return responses.getIfPresent(key);
+    }
+    
+    public void put(String key, CachedResponse response) {
+        responses.put(key, response);
+    }
+    
+    /**
+     * Последний сохранённый ответ на запрос, даже устаревший
+     * @return null если запрос не кэшируется или ответа нет
+     */
+    public CachedResponse getStale(ServerWebExchange exchange) {
+        String key = exchange.getAttribute(CACHE_KEY_ATTR);
+        return key != null ? responses.getIfPresent(key) : null;
+    }
+    
+    /**
+     * Сбрасывает ответ на один запрос
+     */
+    public void invalidate(String key) {
+        responses.invalidate(key);
+    }
+    
+    /**
+     * Сбрасывает все ответы
+     */
+    public void invalidateAll() {
+        responses.invalidateAll();
+    }
+    
+    /**
+     * Сбрасывает ответы одного маршрута
+     */
+    public void invalidateRoute(String routeId) {
+        String prefix = routeId + " ";
+        responses.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+    
+    public long getMaxEntrySize() {
+        return maxEntrySize.toBytes();
+    }
+}
@@ -0,0 +1,277 @@
+package com.music.apigateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Фильтр ResponseCache для маршрутов каталога: успешные JSON ответы на GET
+ * сохраняются в {@link ResponseCache}. Свежий ответ отдаётся сразу без обращения к сервису,
+ * устаревший тоже отдаётся сразу, а обновляется фоновым запросом к самому шлюзу,
+ * чтобы обновление шло через балансировщик и CircuitBreaker маршрута.
+ * Пока сервис недоступен, устаревшие ответы отдаёт FallbackController.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheGatewayFilterFactory.class);
+    
+    // Фоновое обновление: ответ сервиса сохраняется, кэш при этом не читается.
+    // Значение - секрет этого экземпляра шлюза, иначе клиент мог бы обходить кэш;
+    // сервисам заголовок не передаётся (RemoveRequestHeader в default-filters)
+    static final String REVALIDATE_HEADER = "X-Cache-Revalidate";
+    
+    @Autowired
+    private ResponseCache responseCache;
+    
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+    
+    private WebClient webClient;
+    
+    private final byte[] revalidateToken = UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII);
+    
+    // Ключи, для которых фоновое обновление уже запущено
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    
+    public ResponseCacheGatewayFilterFactory() {
+        super(Config.class);
+    }
+    
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl", "staleTtl");
+    }
+    
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Раньше NettyWriteResponseFilter, иначе тело пишется мимо CachingResponse,
+        // и раньше RequestCoalescingFilter, чтобы свежие ответы не ждали чужих запросов
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            
+            String key = getKey(exchange);
+            exchange.getAttributes().put(ResponseCache.CACHE_KEY_ATTR, key);
+            
+            if (!isRevalidation(request)) {
+                CachedResponse cached = responseCache.get(key);
+                if (cached != null && cached.isFresh()) {
+                    return write(exchange.getResponse(), cached, "HIT");
+                }
+                if (cached != null) {
+                    revalidate(exchange, key);
+                    return write(exchange.getResponse(), cached, "STALE");
+                }
+            }
+            
+            ServerHttpResponse response = new CachingResponse(exchange, key, config);
+            return chain.filter(exchange.mutate().response(response).build());
+        }, RequestCoalescingFilter.ORDER - 1);
+    }
+    
+    private boolean isRevalidation(ServerHttpRequest request) {
+        String token = request.getHeaders().getFirst(REVALIDATE_HEADER);
+        return token != null && MessageDigest.isEqual(revalidateToken, token.getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Отдаёт сохранённый ответ клиенту
+     * @param state значение заголовка X-Cache
+     */
+    private static Mono<Void> write(ServerHttpResponse response, CachedResponse cached, String state) {
+        response.setStatusCode(HttpStatus.OK);
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.getHeaders());
+        headers.set(HttpHeaders.AGE, String.valueOf(cached.getAgeSeconds()));
+        headers.set(ResponseCache.CACHE_HEADER, state);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+    
+    private void revalidate(ServerWebExchange exchange, String key) {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        InetSocketAddress local = request.getLocalAddress();
+        if (local == null) {
+            revalidating.remove(key);
+            return;
+        }
+        URI uri = URI.create("http://localhost:" + local.getPort() + request.getURI().getRawPath()
+                + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : ""));
+        getWebClient().get()
+                .uri(uri)
+                .header(REVALIDATE_HEADER, new String(revalidateToken, StandardCharsets.US_ASCII))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .toBodilessEntity()
+                .doFinally(signal -> revalidating.remove(key))
+                .subscribe(
+                        entity -> logger.debug("Revalidated {}: {}", key, entity.getStatusCode()),
+                        e -> {
+                            if (e instanceof WebClientResponseException response && isGone(response.getStatusCode())) {
+                                // Сущность удалена или запрос стал неверным - устаревший ответ больше не отдаём
+                                responseCache.invalidate(key);
+                                logger.debug("Evicted {}: {}", key, response.getStatusCode());
+                            } else {
+                                logger.debug("Could not revalidate {}: {}", key, e.getMessage());
+                            }
+                        });
+    }
+    
+    /**
+     * Ответ сервиса, после которого устаревшую копию отдавать нельзя.
+     * 5xx, таймауты и ошибки соединения временные: копия остаётся до staleTtl
+     */
+    private static boolean isGone(HttpStatusCode status) {
+        return status.is4xxClientError()
+                && status.value() != HttpStatus.REQUEST_TIMEOUT.value()
+                && status.value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+    
+    private WebClient getWebClient() {
+        if (webClient == null) {
+            webClient = webClientBuilder.build();
+        }
+        return webClient;
+    }
+    
+    private static String getKey(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI uri = exchange.getRequest().getURI();
+        String query = uri.getRawQuery();
+        return (route != null ? route.getId() : "") + " " + uri.getRawPath() + (query != null ? "?" + query : "");
+    }
+    
+    /**
+     * Пропускает тело ответа сервиса клиенту, копируя его для кэша
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        
+        private final ServerWebExchange exchange;
+        private final String key;
+        private final Config config;
+        
+        // Тело больше gateway.response-cache.max-entry-size, копия не нужна
+        private boolean overflow;
+        
+        CachingResponse(ServerWebExchange exchange, String key, Config config) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.key = key;
+            this.config = config;
+        }
+        
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isCacheable()) {
+                return super.writeWith(body);
+            }
+            long limit = responseCache.getMaxEntrySize();
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            Flux<DataBuffer> copying = Flux.<DataBuffer>from(body)
+                    .map(buffer -> {
+                        int count = buffer.readableByteCount();
+                        if (!overflow && copy.size() + count <= limit) {
+                            int position = buffer.readPosition();
+                            byte[] bytes = new byte[count];
+                            buffer.read(bytes);
+                            buffer.readPosition(position);
+                            copy.writeBytes(bytes);
+                        } else {
+                            overflow = true;
+                            copy.reset();
+                        }
+                        return buffer;
+                    })
+                    .doOnComplete(() -> {
+                        if (!overflow && isCacheable()) {
+                            responseCache.put(key, new CachedResponse(getHeaders(), copy.toByteArray(),
+                                    config.getTtl(), config.getStaleTtl()));
+                        }
+                    });
+            return super.writeWith(copying);
+        }
+        
+        // Ответ сервиса, а не fallback: после срабатывания CircuitBreaker сюда пишет FallbackController
+        private boolean isCacheable() {
+            if (getStatusCode() != HttpStatus.OK
+                    || exchange.getAttributes().containsKey(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR)) {
+                return false;
+            }
+            HttpHeaders headers = getHeaders();
+            MediaType contentType = headers.getContentType();
+            if (contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                    || headers.containsKey(HttpHeaders.SET_COOKIE)
+                    || headers.containsKey(ResponseCache.CACHE_HEADER)) {
+                return false;
+            }
+            String cacheControl = headers.getCacheControl();
+            return cacheControl == null
+                    || !(cacheControl.contains(CacheControl.noStore().getHeaderValue())
+                    || cacheControl.contains("private"));
+        }
+    }
+    
+    public static class Config {
+        
+        // Сколько ответ отдаётся без обращения к сервису
+        private Duration ttl = Duration.ofSeconds(30);
+        
+        // Сколько ответ хранится всего и может отдаваться устаревшим
+        private Duration staleTtl = Duration.ofHours(1);
+        
+        public Duration getTtl() {
+            return ttl;
+        }
+        
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+        
+        public Duration getStaleTtl() {
+            return staleTtl;
+        }
+        
+        public void setStaleTtl(Duration staleTtl) {
+            this.staleTtl = staleTtl;
+        }
+    }
+}
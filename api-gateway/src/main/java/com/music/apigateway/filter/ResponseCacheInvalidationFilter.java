@@ -0,0 +1,94 @@
+package com.music.apigateway.filter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Сбрасывает кэш ответов после успешного изменяющего запроса к каталогу
+ * через любой маршрут, включая загрузку файлов и обложек через files-service.
+ * <p>
+ * Изменение сущности или её обложки сбрасывает только ответы маршрута этой сущности:
+ * DTO ссылаются друг на друга лишь по id. Удаление может каскадно удалить связанные
+ * альбомы и треки, поэтому после него, как и после неизвестного изменяющего запроса,
+ * сбрасывается весь кэш. Запросы на чтение через POST и счётчики прослушиваний кэш не трогают.
+ */
+@Component
+public class ResponseCacheInvalidationFilter implements GlobalFilter {
+    
+    private static final Set<HttpMethod> SAFE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+    
+    // Не меняют кэшируемых ответов: чтение треков по списку id и учёт прослушиваний
+    private static final List<PathPattern> IGNORED = parse(
+            "/api/tracks/batch", "/api/tracks/{id}/play", "/api/tracks/play-rollups/**");
+    
+    // Маршрут кэша, ответы которого меняет запрос по этим путям
+    private static final Map<String, List<PathPattern>> ROUTES = new LinkedHashMap<>();
+    
+    static {
+        ROUTES.put("artist-service", parse("/api/artists/**", "/api/files/artwork/artists/**"));
+        ROUTES.put("album-service", parse("/api/albums/**", "/api/files/artwork/albums/**"));
+        ROUTES.put("track-service", parse("/api/tracks/**", "/api/files/artwork/tracks/**",
+                "/api/files/tracks/**", "/api/files/uploads/**", "/api/files/import-jobs/**"));
+    }
+    
+    @Value("${gateway.response-cache.service-id:music-catalog-service}")
+    private String serviceId;
+    
+    @Autowired
+    private ResponseCache responseCache;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        if (SAFE_METHODS.contains(exchange.getRequest().getMethod())
+                || route == null || !serviceId.equalsIgnoreCase(route.getUri().getHost())
+                || matches(IGNORED, path)) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            if (status != null && status.is2xxSuccessful()) {
+                invalidate(exchange.getRequest().getMethod(), path);
+            }
+        });
+    }
+    
+    private void invalidate(HttpMethod method, PathContainer path) {
+        if (method != HttpMethod.DELETE) {
+            for (Map.Entry<String, List<PathPattern>> entry : ROUTES.entrySet()) {
+                if (matches(entry.getValue(), path)) {
+                    responseCache.invalidateRoute(entry.getKey());
+                    return;
+                }
+            }
+        }
+        responseCache.invalidateAll();
+    }
+    
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        return patterns.stream().anyMatch(pattern -> pattern.matches(path));
+    }
+    
+    private static List<PathPattern> parse(String... patterns) {
+        return Stream.of(patterns).map(PathPatternParser.defaultInstance::parse).toList();
+    }
+}
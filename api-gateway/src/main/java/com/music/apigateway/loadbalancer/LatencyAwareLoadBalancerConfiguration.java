@@ -0,0 +1,23 @@
+package com.music.apigateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Конфигурация клиентов балансировщика, подключается через @LoadBalancerClients в LoadBalancerConfig.
+ * Не помечена @Configuration: бины создаются в отдельном контексте каждого сервиса.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+    
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory, LoadBalancerStats stats) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name, stats);
+    }
+}
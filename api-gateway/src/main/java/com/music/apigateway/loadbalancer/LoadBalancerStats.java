@@ -0,0 +1,146 @@
+package com.music.apigateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Нагрузка экземпляров сервисов для {@link LatencyAwareLoadBalancer}: число запросов в работе
+ * и задержка до первого байта ответа, сглаженная экспоненциально (peak EWMA).
+ * Медленный ответ сразу поднимает оценку до своей задержки, быстрые опускают её постепенно.
+ * <p>
+ * Без новых замеров оценка за время gateway.loadbalancer.decay возвращается
+ * к gateway.loadbalancer.initial-latency, чтобы выведенный из ротации экземпляр
+ * снова получал пробные запросы. Ошибки и ответы 5xx считаются задержкой failure-penalty.
+ */
+@Component
+public class LoadBalancerStats {
+    
+    @Value("${gateway.loadbalancer.decay:10s}")
+    private Duration decay;
+    
+    @Value("${gateway.loadbalancer.initial-latency:100ms}")
+    private Duration initialLatency;
+    
+    @Value("${gateway.loadbalancer.failure-penalty:5s}")
+    private Duration failurePenalty;
+    
+    private Cache<String, InstanceStats> instances;
+    
+    @PostConstruct
+    public void init() {
+        // Экземпляры, пропавшие из реестра, забываются сами
+        instances = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+    
+    public InstanceStats get(ServiceInstance instance) {
+        String key = instance.getServiceId() + " " + instance.getHost() + ":" + instance.getPort();
+        return instances.get(key, k -> new InstanceStats(initialLatency.toNanos()));
+    }
+    
+    /**
+     * Начинает запрос к экземпляру: он считается в работе до {@link Call#finish()}
+     */
+    public Call start(ServiceInstance instance) {
+        return new Call(get(instance));
+    }
+    
+    /**
+     * Оценка стоимости запроса к экземпляру: задержка, умноженная на очередь к нему
+     */
+    public double getCost(ServiceInstance instance) {
+        InstanceStats stats = get(instance);
+        return stats.getLatencyNanos(System.nanoTime()) * (stats.getInFlight() + 1);
+    }
+    
+    public long getFailurePenaltyNanos() {
+        return failurePenalty.toNanos();
+    }
+    
+    /**
+     * Счётчики одного экземпляра
+     */
+    public class InstanceStats {
+        
+        private final AtomicInteger inFlight = new AtomicInteger();
+        
+        private double latencyNanos;
+        private long updatedAt;
+        
+        private InstanceStats(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+            this.updatedAt = System.nanoTime();
+        }
+        
+        public void start() {
+            inFlight.incrementAndGet();
+        }
+        
+        public void finish() {
+            inFlight.decrementAndGet();
+        }
+        
+        public int getInFlight() {
+            return inFlight.get();
+        }
+        
+        public synchronized void record(long sampleNanos) {
+            long now = System.nanoTime();
+            if (sampleNanos > latencyNanos) {
+                latencyNanos = sampleNanos;
+            } else {
+                double weight = Math.exp(-(double) (now - updatedAt) / decay.toNanos());
+                latencyNanos = latencyNanos * weight + sampleNanos * (1 - weight);
+            }
+            updatedAt = now;
+        }
+        
+        public synchronized double getLatencyNanos(long now) {
+            double initial = initialLatency.toNanos();
+            double idle = Math.max(0, now - updatedAt);
+            return initial + (latencyNanos - initial) * Math.exp(-idle / decay.toNanos());
+        }
+    }
+    
+    /**
+     * Один запрос к экземпляру. Задержка записывается один раз - первым, кто узнал о её конце:
+     * ответом, ошибкой или отменой, в том числе когда выиграл повтор на другом экземпляре
+     */
+    public static class Call {
+        
+        private final InstanceStats stats;
+        private final long startedAt = System.nanoTime();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        
+        private Call(InstanceStats stats) {
+            this.stats = stats;
+            stats.start();
+        }
+        
+        public long getElapsedNanos() {
+            return System.nanoTime() - startedAt;
+        }
+        
+        public void record(long sampleNanos) {
+            if (recorded.compareAndSet(false, true)) {
+                stats.record(sampleNanos);
+            }
+        }
+        
+        public void finish() {
+            if (finished.compareAndSet(false, true)) {
+                stats.finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.music.apigateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Собирает {@link LoadBalancerStats} для экземпляра, выбранного балансировщиком.
+ * Задержка меряется до начала отправки ответа клиенту, а не до конца тела,
+ * чтобы скачивание больших файлов не выглядело медленным ответом.
+ * Запрос считается в работе до конца тела, отменённые по таймауту тоже учитываются.
+ * Запрос лежит в атрибуте {@link #CALL_ATTR}: фильтр Hedge записывает по нему задержку
+ * основного запроса, когда ответ клиенту отдаёт повтор.
+ */
+@Component
+public class LoadBalancerStatsFilter implements GlobalFilter, Ordered {
+    
+    public static final String CALL_ATTR = LoadBalancerStatsFilter.class.getName() + ".call";
+    
+    @Autowired
+    private LoadBalancerStats stats;
+    
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer()) {
+            return chain.filter(exchange);
+        }
+        
+        LoadBalancerStats.Call call = stats.start(response.getServer());
+        exchange.getAttributes().put(CALL_ATTR, call);
+        exchange.getResponse().beforeCommit(() -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            call.record(status != null && status.is5xxServerError()
+                    ? stats.getFailurePenaltyNanos() : call.getElapsedNanos());
+            return Mono.empty();
+        });
+        return chain.filter(exchange).doFinally(signal -> {
+            // Ответа не было: ошибка соединения или отмена (клиентом или по таймауту CircuitBreaker)
+            long elapsed = call.getElapsedNanos();
+            call.record(signal == SignalType.ON_ERROR ? Math.max(elapsed, stats.getFailurePenaltyNanos()) : elapsed);
+            call.finish();
+        });
+    }
+}
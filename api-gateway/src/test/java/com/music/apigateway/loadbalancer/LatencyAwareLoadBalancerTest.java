@@ -0,0 +1,89 @@
+package com.music.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выбор экземпляра из фиксированного списка: медленный или занятый экземпляр не получает запросов
+ */
+class LatencyAwareLoadBalancerTest {
+    
+    private static final String SERVICE_ID = "music-catalog-service";
+    private static final int REQUESTS = 1000;
+    
+    private final ServiceInstance a = instance("a", 9101);
+    private final ServiceInstance b = instance("b", 9102);
+    private final ServiceInstance c = instance("c", 9103);
+    
+    private final LoadBalancerStats stats = LoadBalancerStatsTest.newStats();
+    
+    @Test
+    void slowInstanceIsDrained() {
+        stats.get(b).record(Duration.ofSeconds(2).toNanos());
+        
+        Map<String, Integer> chosen = chooseMany(a, b, c);
+        
+        // Из двух случайных экземпляров медленный всегда проигрывает второму
+        assertThat(chosen).doesNotContainKey("b");
+        assertThat(chosen.get("a")).isGreaterThan(REQUESTS / 4);
+        assertThat(chosen.get("c")).isGreaterThan(REQUESTS / 4);
+    }
+    
+    @Test
+    void busyInstanceIsDrained() {
+        for (int i = 0; i < 5; i++) {
+            stats.start(a);
+        }
+        
+        Map<String, Integer> chosen = chooseMany(a, b);
+        
+        assertThat(chosen).containsOnlyKeys("b");
+    }
+    
+    @Test
+    void equalInstancesShareRequests() {
+        Map<String, Integer> chosen = chooseMany(a, b, c);
+        
+        assertThat(chosen).containsOnlyKeys("a", "b", "c");
+        assertThat(chosen.values()).allMatch(count -> count > REQUESTS / 6);
+    }
+    
+    @Test
+    void singleInstanceIsChosenEvenIfSlow() {
+        stats.get(a).record(Duration.ofSeconds(2).toNanos());
+        
+        assertThat(chooseMany(a)).containsOnlyKeys("a");
+    }
+    
+    private Map<String, Integer> chooseMany(ServiceInstance... instances) {
+        ServiceInstanceListSupplier supplier = ServiceInstanceListSuppliers.from(SERVICE_ID, instances);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+        LatencyAwareLoadBalancer loadBalancer = new LatencyAwareLoadBalancer(
+                beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID, stats);
+        
+        Map<String, Integer> chosen = new HashMap<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+            assertThat(response).isNotNull();
+            assertThat(response.hasServer()).isTrue();
+            chosen.merge(response.getServer().getInstanceId(), 1, Integer::sum);
+        }
+        return chosen;
+    }
+    
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, SERVICE_ID, "localhost", port, false);
+    }
+}
@@ -0,0 +1,143 @@
+package com.music.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LoadBalancerStatsTest {
+    
+    private static final Duration DECAY = Duration.ofSeconds(10);
+    private static final Duration INITIAL = Duration.ofMillis(100);
+    private static final Duration PENALTY = Duration.ofSeconds(5);
+    
+    private final ServiceInstance instance = new DefaultServiceInstance("a", "music-catalog-service", "localhost", 9101, false);
+    
+    private LoadBalancerStats stats;
+    
+    @BeforeEach
+    void setUp() {
+        stats = newStats();
+    }
+    
+    @Test
+    void slowSampleRaisesLatencyAtOnce() {
+        LoadBalancerStats.InstanceStats instanceStats = stats.get(instance);
+        
+        instanceStats.record(millis(800));
+        
+        assertThat(instanceStats.getLatencyNanos(System.nanoTime())).isCloseTo(millis(800), within((double) millis(10)));
+    }
+    
+    @Test
+    void fastSamplesLowerLatencyGradually() {
+        LoadBalancerStats.InstanceStats instanceStats = stats.get(instance);
+        instanceStats.record(millis(800));
+        
+        // Пик не сбрасывается одним быстрым ответом: вес нового замера зависит от прошедшего времени
+        instanceStats.record(millis(10));
+        
+        assertThat(instanceStats.getLatencyNanos(System.nanoTime())).isGreaterThan(millis(700));
+    }
+    
+    @Test
+    void latencyDecaysToInitialWithoutSamples() {
+        LoadBalancerStats.InstanceStats instanceStats = stats.get(instance);
+        instanceStats.record(millis(800));
+        long now = System.nanoTime();
+        
+        double afterOneDecay = instanceStats.getLatencyNanos(now + DECAY.toNanos());
+        double afterManyDecays = instanceStats.getLatencyNanos(now + DECAY.toNanos() * 20);
+        
+        assertThat(afterOneDecay).isCloseTo(millis(100) + millis(700) / Math.E, within((double) millis(10)));
+        assertThat(afterManyDecays).isCloseTo(millis(100), within((double) millis(1)));
+    }
+    
+    @Test
+    void costGrowsWithRequestsInFlight() {
+        double idle = stats.getCost(instance);
+        LoadBalancerStats.Call first = stats.start(instance);
+        stats.start(instance);
+        
+        assertThat(stats.getCost(instance)).isCloseTo(idle * 3, within(idle * 0.01));
+        
+        first.finish();
+        first.finish();
+        assertThat(stats.get(instance).getInFlight()).isEqualTo(1);
+    }
+    
+    @Test
+    void connectionErrorIsRecordedAsFailurePenalty() {
+        MockServerWebExchange exchange = routedExchange();
+        
+        filter(exchange, Mono.error(new ConnectException("Connection refused")));
+        
+        assertThat(stats.get(instance).getLatencyNanos(System.nanoTime())).isCloseTo(PENALTY.toNanos(), within((double) millis(10)));
+        assertThat(stats.get(instance).getInFlight()).isZero();
+    }
+    
+    @Test
+    void serverErrorIsRecordedAsFailurePenalty() {
+        MockServerWebExchange exchange = routedExchange();
+        
+        filter(exchange, Mono.defer(() -> {
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return exchange.getResponse().setComplete();
+        }));
+        
+        assertThat(stats.get(instance).getLatencyNanos(System.nanoTime())).isCloseTo(PENALTY.toNanos(), within((double) millis(10)));
+    }
+    
+    @Test
+    void successfulResponseIsRecordedOnce() {
+        MockServerWebExchange exchange = routedExchange();
+        
+        filter(exchange, Mono.defer(() -> {
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return exchange.getResponse().setComplete();
+        }));
+        
+        // Быстрый ответ после начальной оценки: пик не поднимается, оценка почти не меняется
+        assertThat(stats.get(instance).getLatencyNanos(System.nanoTime())).isLessThanOrEqualTo(INITIAL.toNanos());
+        LoadBalancerStats.Call call = exchange.getAttribute(LoadBalancerStatsFilter.CALL_ATTR);
+        assertThat(call).isNotNull();
+    }
+    
+    static LoadBalancerStats newStats() {
+        LoadBalancerStats stats = new LoadBalancerStats();
+        ReflectionTestUtils.setField(stats, "decay", DECAY);
+        ReflectionTestUtils.setField(stats, "initialLatency", INITIAL);
+        ReflectionTestUtils.setField(stats, "failurePenalty", PENALTY);
+        stats.init();
+        return stats;
+    }
+    
+    private MockServerWebExchange routedExchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/tracks/1"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+        return exchange;
+    }
+    
+    private void filter(MockServerWebExchange exchange, Mono<Void> upstream) {
+        LoadBalancerStatsFilter filter = new LoadBalancerStatsFilter();
+        ReflectionTestUtils.setField(filter, "stats", stats);
+        filter.filter(exchange, ignored -> upstream).onErrorResume(e -> Mono.empty()).block();
+    }
+    
+    private static long millis(long value) {
+        return Duration.ofMillis(value).toNanos();
+    }
+}
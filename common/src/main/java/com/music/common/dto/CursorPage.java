@@ -0,0 +1,97 @@
+package com.music.common.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница keyset-пагинации: элементы и непрозрачный курсор на следующую страницу.
+ * Курсор кодирует id последнего элемента; запрос следующей страницы идёт
+ * по индексу с условием id > курсора (или id < курсора для списков от новых к старым),
+ * без OFFSET и без подсчёта строк.
+ */
+public class CursorPage<T> {
+    public static final int MAX_LIMIT = 100;
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+    
+    /**
+     * Запрос на limit + 1 строк: лишняя строка говорит о наличии следующей страницы
+     */
+    public static Pageable request(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return PageRequest.of(0, limit + 1);
+    }
+    
+    /**
+     * Собирает страницу из строк, выбранных по {@link #request(int)}
+     * @param rows строки в порядке курсора, не больше limit + 1
+     * @param idOf ключ курсора строки
+     * @param converter преобразование строк страницы в DTO
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int limit, Function<E, Long> idOf,
+                                          Function<List<E>, List<T>> converter) {
+        boolean hasMore = rows.size() > limit;
+        List<E> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        
+        CursorPage<T> page = new CursorPage<>();
+        page.setItems(converter.apply(pageRows));
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            page.setNextCursor(encodeCursor(idOf.apply(pageRows.get(pageRows.size() - 1))));
+        }
+        return page;
+    }
+    
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(id.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * @return id из курсора или defaultValue для первой страницы
+     */
+    public static Long decodeCursor(String cursor, Long defaultValue) {
+        if (cursor == null || cursor.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor);
+        }
+    }
+    
+    // Getters and Setters
+    public List<T> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
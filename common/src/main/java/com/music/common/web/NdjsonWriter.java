@@ -0,0 +1,35 @@
+package com.music.common.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Запись NDJSON в поток ответа StreamingResponseBody.
+ * Ошибки записи пробрасываются как UncheckedIOException, чтобы вызывать из лямбд обхода.
+ */
+public final class NdjsonWriter {
+    
+    private NdjsonWriter() {
+    }
+    
+    // Одна строка NDJSON; ObjectMapper.writeValue(OutputStream) закрыл бы поток ответа
+    public static void writeLine(ObjectMapper objectMapper, OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    public static void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -973,14 +973,14 @@ async function uploadArtwork(type, entityId, fileInputId) {
     }
 }
 
-// Upload Track File
+// Import Track File from URL: сервер скачивает файл фоновой задачей, здесь только опрашиваем её состояние
 async function downloadTrackFromUrl(trackId, fileUrl) {
     const API_BASE_URL = window.API_BASE_URL || 'http://localhost:8080';
     
     const formData = new URLSearchParams();
     formData.append('url', fileUrl);
     
-    const response = await fetch(`${API_BASE_URL}/api/files/tracks/${trackId}/download-from-url`, {
+    const response = await fetch(`${API_BASE_URL}/api/files/tracks/${trackId}/import-jobs`, {
         method: 'POST',
         headers: {
             'Content-Type': 'application/x-www-form-urlencoded',
@@ -993,10 +993,35 @@ async function downloadTrackFromUrl(trackId, fileUrl) {
         throw new Error(errorText || `HTTP error! status: ${response.status}`);
     }
     
-    const result = await response.text();
-    return result;
+    let job = await response.json();
+    const status = document.getElementById('trackFileStatus');
+    while (job.state === 'QUEUED' || job.state === 'RUNNING') {
+        if (status) {
+            const received = (job.bytesReceived / 1024 / 1024).toFixed(1);
+            const total = job.totalBytes ? ` из ${(job.totalBytes / 1024 / 1024).toFixed(1)}` : '';
+            status.textContent = `Скачивание: ${received}${total} MB`;
+        }
+        await new Promise(resolve => setTimeout(resolve, 1000));
+        
+        const pollResponse = await fetch(`${API_BASE_URL}/api/files/import-jobs/${job.jobId}`);
+        if (!pollResponse.ok) {
+            const errorText = await pollResponse.text();
+            throw new Error(errorText || `HTTP error! status: ${pollResponse.status}`);
+        }
+        job = await pollResponse.json();
+    }
+    
+    if (job.state === 'FAILED') {
+        throw new Error(job.error || 'Не удалось скачать файл');
+    }
+    return job;
 }
 
+// Аудио файл загружается частями через возобновляемую сессию:
+// после обрыва загрузка продолжается с последнего принятого сервером байта
+const UPLOAD_CHUNK_SIZE = 8 * 1024 * 1024;
+const UPLOAD_MAX_RETRIES = 5;
+
 async function uploadTrackFile(trackId, fileInputId) {
     const fileInput = document.getElementById(fileInputId);
     if (!fileInput.files || !fileInput.files[0]) {
@@ -1004,24 +1029,60 @@ async function uploadTrackFile(trackId, fileInputId) {
     }
     
     const file = fileInput.files[0];
-    const formData = new FormData();
-    formData.append('file', file);
     
     try {
         const apiBaseUrl = getApiBaseUrl();
-        const url = `${apiBaseUrl}/api/files/tracks/${trackId}/upload`;
-        const response = await fetch(url, {
+        const createUrl = `${apiBaseUrl}/api/files/tracks/${trackId}/uploads?filename=${encodeURIComponent(file.name)}`;
+        const createResponse = await fetch(createUrl, {
             method: 'POST',
-            body: formData
+            headers: { 'Upload-Length': String(file.size) }
         });
         
-        if (!response.ok) {
-            const errorText = await response.text();
+        if (!createResponse.ok) {
+            const errorText = await createResponse.text();
             throw new Error(errorText || 'Ошибка загрузки файла');
         }
         
-        const result = await response.text();
-        return result;
+        const upload = await createResponse.json();
+        const uploadUrl = `${apiBaseUrl}/api/files/uploads/${upload.uploadId}`;
+        let offset = 0;
+        let retries = 0;
+        
+        while (offset < file.size) {
+            try {
+                const response = await fetch(uploadUrl, {
+                    method: 'PATCH',
+                    headers: {
+                        'Content-Type': 'application/offset+octet-stream',
+                        'Upload-Offset': String(offset)
+                    },
+                    body: file.slice(offset, Math.min(offset + UPLOAD_CHUNK_SIZE, file.size))
+                });
+                
+                if (response.status === 400) {
+                    const errorText = await response.text();
+                    throw Object.assign(new Error(errorText || 'Ошибка загрузки файла'), { fatal: true });
+                }
+                if (!response.ok) {
+                    throw new Error(`HTTP ${response.status}`);
+                }
+                
+                offset = Number(response.headers.get('Upload-Offset'));
+                retries = 0;
+            } catch (error) {
+                if (error.fatal || ++retries > UPLOAD_MAX_RETRIES) {
+                    throw error;
+                }
+                await new Promise(resolve => setTimeout(resolve, 1000 * retries));
+                // Сервер мог принять часть данных до обрыва - продолжаем с его смещения
+                const headResponse = await fetch(uploadUrl, { method: 'HEAD' }).catch(() => null);
+                if (headResponse && headResponse.ok) {
+                    offset = Number(headResponse.headers.get('Upload-Offset'));
+                }
+            }
+        }
+        
+        return `File uploaded successfully: ${file.name} (${file.size} bytes)`;
     } catch (error) {
         console.error('Ошибка загрузки аудио файла:', error);
         throw error;
@@ -14,7 +14,7 @@ function formatDuration(seconds) {
     return `${mins}:${secs.toString().padStart(2, '0')}`;
 }
 
-function getArtworkUrl(track) {
+function getArtworkUrl(track, size = 256) {
     if (!track) return '';
     
     const apiBaseUrl = window.API_BASE_URL || API_BASE_URL || 'http://localhost:8080';
@@ -25,7 +25,7 @@ function getArtworkUrl(track) {
             return track.artworkPath;
         }
         if (track.id) {
-            return `${apiBaseUrl}/api/files/artwork/tracks/${track.id}`;
+            return `${apiBaseUrl}/api/files/artwork/tracks/${track.id}?size=${size}${track.artworkHash ? `&v=${track.artworkHash}` : ''}`;
         }
     }
 
@@ -37,7 +37,7 @@ function getArtworkUrl(track) {
                 return album.artworkPath;
             }
             if (album.id) {
-                return `${apiBaseUrl}/api/files/artwork/albums/${album.id}`;
+                return `${apiBaseUrl}/api/files/artwork/albums/${album.id}?size=${size}${album.artworkHash ? `&v=${album.artworkHash}` : ''}`;
             }
         }
     }
@@ -50,7 +50,7 @@ function getArtworkUrl(track) {
                 return artist.imagePath;
             }
             if (artist.id) {
-                return `${apiBaseUrl}/api/files/artwork/artists/${artist.id}`;
+                return `${apiBaseUrl}/api/files/artwork/artists/${artist.id}?size=${size}${artist.imageHash ? `&v=${artist.imageHash}` : ''}`;
             }
         }
     }
@@ -167,7 +167,7 @@ async function loadAlbumDetails(albumId) {
             if (album.artworkPath.startsWith('http://') || album.artworkPath.startsWith('https://')) {
                 artworkUrl = album.artworkPath;
             } else if (album.id) {
-                artworkUrl = `${apiBaseUrl}/api/files/artwork/albums/${album.id}`;
+                artworkUrl = `${apiBaseUrl}/api/files/artwork/albums/${album.id}?size=640${album.artworkHash ? `&v=${album.artworkHash}` : ''}`;
             }
         }
         
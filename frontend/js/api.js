@@ -1,5 +1,7 @@
 // API Configuration
 const API_BASE_URL = window.API_BASE_URL || 'http://localhost:8080'; // API Gateway
+// Предел числа ID в одном запросе /api/tracks/batch (TrackService.MAX_BATCH_IDS)
+const MAX_BATCH_IDS = 1000;
 
 // API Service
 class ApiService {
@@ -196,14 +198,62 @@ class ApiService {
         return await this.request('/api/tracks');
     }
 
+    // Страница каталога; nextCursor из ответа передаётся в after для следующей страницы
+    async getTracksPage({ after = null, limit = 50 } = {}) {
+        const params = new URLSearchParams({ limit });
+        if (after) {
+            params.set('after', after);
+        }
+        return await this.request(`/api/tracks?${params.toString()}`);
+    }
+
     async getTrackById(id) {
         return await this.request(`/api/tracks/${id}`);
     }
 
+    // Треки по списку ID в том же порядке; длинные списки отправляются в теле POST
+    // частями по MAX_BATCH_IDS, результаты склеиваются в исходном порядке
+    async getTracksByIds(ids) {
+        if (!ids || ids.length === 0) {
+            return [];
+        }
+        if (ids.length <= 100) {
+            return await this.request(`/api/tracks?ids=${ids.join(',')}`);
+        }
+        const chunks = [];
+        for (let i = 0; i < ids.length; i += MAX_BATCH_IDS) {
+            chunks.push(ids.slice(i, i + MAX_BATCH_IDS));
+        }
+        const pages = await Promise.all(chunks.map(chunk => this.request('/api/tracks/batch', {
+            method: 'POST',
+            body: JSON.stringify(chunk),
+        })));
+        return pages.flatMap(page => page || []);
+    }
+
     async getTracksByArtist(artistId) {
         return await this.request(`/api/tracks/artist/${artistId}`);
     }
 
+    // Страница треков жанра; nextCursor из ответа передаётся в after для следующей страницы
+    async getTracksByGenre(genre, { after = null, limit = 50 } = {}) {
+        const params = new URLSearchParams({ limit });
+        if (after) {
+            params.set('after', after);
+        }
+        return await this.request(`/api/tracks/genre/${encodeURIComponent(genre)}?${params.toString()}`);
+    }
+
+    // Случайная выборка треков жанра, перемешивание делает сервер
+    async sampleTracksByGenre(genre, size = 50) {
+        return await this.request(`/api/tracks/genre/${encodeURIComponent(genre)}?sample=${size}`);
+    }
+
+    // Жанры с количеством треков
+    async getGenres() {
+        return await this.request('/api/genres');
+    }
+
     async createTrack(trackData) {
         return await this.request('/api/tracks', {
             method: 'POST',
@@ -260,35 +310,13 @@ class ApiService {
         });
     }
 
+    // Ошибки не глушатся: пустой плейлист сервис отдаёт пустым списком, а сбой показывает вызывающий код
     async getPlaylistTracks(playlistId) {
-        try {
-            const trackIds = await this.request(`/api/playlist-tracks/playlist/${playlistId}`);
-            
-            // Если trackIds пустой массив или null, возвращаем пустой массив
-            if (!trackIds || !Array.isArray(trackIds) || trackIds.length === 0) {
-                return [];
-            }
-            
-            // Получаем детали треков
-            const tracks = [];
-            for (const id of trackIds) {
-                try {
-                    const track = await this.getTrackById(id);
-                    if (track) {
-                        tracks.push(track);
-                    }
-                } catch (error) {
-                    console.warn(`Ошибка загрузки трека ${id}:`, error);
-                    // Продолжаем загрузку других треков
-                }
-            }
-            return tracks;
-        } catch (error) {
-            console.warn('Error fetching playlist tracks (returning empty array):', error);
-            // Всегда возвращаем пустой массив вместо ошибки, если плейлист не найден или пустой
-            // Это позволяет отображать плейлист даже если в нем нет треков
+        const trackIds = await this.request(`/api/playlist-tracks/playlist/${playlistId}`);
+        if (!trackIds || trackIds.length === 0) {
             return [];
         }
+        return await this.getTracksByIds(trackIds);
     }
 
     async removeTrackFromPlaylist(playlistId, trackId) {
@@ -300,17 +328,11 @@ class ApiService {
     // Favorite Tracks Methods
     async getFavoriteTracks(userId) {
         const trackIds = await this.request(`/api/favorite-tracks/user/${userId}`);
-        // Получаем детали треков
-        const tracks = [];
-        for (const id of trackIds) {
-            try {
-                const track = await this.getTrackById(id);
-                tracks.push(track);
-            } catch (error) {
-                console.error(`Ошибка загрузки трека ${id}:`, error);
-            }
+        if (!trackIds || trackIds.length === 0) {
+            return [];
         }
-        return tracks;
+        // Получаем детали всех треков одним запросом
+        return await this.getTracksByIds(trackIds);
     }
 
     async addFavoriteTrack(userId, trackId) {
@@ -348,6 +370,15 @@ class ApiService {
     }
     
     // Search Methods
+    // Единый поиск по трекам, альбомам и артистам с ранжированием
+    async search(query, { types = [], page = 0, size = 20 } = {}) {
+        const params = new URLSearchParams({ q: query, page, size });
+        if (types.length > 0) {
+            params.set('types', types.join(','));
+        }
+        return await this.request(`/api/search?${params.toString()}`);
+    }
+    
     async searchTracks(query) {
         return await this.request(`/api/tracks/search?query=${encodeURIComponent(query)}`);
     }
@@ -359,6 +390,11 @@ class ApiService {
     async getPlaylistById(id) {
         return await this.request(`/api/playlists/${id}`);
     }
+
+    // Плейлист вместе с треками, артистами и альбомами одним запросом
+    async getExpandedPlaylist(id) {
+        return await this.request(`/api/playlists/${id}/expanded`);
+    }
 }
 
 // Export API instance
@@ -842,7 +842,7 @@ async function displayAlbums() {
                 if (album.artworkPath.startsWith('http://') || album.artworkPath.startsWith('https://')) {
                     artworkUrl = album.artworkPath;
                 } else {
-                    artworkUrl = `${API_BASE_URL}/api/files/artwork/albums/${album.id}`;
+                    artworkUrl = `${API_BASE_URL}/api/files/artwork/albums/${album.id}?size=256${album.artworkHash ? `&v=${album.artworkHash}` : ''}`;
                 }
             }
             
@@ -891,7 +891,7 @@ async function displayArtists() {
                 if (artist.imagePath.startsWith('http://') || artist.imagePath.startsWith('https://')) {
                     imageUrl = artist.imagePath;
                 } else {
-                    imageUrl = `${API_BASE_URL}/api/files/artwork/artists/${artist.id}`;
+                    imageUrl = `${API_BASE_URL}/api/files/artwork/artists/${artist.id}?size=256${artist.imageHash ? `&v=${artist.imageHash}` : ''}`;
                 }
             }
             return `
@@ -918,8 +918,7 @@ async function loadGenres() {
     tracksList.innerHTML = '<div class="loading"><div class="spinner"></div></div>';
     
     try {
-        const allTracks = await api.getTracks();
-        const genres = [...new Set(allTracks.map(t => t.genre).filter(Boolean))];
+        const genres = await api.getGenres();
         
         if (genres.length === 0) {
             tracksList.innerHTML = '<div class="empty-state"><i class="fas fa-tags"></i><p>Жанров пока нет</p></div>';
@@ -932,8 +931,8 @@ async function loadGenres() {
                     <i class="fas fa-tag"></i>
                 </div>
                 <div class="track-info">
-                    <a href="genre.html?name=${encodeURIComponent(genre)}" class="track-title track-link">${escapeHtml(genre)}</a>
-                    <div class="track-artist">${allTracks.filter(t => t.genre === genre).length} треков</div>
+                    <a href="genre.html?name=${encodeURIComponent(genre.name)}" class="track-title track-link">${escapeHtml(genre.name)}</a>
+                    <div class="track-artist">${genre.trackCount} треков</div>
                 </div>
             </div>
         `).join('');
@@ -1320,7 +1319,7 @@ function getPlaylistArtworkUrl(playlist) {
     return `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/playlists/${playlist.id}/image`;
 }
 
-function getArtworkUrl(track) {
+function getArtworkUrl(track, size = 256) {
     if (!track) return '';
     
     // Сначала пытаемся получить обложку трека
@@ -1330,7 +1329,7 @@ function getArtworkUrl(track) {
             return track.artworkPath;
         }
         // Иначе это путь к локальному файлу - используем API
-        return `${API_BASE_URL}/api/files/artwork/tracks/${track.id}`;
+        return `${API_BASE_URL}/api/files/artwork/tracks/${track.id}?size=${size}${track.artworkHash ? `&v=${track.artworkHash}` : ''}`;
     }
 
     // Затем обложку альбома (используем window.albums для глобальной доступности)
@@ -1342,7 +1341,7 @@ function getArtworkUrl(track) {
                 return album.artworkPath;
             }
             // Иначе используем API, если путь не пустой
-            return `${API_BASE_URL}/api/files/artwork/albums/${album.id}`;
+            return `${API_BASE_URL}/api/files/artwork/albums/${album.id}?size=${size}${album.artworkHash ? `&v=${album.artworkHash}` : ''}`;
         }
     }
 
@@ -1355,7 +1354,7 @@ function getArtworkUrl(track) {
                 return artist.imagePath;
             }
             // Иначе используем API, если путь не пустой
-            return `${API_BASE_URL}/api/files/artwork/artists/${artist.id}`;
+            return `${API_BASE_URL}/api/files/artwork/artists/${artist.id}?size=${size}${artist.imageHash ? `&v=${artist.imageHash}` : ''}`;
         }
     }
 
@@ -1387,10 +1386,14 @@ async function searchAndDisplayResults(query) {
     tracksList.innerHTML = '<div class="loading"><div class="spinner"></div></div>';
     
     try {
-        const [tracks, artists] = await Promise.all([
-            api.searchTracks(query),
-            api.searchArtists(query)
-        ]);
+        const searchPage = await api.search(query, { types: ['artist', 'track'], size: 50 });
+        const results = searchPage.results || [];
+        const artists = results
+            .filter(result => result.type === 'artist')
+            .map(result => ({ id: result.id, name: result.title, imagePath: result.artworkPath }));
+        const tracks = results
+            .filter(result => result.type === 'track')
+            .map(result => ({ id: result.id, title: result.title, artistId: result.artistId, albumId: result.albumId, artworkPath: result.artworkPath }));
         
         let html = '';
         
@@ -1399,7 +1402,7 @@ async function searchAndDisplayResults(query) {
             html += artists.map(artist => {
                 const artworkUrl = artist.imagePath && (artist.imagePath.startsWith('http://') || artist.imagePath.startsWith('https://'))
                     ? artist.imagePath
-                    : `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/artwork/artists/${artist.id}`;
+                    : `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/artwork/artists/${artist.id}?size=256${artist.imageHash ? `&v=${artist.imageHash}` : ''}`;
                 const hasArtwork = artist.imagePath;
                 
                 return `
@@ -14,7 +14,7 @@ function formatDuration(seconds) {
     return `${mins}:${secs.toString().padStart(2, '0')}`;
 }
 
-function getArtworkUrl(track) {
+function getArtworkUrl(track, size = 256) {
     if (!track) return '';
     
     const apiBaseUrl = window.API_BASE_URL || API_BASE_URL || 'http://localhost:8080';
@@ -26,7 +26,7 @@ function getArtworkUrl(track) {
         }
         // Проверяем, что track.id существует
         if (track.id) {
-            return `${apiBaseUrl}/api/files/artwork/tracks/${track.id}`;
+            return `${apiBaseUrl}/api/files/artwork/tracks/${track.id}?size=${size}${track.artworkHash ? `&v=${track.artworkHash}` : ''}`;
         }
     }
 
@@ -38,7 +38,7 @@ function getArtworkUrl(track) {
                 return album.artworkPath;
             }
             if (album.id) {
-                return `${apiBaseUrl}/api/files/artwork/albums/${album.id}`;
+                return `${apiBaseUrl}/api/files/artwork/albums/${album.id}?size=${size}${album.artworkHash ? `&v=${album.artworkHash}` : ''}`;
             }
         }
     }
@@ -51,7 +51,7 @@ function getArtworkUrl(track) {
                 return artist.imagePath;
             }
             if (artist.id) {
-                return `${apiBaseUrl}/api/files/artwork/artists/${artist.id}`;
+                return `${apiBaseUrl}/api/files/artwork/artists/${artist.id}?size=${size}${artist.imageHash ? `&v=${artist.imageHash}` : ''}`;
             }
         }
     }
@@ -149,7 +149,7 @@ async function loadArtistDetails(artistId) {
             if (artist.imagePath.startsWith('http://') || artist.imagePath.startsWith('https://')) {
                 imageUrl = artist.imagePath;
             } else if (artist.id) {
-                imageUrl = `${apiBaseUrl}/api/files/artwork/artists/${artist.id}`;
+                imageUrl = `${apiBaseUrl}/api/files/artwork/artists/${artist.id}?size=640${artist.imageHash ? `&v=${artist.imageHash}` : ''}`;
             }
         }
         
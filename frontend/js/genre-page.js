@@ -64,12 +64,12 @@ async function initializePage() {
 }
 
 // Use getArtworkUrl from app.js if available, otherwise define fallback
-function getArtworkUrl(track) {
+function getArtworkUrl(track, size = 256) {
     // Prevent infinite recursion: check if we're already calling the global function
     if (typeof window.getArtworkUrl === 'function' && !window._getArtworkUrlCalling) {
         try {
             window._getArtworkUrlCalling = true;
-            const result = window.getArtworkUrl(track);
+            const result = window.getArtworkUrl(track, size);
             window._getArtworkUrlCalling = false;
             return result;
         } catch (e) {
@@ -83,23 +83,29 @@ function getArtworkUrl(track) {
     if (imagePath && (imagePath.startsWith('http://') || imagePath.startsWith('https://'))) {
         return imagePath;
     }
-    return track.artworkPath ? `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/artwork/tracks/${track.id}` : '';
+    return track.artworkPath ? `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/artwork/tracks/${track.id}?size=${size}${track.artworkHash ? `&v=${track.artworkHash}` : ''}` : '';
 }
 
+// Сколько треков показывать и ставить в очередь со страницы жанра
+const GENRE_SAMPLE_SIZE = 50;
+let genreSample = [];
+
 async function loadGenreDetails(genreName) {
     const container = document.getElementById('genreDetails');
     container.innerHTML = '<div class="loading"><div class="spinner"></div></div>';
     
     try {
-        const allTracks = await api.getTracks();
+        // Случайную выборку и счётчики жанров готовит сервер
+        const [shuffledTracks, genres] = await Promise.all([
+            api.sampleTracksByGenre(genreName, GENRE_SAMPLE_SIZE),
+            api.getGenres()
+        ]);
+        const genreInfo = genres.find(g => g.name === genreName);
+        const trackCount = genreInfo ? genreInfo.trackCount : shuffledTracks.length;
         
         // Устанавливаем window.tracks для восстановления состояния плеера
-        window.tracks = allTracks;
-        
-        const genreTracks = allTracks.filter(t => t.genre === genreName);
-        
-        // Перемешиваем треки случайным образом
-        const shuffledTracks = genreTracks.sort(() => Math.random() - 0.5);
+        window.tracks = shuffledTracks;
+        genreSample = shuffledTracks;
         
         // Загружаем артистов и альбомы если нужно
         if (!window.artists || window.artists.length === 0) {
@@ -136,7 +142,7 @@ async function loadGenreDetails(genreName) {
                     <div class="album-details-label">Жанр</div>
                     <h1 class="album-details-title">${escapeHtml(genreName)}</h1>
                     <div class="album-details-meta">${description}</div>
-                    <div class="album-details-meta">${genreTracks.length} треков</div>
+                    <div class="album-details-meta">${trackCount} треков</div>
                     <div class="album-details-actions">
                         <button class="btn-listen" onclick="playGenreTracks('${escapeHtml(genreName)}')">
                             <i class="fas fa-play"></i> Слушать жанр
@@ -208,12 +214,7 @@ function escapeHtml(text) {
 
 async function playGenreTracks(genreName) {
     try {
-        if (!window.tracks || window.tracks.length === 0) {
-            window.tracks = await api.getTracks();
-        }
-        
-        const genreTracks = window.tracks.filter(t => t.genre === genreName);
-        const shuffledTracks = genreTracks.sort(() => Math.random() - 0.5);
+        const shuffledTracks = await api.sampleTracksByGenre(genreName, GENRE_SAMPLE_SIZE);
         
         if (shuffledTracks.length === 0) {
             alert('В этом жанре нет треков');
@@ -235,12 +236,10 @@ async function playGenreTracks(genreName) {
 
 async function playTrackFromGenre(genreName, trackId) {
     try {
-        if (!window.tracks || window.tracks.length === 0) {
-            window.tracks = await api.getTracks();
-        }
-        
-        const genreTracks = window.tracks.filter(t => t.genre === genreName);
-        const shuffledTracks = genreTracks.sort(() => Math.random() - 0.5);
+        // Очередь - та же выборка, что показана на странице
+        const shuffledTracks = genreSample.length > 0
+            ? genreSample
+            : await api.sampleTracksByGenre(genreName, GENRE_SAMPLE_SIZE);
         
         const trackIndex = shuffledTracks.findIndex(t => t.id === trackId);
         if (trackIndex === -1) {
@@ -170,7 +170,7 @@ function playTrack(trackId) {
     // Set audio source
     if (track.filePath) {
         // Use file path - URL к файлу через API Gateway
-        const audioUrl = `${API_BASE_URL_PLAYER}/api/files/tracks/${trackId}`;
+        const audioUrl = `${API_BASE_URL_PLAYER}/api/files/tracks/${trackId}${track.fileHash ? `?v=${track.fileHash}` : ''}`;
         console.log('Loading audio from:', audioUrl);
         audioElement.src = audioUrl;
         
@@ -399,7 +399,7 @@ function updateArtwork(track) {
         if (track.artworkPath.startsWith('http://') || track.artworkPath.startsWith('https://')) {
             artworkUrl = track.artworkPath;
         } else {
-            artworkUrl = `${API_BASE_URL_PLAYER}/api/files/artwork/tracks/${track.id}`;
+            artworkUrl = `${API_BASE_URL_PLAYER}/api/files/artwork/tracks/${track.id}?size=256${track.artworkHash ? `&v=${track.artworkHash}` : ''}`;
         }
     }
 
@@ -410,7 +410,7 @@ function updateArtwork(track) {
             if (album.artworkPath.startsWith('http://') || album.artworkPath.startsWith('https://')) {
                 artworkUrl = album.artworkPath;
             } else {
-                artworkUrl = `${API_BASE_URL_PLAYER}/api/files/artwork/albums/${album.id}`;
+                artworkUrl = `${API_BASE_URL_PLAYER}/api/files/artwork/albums/${album.id}?size=256${album.artworkHash ? `&v=${album.artworkHash}` : ''}`;
             }
         }
     }
@@ -422,7 +422,7 @@ function updateArtwork(track) {
             if (artist.imagePath.startsWith('http://') || artist.imagePath.startsWith('https://')) {
                 artworkUrl = artist.imagePath;
             } else {
-                artworkUrl = `${API_BASE_URL_PLAYER}/api/files/artwork/artists/${artist.id}`;
+                artworkUrl = `${API_BASE_URL_PLAYER}/api/files/artwork/artists/${artist.id}?size=256${artist.imageHash ? `&v=${artist.imageHash}` : ''}`;
             }
         }
     }
@@ -657,7 +657,7 @@ function loadTrackForRestore(track, savedTime) {
     
     // Set audio source
     if (track.filePath) {
-        const audioUrl = `${API_BASE_URL_PLAYER}/api/files/tracks/${track.id}`;
+        const audioUrl = `${API_BASE_URL_PLAYER}/api/files/tracks/${track.id}${track.fileHash ? `?v=${track.fileHash}` : ''}`;
         audioElement.src = audioUrl;
         
         // Show player
@@ -11,6 +11,12 @@ document.addEventListener('DOMContentLoaded', async () => {
     }
 });
 
+// Треки и артисты открытого плейлиста из расширенного ответа, без загрузки всего каталога
+let playlistData = null;
+
+// Размер страницы каталога в окне добавления треков
+const ADD_TRACKS_PAGE_SIZE = 50;
+
 async function initializePage() {
     console.log('[PLAYLIST_PAGE] initializePage called');
     console.log('[PLAYLIST_PAGE] window.initializeAuth:', typeof window.initializeAuth);
@@ -73,47 +79,29 @@ async function loadPlaylistDetails(playlistId) {
     container.innerHTML = '<div class="loading"><div class="spinner"></div></div>';
     
     try {
-        // Загружаем плейлист
-        let playlist;
+        // Загружаем плейлист вместе с треками, артистами и альбомами одним запросом
+        let expanded;
         try {
-            playlist = await api.getPlaylistById(playlistId);
+            expanded = await api.getExpandedPlaylist(playlistId);
         } catch (error) {
             console.error('Error loading playlist:', error);
             container.innerHTML = `<div class="empty-state"><i class="fas fa-exclamation-triangle"></i><p>Ошибка загрузки плейлиста: ${error.message || 'Плейлист не найден'}</p></div>`;
             return;
         }
         
+        const playlist = expanded ? expanded.playlist : null;
         if (!playlist) {
             container.innerHTML = '<div class="empty-state"><i class="fas fa-exclamation-triangle"></i><p>Плейлист не найден</p></div>';
             return;
         }
         
-        // Загружаем треки плейлиста (может вернуть пустой массив без ошибки)
-        let tracks = [];
-        try {
-            tracks = await api.getPlaylistTracks(playlistId);
-            // Если tracks null или undefined, делаем пустым массивом
-            if (!tracks) {
-                tracks = [];
-            }
-        } catch (error) {
-            console.warn('Error loading playlist tracks (continuing with empty list):', error);
-            // Продолжаем с пустым списком треков
-            tracks = [];
-        }
+        const tracks = expanded.tracks || [];
+        const artistsById = expanded.artists || {};
+        playlistData = { id: playlist.id, tracks, artistsById };
         
-        // Загружаем все треки для отображения информации
-        if (!window.tracks || window.tracks.length === 0) {
-            window.tracks = await api.getTracks();
-        }
-        
-        // Загружаем артистов и альбомы если нужно
-        if (!window.artists || window.artists.length === 0) {
-            window.artists = await api.getArtists();
-        }
-        if (!window.albums || window.albums.length === 0) {
-            window.albums = await api.getAlbums();
-        }
+        // Альбомы нужны getArtworkUrl для обложек треков без собственной обложки;
+        // свежие данные плейлиста заменяют уже загруженные альбомы с теми же id
+        mergeAlbums(Object.values(expanded.albums || {}));
         
         const user = api.getCurrentUser();
         const isOwner = user && user.id === playlist.userId;
@@ -157,13 +145,10 @@ async function loadPlaylistDetails(playlistId) {
                     <div class="tracks-list">
             `;
             
-            tracks.forEach((trackData, index) => {
-                const track = window.tracks.find(t => t.id === trackData.id || t.id === parseInt(trackData));
-                if (!track) return;
-                
+            tracks.forEach((track, index) => {
                 const artworkUrl = getArtworkUrl(track);
                 const hasArtwork = artworkUrl && artworkUrl.trim() !== '';
-                const artist = window.artists.find(a => a.id === track.artistId);
+                const artist = artistsById[track.artistId];
                 const artistName = artist ? artist.name : 'Неизвестный исполнитель';
                 
                 html += `
@@ -213,12 +198,32 @@ async function loadPlaylistDetails(playlistId) {
     }
 }
 
+function mergeAlbums(albums) {
+    const byId = new Map((window.albums || []).map(album => [album.id, album]));
+    albums.forEach(album => byId.set(album.id, album));
+    window.albums = Array.from(byId.values());
+}
+
+// Треки плейлиста в порядке плейлиста: из уже загруженной страницы или одним запросом expanded
+async function getPlaylistTrackList(playlistId) {
+    if (!playlistData || String(playlistData.id) !== String(playlistId)) {
+        const expanded = await api.getExpandedPlaylist(playlistId);
+        playlistData = {
+            id: expanded.playlist.id,
+            tracks: expanded.tracks || [],
+            artistsById: expanded.artists || {}
+        };
+        mergeAlbums(Object.values(expanded.albums || {}));
+    }
+    return playlistData.tracks;
+}
+
 // Use getArtworkUrl from app.js if available, otherwise define fallback
-function getArtworkUrl(track) {
+function getArtworkUrl(track, size = 256) {
     // Используем глобальную функцию из app.js, если она доступна
     if (typeof window.getArtworkUrl === 'function' && window.getArtworkUrl !== getArtworkUrl) {
         try {
-            return window.getArtworkUrl(track);
+            return window.getArtworkUrl(track, size);
         } catch (e) {
             console.warn('Error calling window.getArtworkUrl:', e);
             // Fallback к локальной реализации
@@ -230,7 +235,7 @@ function getArtworkUrl(track) {
     if (imagePath && (imagePath.startsWith('http://') || imagePath.startsWith('https://'))) {
         return imagePath;
     }
-    return track.artworkPath && track.id ? `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/artwork/tracks/${track.id}` : '';
+    return track.artworkPath && track.id ? `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/artwork/tracks/${track.id}?size=${size}${track.artworkHash ? `&v=${track.artworkHash}` : ''}` : '';
 }
 
 function getPlaylistArtworkUrl(playlist) {
@@ -252,15 +257,7 @@ function escapeHtml(text) {
 
 async function playPlaylist(playlistId) {
     try {
-        const tracks = await api.getPlaylistTracks(playlistId);
-        if (!window.tracks || window.tracks.length === 0) {
-            window.tracks = await api.getTracks();
-        }
-        
-        const trackList = tracks.map(t => {
-            const id = t.id || parseInt(t);
-            return window.tracks.find(tr => tr.id === id);
-        }).filter(t => t != null);
+        const trackList = await getPlaylistTrackList(playlistId);
         
         if (trackList.length === 0) {
             alert('В плейлисте нет треков');
@@ -282,15 +279,7 @@ async function playPlaylist(playlistId) {
 
 async function playTrackFromPlaylist(trackId, playlistId) {
     try {
-        const tracks = await api.getPlaylistTracks(playlistId);
-        if (!window.tracks || window.tracks.length === 0) {
-            window.tracks = await api.getTracks();
-        }
-        
-        const trackList = tracks.map(t => {
-            const id = t.id || parseInt(t);
-            return window.tracks.find(tr => tr.id === id);
-        }).filter(t => t != null);
+        const trackList = await getPlaylistTrackList(playlistId);
         
         const trackIndex = trackList.findIndex(t => t.id === trackId);
         if (trackIndex === -1) {
@@ -391,18 +380,13 @@ async function handleEditPlaylist(e, playlistId) {
 
 async function openAddTrackToPlaylistModal(playlistId) {
     try {
-        if (!window.tracks || window.tracks.length === 0) {
-            window.tracks = await api.getTracks();
-        }
         if (!window.artists || window.artists.length === 0) {
             window.artists = await api.getArtists();
         }
         
         const playlist = await api.getPlaylistById(playlistId);
-        const playlistTracks = await api.getPlaylistTracks(playlistId);
-        const playlistTrackIds = new Set(playlistTracks.map(t => t.id || parseInt(t)));
-        
-        const availableTracks = window.tracks.filter(t => !playlistTrackIds.has(t.id));
+        const playlistTracks = await getPlaylistTrackList(playlistId);
+        const playlistTrackIds = new Set(playlistTracks.map(t => t.id));
         
         // Используем локальную функцию getArtworkUrl, чтобы избежать конфликта
         const getArtworkUrlLocal = (track) => {
@@ -418,7 +402,28 @@ async function openAddTrackToPlaylistModal(playlistId) {
             if (imagePath && (imagePath.startsWith('http://') || imagePath.startsWith('https://'))) {
                 return imagePath;
             }
-            return track.artworkPath && track.id ? `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/artwork/tracks/${track.id}` : '';
+            return track.artworkPath && track.id ? `${window.API_BASE_URL || 'http://localhost:8080'}/api/files/artwork/tracks/${track.id}?size=256${track.artworkHash ? `&v=${track.artworkHash}` : ''}` : '';
+        };
+        
+        const renderTrack = (track) => {
+            const artist = window.artists.find(a => a.id === track.artistId);
+            const artistName = artist ? artist.name : 'Неизвестный исполнитель';
+            const artworkUrl = getArtworkUrlLocal(track);
+            const hasArtwork = artworkUrl && artworkUrl.trim() !== '';
+            return `
+                <div class="track-item" data-track-id="${track.id}">
+                    <div class="track-artwork" style="${hasArtwork ? `background-image: url('${artworkUrl}'); background-size: cover; background-position: center;` : ''}">
+                        ${!hasArtwork ? '<i class="fas fa-music"></i>' : ''}
+                    </div>
+                    <div class="track-info">
+                        <div class="track-title">${escapeHtml(track.title)}</div>
+                        <div class="track-artist">${escapeHtml(artistName)}</div>
+                    </div>
+                    <button class="btn-play" onclick="addTrackToPlaylistFromModal(${playlistId}, ${track.id})" title="Добавить">
+                        <i class="fas fa-plus"></i>
+                    </button>
+                </div>
+            `;
         };
         
         const modal = document.createElement('div');
@@ -428,28 +433,8 @@ async function openAddTrackToPlaylistModal(playlistId) {
             <div class="modal-content" style="max-width: 600px; max-height: 80vh; overflow-y: auto;">
                 <span class="close" onclick="closeAddTrackToPlaylistModal()">&times;</span>
                 <h3>Добавить треки в "${escapeHtml(playlist.name)}"</h3>
-                <div class="tracks-list">
-                    ${availableTracks.length === 0 ? '<div class="empty-state"><p>Нет доступных треков</p></div>' : availableTracks.map(track => {
-                        const artist = window.artists.find(a => a.id === track.artistId);
-                        const artistName = artist ? artist.name : 'Неизвестный исполнитель';
-                        const artworkUrl = getArtworkUrlLocal(track);
-                        const hasArtwork = artworkUrl && artworkUrl.trim() !== '';
-                        return `
-                            <div class="track-item" data-track-id="${track.id}">
-                                <div class="track-artwork" style="${hasArtwork ? `background-image: url('${artworkUrl}'); background-size: cover; background-position: center;` : ''}">
-                                    ${!hasArtwork ? '<i class="fas fa-music"></i>' : ''}
-                                </div>
-                                <div class="track-info">
-                                    <div class="track-title">${escapeHtml(track.title)}</div>
-                                    <div class="track-artist">${escapeHtml(artistName)}</div>
-                                </div>
-                                <button class="btn-play" onclick="addTrackToPlaylistFromModal(${playlistId}, ${track.id})" title="Добавить">
-                                    <i class="fas fa-plus"></i>
-                                </button>
-                            </div>
-                        `;
-                    }).join('')}
-                </div>
+                <div class="tracks-list"></div>
+                <button class="btn-primary" style="display: none; margin-top: 16px;">Показать ещё</button>
             </div>
         `;
         document.body.appendChild(modal);
@@ -458,6 +443,32 @@ async function openAddTrackToPlaylistModal(playlistId) {
                 closeAddTrackToPlaylistModal();
             }
         });
+        
+        // Каталог загружается страницами, следующая страница по кнопке "Показать ещё"
+        const list = modal.querySelector('.tracks-list');
+        const moreButton = modal.querySelector('.btn-primary');
+        let after = null;
+        let shown = 0;
+        const loadPage = async () => {
+            moreButton.disabled = true;
+            try {
+                const page = await api.getTracksPage({ after, limit: ADD_TRACKS_PAGE_SIZE });
+                const availableTracks = (page.items || []).filter(t => !playlistTrackIds.has(t.id));
+                list.insertAdjacentHTML('beforeend', availableTracks.map(renderTrack).join(''));
+                shown += availableTracks.length;
+                after = page.nextCursor;
+                moreButton.style.display = page.hasMore ? '' : 'none';
+                if (shown === 0 && !page.hasMore) {
+                    list.innerHTML = '<div class="empty-state"><p>Нет доступных треков</p></div>';
+                }
+            } catch (error) {
+                alert('Ошибка загрузки треков: ' + error.message);
+            } finally {
+                moreButton.disabled = false;
+            }
+        };
+        moreButton.onclick = loadPage;
+        await loadPage();
     } catch (error) {
         alert('Ошибка загрузки треков: ' + error.message);
     }
@@ -0,0 +1,43 @@
+package com.music.musiccatalogservice.actuator;
+
+import com.music.musiccatalogservice.service.DurationBackfillService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Управление заполнением длительности треков:
+ * GET /actuator/durationbackfill - прогресс,
+ * POST /actuator/durationbackfill {"restart": false} - запуск или продолжение,
+ * DELETE /actuator/durationbackfill - остановка после текущей пачки.
+ */
+@Component
+@Endpoint(id = "durationbackfill")
+public class DurationBackfillEndpoint {
+    
+    @Autowired
+    private DurationBackfillService durationBackfillService;
+    
+    @ReadOperation
+    public Map<String, Object> status() {
+        return durationBackfillService.getStatus();
+    }
+    
+    @WriteOperation
+    public Map<String, Object> start(@Nullable Boolean restart) {
+        durationBackfillService.start(Boolean.TRUE.equals(restart));
+        return durationBackfillService.getStatus();
+    }
+    
+    @DeleteOperation
+    public Map<String, Object> stop() {
+        durationBackfillService.stop();
+        return durationBackfillService.getStatus();
+    }
+}
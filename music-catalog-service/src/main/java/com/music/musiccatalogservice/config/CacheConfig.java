@@ -0,0 +1,39 @@
+package com.music.musiccatalogservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String TRACKS = "tracks";
+    public static final String ALBUMS = "albums";
+    public static final String ARTISTS = "artists";
+    public static final String GENRES = "genres";
+    
+    // Разрешённые обложки (путь, MIME тип, ETag) - см. ArtworkResolutionService
+    public static final String TRACK_ARTWORK = "trackArtwork";
+    public static final String ALBUM_ARTWORK = "albumArtwork";
+    public static final String ARTIST_ARTWORK = "artistArtwork";
+    
+    // recordStats нужен для метрик cache.gets{result=hit|miss} в actuator
+    @Value("${catalog.cache.spec:maximumSize=10000,expireAfterWrite=10m,recordStats}")
+    private String cacheSpec;
+    
+    // Инвалидация откладывается до коммита транзакции: иначе параллельное чтение
+    // между evict и commit вернуло бы в кэш старую версию сущности
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager(TRACKS, ALBUMS, ARTISTS, GENRES,
+                TRACK_ARTWORK, ALBUM_ARTWORK, ARTIST_ARTWORK);
+        caffeineCacheManager.setCacheSpecification(cacheSpec);
+        caffeineCacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,49 @@
+package com.music.musiccatalogservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ImportConfig {
+    
+    @Value("${catalog.import.connect-timeout-ms:30000}")
+    private long connectTimeoutMs;
+    
+    @Value("${catalog.import.threads:4}")
+    private int threads;
+    
+    // Один клиент на сервис: пул соединений и HTTP/2 переиспользуются между импортами
+    @Bean
+    public HttpClient importHttpClient() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+    
+    // Пул для скачивания файлов по URL. Очередь ожидающих импортов и её предел держит
+    // TrackImportService: в пул задача попадает, только когда для неё есть свободный поток.
+    // Своя очередь пула лишь сглаживает момент, когда поток ещё не вернулся за новой задачей;
+    // всё сверх неё отклоняется RejectedExecutionException, а не копится в памяти.
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService importExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "track-import-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,6 +1,7 @@
 package com.music.musiccatalogservice.controller;
 
 import com.music.musiccatalogservice.dto.AlbumDTO;
+import com.music.common.dto.CursorPage;
 import com.music.musiccatalogservice.service.AlbumService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -34,6 +35,14 @@ public class AlbumController {
         return ResponseEntity.ok(albums);
     }
     
+    @GetMapping(params = "limit")
+    @Operation(summary = "Get albums page by cursor")
+    public ResponseEntity<CursorPage<AlbumDTO>> getAllAlbums(@RequestParam(required = false) String after,
+                                                             @RequestParam int limit) {
+        CursorPage<AlbumDTO> albums = albumService.getAllAlbums(after, limit);
+        return ResponseEntity.ok(albums);
+    }
+    
     @GetMapping("/artist/{artistId}")
     @Operation(summary = "Get albums by artist ID")
     public ResponseEntity<List<AlbumDTO>> getAlbumsByArtistId(@PathVariable Long artistId) {
@@ -41,6 +50,22 @@ public class AlbumController {
         return ResponseEntity.ok(albums);
     }
     
+    @GetMapping(value = "/artist/{artistId}", params = "limit")
+    @Operation(summary = "Get albums page by artist ID")
+    public ResponseEntity<CursorPage<AlbumDTO>> getAlbumsByArtistId(@PathVariable Long artistId,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam int limit) {
+        CursorPage<AlbumDTO> albums = albumService.getAlbumsByArtistId(artistId, after, limit);
+        return ResponseEntity.ok(albums);
+    }
+    
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get albums by a list of IDs")
+    public ResponseEntity<List<AlbumDTO>> getAlbumsByIds(@RequestParam List<Long> ids) {
+        List<AlbumDTO> albums = albumService.getAlbumsByIds(ids);
+        return ResponseEntity.ok(albums);
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get album by ID")
     public ResponseEntity<AlbumDTO> getAlbumById(@PathVariable Long id) {
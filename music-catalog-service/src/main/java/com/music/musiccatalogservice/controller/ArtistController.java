@@ -1,6 +1,7 @@
 package com.music.musiccatalogservice.controller;
 
 import com.music.musiccatalogservice.dto.ArtistDTO;
+import com.music.common.dto.CursorPage;
 import com.music.musiccatalogservice.service.ArtistService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -36,6 +37,14 @@ public class ArtistController {
         return ResponseEntity.ok(artists);
     }
     
+    @GetMapping(params = "limit")
+    @Operation(summary = "Get artists page by cursor")
+    public ResponseEntity<CursorPage<ArtistDTO>> getAllArtists(@RequestParam(required = false) String after,
+                                                               @RequestParam int limit) {
+        CursorPage<ArtistDTO> artists = artistService.getAllArtists(after, limit);
+        return ResponseEntity.ok(artists);
+    }
+    
     @GetMapping("/page")
     @Operation(summary = "Get all artists with pagination")
     public ResponseEntity<Page<ArtistDTO>> getAllArtists(Pageable pageable) {
@@ -43,6 +52,13 @@ public class ArtistController {
         return ResponseEntity.ok(artists);
     }
     
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get artists by a list of IDs")
+    public ResponseEntity<List<ArtistDTO>> getArtistsByIds(@RequestParam List<Long> ids) {
+        List<ArtistDTO> artists = artistService.getArtistsByIds(ids);
+        return ResponseEntity.ok(artists);
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get artist by ID")
     public ResponseEntity<ArtistDTO> getArtistById(@PathVariable Long id) {
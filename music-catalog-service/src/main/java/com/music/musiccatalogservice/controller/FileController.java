@@ -2,35 +2,60 @@ package com.music.musiccatalogservice.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.music.common.web.NdjsonWriter;
+import com.music.musiccatalogservice.dto.ImportJobDTO;
+import com.music.musiccatalogservice.dto.ImportRequestDTO;
+import com.music.musiccatalogservice.dto.MediaBlobDTO;
+import com.music.musiccatalogservice.dto.UploadSessionDTO;
 import com.music.musiccatalogservice.entity.Track;
 import com.music.musiccatalogservice.entity.Album;
 import com.music.musiccatalogservice.entity.Artist;
 import com.music.musiccatalogservice.repository.TrackRepository;
 import com.music.musiccatalogservice.repository.AlbumRepository;
 import com.music.musiccatalogservice.repository.ArtistRepository;
+import com.music.musiccatalogservice.service.ArtworkResolutionService;
+import com.music.musiccatalogservice.service.ArtworkThumbnailService;
 import com.music.musiccatalogservice.service.AudioDurationService;
+import com.music.musiccatalogservice.service.MediaMetadataService;
+import com.music.musiccatalogservice.service.MediaStoreService;
+import com.music.musiccatalogservice.service.MediaStreamingService;
+import com.music.musiccatalogservice.service.Mp3FrameIndex;
+import com.music.musiccatalogservice.service.Mp3FrameIndexService;
+import com.music.musiccatalogservice.service.TrackImportService;
+import com.music.musiccatalogservice.service.TrackUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
     
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String START_TIME = "X-Start-Time";
+    
     @Value("${file.upload.dir:uploads}")
     private String uploadDir;
     
@@ -40,6 +65,13 @@ public class FileController {
     @Value("${file.upload.artwork.dir:uploads/artwork}")
     private String artworkDir;
     
+    @Value("${catalog.preview.max-seconds:60}")
+    private double previewMaxSeconds;
+    
+    // Меньше spring.mvc.async.request-timeout: поток результатов закрывается сам, до таймаута
+    @Value("${catalog.import.bulk-max-wait-ms:540000}")
+    private long bulkMaxWaitMs;
+    
     @Autowired
     private TrackRepository trackRepository;
     
@@ -55,77 +87,120 @@ public class FileController {
     @Autowired
     private com.music.musiccatalogservice.service.FileDownloadService fileDownloadService;
     
-    // Get Track Audio File
+    @Autowired
+    private MediaStreamingService mediaStreamingService;
+    
+    @Autowired
+    private MediaStoreService mediaStoreService;
+    
+    @Autowired
+    private MediaMetadataService mediaMetadataService;
+    
+    @Autowired
+    private Mp3FrameIndexService mp3FrameIndexService;
+    
+    @Autowired
+    private ArtworkResolutionService artworkResolutionService;
+    
+    @Autowired
+    private ArtworkThumbnailService artworkThumbnailService;
+    
+    @Autowired
+    private TrackImportService trackImportService;
+    
+    @Autowired
+    private TrackUploadService trackUploadService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Get Track Audio File (supports Range / If-Range / conditional requests)
+    // With ?t=<seconds> an MP3 track is served from the frame playing at that time
     @GetMapping("/tracks/{trackId}")
-    public ResponseEntity<Resource> getTrackFile(@PathVariable Long trackId) {
+    public void getTrackFile(@PathVariable Long trackId,
+                             @RequestParam(value = "t", required = false) Double time,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
         try {
             Track track = trackRepository.findById(trackId)
                     .orElseThrow(() -> new RuntimeException("Track not found"));
             
             if (track.getFilePath() == null || track.getFilePath().isEmpty()) {
-                return ResponseEntity.notFound().build();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
             }
             
-            Path filePath = Paths.get(track.getFilePath());
+            // Files without a frame index are served whole
+            if (time != null && time > 0 && streamMp3Slice(request, response, track, time, null)) {
+                return;
+            }
             
-            if (!Files.exists(filePath)) {
-                return ResponseEntity.notFound().build();
+            Path filePath = Paths.get(track.getFilePath());
+            String contentType = track.getMimeType() != null
+                    ? track.getMimeType() : MediaMetadataService.getAudioContentType(filePath);
+            streamTrackFile(request, response, track, contentType,
+                    "inline; filename=\"" + track.getTitle() + "\"");
+        } catch (Exception e) {
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             }
+        }
+    }
+    
+    // Get Track Preview: a frame-aligned MP3 clip, cut by the frame index without re-encoding
+    @GetMapping("/tracks/{trackId}/preview")
+    public void getTrackPreview(@PathVariable Long trackId,
+                                @RequestParam(value = "start", defaultValue = "0") double start,
+                                @RequestParam(value = "len", defaultValue = "30") double length,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        try {
+            Track track = trackRepository.findById(trackId)
+                    .orElseThrow(() -> new RuntimeException("Track not found"));
             
-            Resource resource = new FileSystemResource(filePath);
-            
-            // Determine content type based on file extension
-            String contentType = "audio/mpeg"; // default to MP3
-            String filePathStr = filePath.toString().toLowerCase();
-            if (filePathStr.endsWith(".mp3")) {
-                contentType = "audio/mpeg";
-            } else if (filePathStr.endsWith(".wav")) {
-                contentType = "audio/wav";
-            } else if (filePathStr.endsWith(".ogg")) {
-                contentType = "audio/ogg";
-            } else if (filePathStr.endsWith(".m4a")) {
-                contentType = "audio/mp4";
-            } else if (filePathStr.endsWith(".flac")) {
-                contentType = "audio/flac";
+            if (track.getFilePath() == null || track.getFilePath().isEmpty()) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            if (start < 0 || length <= 0 || length > previewMaxSeconds) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        "start must be >= 0 and len between 0 and " + previewMaxSeconds + " seconds");
+                return;
             }
             
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + track.getTitle() + "\"")
-                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
-                    .body(resource);
+            if (!streamMp3Slice(request, response, track, start, length)) {
+                response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Preview is only available for MP3 files");
+            }
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
         }
     }
     
     // Download Track
     @GetMapping("/tracks/{trackId}/download")
-    public ResponseEntity<Resource> downloadTrack(@PathVariable Long trackId) {
+    public void downloadTrack(@PathVariable Long trackId,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
         try {
             Track track = trackRepository.findById(trackId)
                     .orElseThrow(() -> new RuntimeException("Track not found"));
             
             if (track.getFilePath() == null || track.getFilePath().isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            Path filePath = Paths.get(track.getFilePath());
-            
-            if (!Files.exists(filePath)) {
-                return ResponseEntity.notFound().build();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
             }
             
-            Resource resource = new FileSystemResource(filePath);
             String filename = track.getTitle() + ".mp3";
             filename = filename.replaceAll("[^a-zA-Z0-9.-]", "_");
             
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
+            streamTrackFile(request, response, track, MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                    "attachment; filename=\"" + filename + "\"");
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
         }
     }
     
@@ -135,7 +210,7 @@ public class FileController {
             @PathVariable Long trackId,
             @RequestParam("file") MultipartFile file) {
         try {
-            Track track = trackRepository.findById(trackId)
+            Track track = trackRepository.findByIdUncached(trackId)
                     .orElseThrow(() -> new RuntimeException("Track not found"));
             
             // Validate file
@@ -146,17 +221,14 @@ public class FileController {
             String originalFilename = file.getOriginalFilename();
             String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
             
-            // Create directory for track
-            Path trackDir = Paths.get(tracksDir, trackId.toString());
-            Files.createDirectories(trackDir);
-            
-            // Save file
-            String filename = "track" + extension;
-            Path filePath = trackDir.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Save file to the content-addressed store
+            MediaBlobDTO blob = mediaStoreService.store(file.getInputStream(), extension);
+            Path filePath = Paths.get(blob.getPath());
             
             // Update track file path
-            track.setFilePath(filePath.toString().replace("\\", "/"));
+            mediaStoreService.deleteLegacyFile(track.getFilePath(), track.getFileHash());
+            track.setFilePath(blob.getPath());
+            track.setFileHash(blob.getHash());
             
             // Automatically detect audio duration
             try {
@@ -168,6 +240,7 @@ public class FileController {
                 // Log but don't fail upload if duration detection fails
                 System.err.println("Could not detect duration: " + e.getMessage());
             }
+            mediaMetadataService.apply(track, filePath);
             
             trackRepository.save(track);
             
@@ -179,13 +252,86 @@ public class FileController {
         }
     }
     
+    // Create a resumable upload session; the file is then sent in chunks with PATCH
+    @PostMapping("/tracks/{trackId}/uploads")
+    public ResponseEntity<UploadSessionDTO> createTrackUpload(
+            @PathVariable Long trackId,
+            @RequestHeader(UPLOAD_LENGTH) long uploadLength,
+            @RequestParam(value = "filename", required = false) String filename) {
+        UploadSessionDTO upload = trackUploadService.createUpload(trackId, uploadLength, filename);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(HttpHeaders.LOCATION, "/api/files/uploads/" + upload.getUploadId())
+                .header(UPLOAD_OFFSET, String.valueOf(upload.getUploadOffset()))
+                .body(upload);
+    }
+    
+    // Current upload offset, used by the client to resume after a failure
+    @RequestMapping(value = "/uploads/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> getTrackUploadOffset(@PathVariable String uploadId) {
+        UploadSessionDTO upload = trackUploadService.getUpload(uploadId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(upload.getUploadOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(upload.getUploadLength()))
+                .build();
+    }
+    
+    // Append a chunk at Upload-Offset; the last chunk completes the upload
+    @PatchMapping(value = "/uploads/{uploadId}", consumes = TrackUploadService.CONTENT_TYPE)
+    public ResponseEntity<Void> appendTrackUpload(
+            @PathVariable String uploadId,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request) throws IOException {
+        UploadSessionDTO upload = trackUploadService.appendChunk(uploadId, offset, request.getInputStream());
+        return ResponseEntity.noContent()
+                .header(UPLOAD_OFFSET, String.valueOf(upload.getUploadOffset()))
+                .build();
+    }
+    
+    // Cancel an upload and remove the partial file
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> terminateTrackUpload(@PathVariable String uploadId) throws IOException {
+        trackUploadService.terminate(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    // Start asynchronous import of a track file from URL
+    @PostMapping("/tracks/{trackId}/import-jobs")
+    public ResponseEntity<ImportJobDTO> startTrackImport(
+            @PathVariable Long trackId,
+            @RequestParam("url") String fileUrl) {
+        ImportJobDTO job = trackImportService.startImport(trackId, fileUrl);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/files/import-jobs/" + job.getJobId())
+                .body(job);
+    }
+    
+    // Bulk import: accepted job ids first, then results as NDJSON in completion order.
+    // Jobs still running when the wait ends are polled via /import-jobs/{jobId}
+    @PostMapping(value = "/import-jobs/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bulkImport(@RequestBody List<ImportRequestDTO> requests) {
+        Stream<ImportJobDTO> results = trackImportService.bulkImport(requests, Duration.ofMillis(bulkMaxWaitMs));
+        StreamingResponseBody body = out -> results.forEach(job -> {
+            NdjsonWriter.writeLine(objectMapper, out, job);
+            // Каждый результат уходит клиенту сразу, не дожидаясь заполнения буфера
+            NdjsonWriter.flush(out);
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    // Poll import job state and progress
+    @GetMapping("/import-jobs/{jobId}")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(trackImportService.getJob(jobId));
+    }
+    
     // Download Track File from URL
     @PostMapping("/tracks/{trackId}/download-from-url")
     public ResponseEntity<String> downloadTrackFromUrl(
             @PathVariable Long trackId,
             @RequestParam("url") String fileUrl) {
         try {
-            Track track = trackRepository.findById(trackId)
+            Track track = trackRepository.findByIdUncached(trackId)
                     .orElseThrow(() -> new RuntimeException("Track not found"));
             
             if (fileUrl == null || fileUrl.trim().isEmpty()) {
@@ -198,14 +344,22 @@ public class FileController {
             
             // Get file extension from URL
             String extension = fileDownloadService.getFileExtensionFromUrl(fileUrl);
-            String filename = "track" + extension;
-            Path filePath = trackDir.resolve(filename);
+            Path partPath = trackDir.resolve(UUID.randomUUID() + ".part");
             
-            // Download file from URL
-            fileDownloadService.downloadFile(fileUrl, filePath);
+            // Download file from URL and move it to the content-addressed store
+            MediaBlobDTO blob;
+            try {
+                fileDownloadService.downloadFile(fileUrl, partPath);
+                blob = mediaStoreService.storeFile(partPath, extension, null);
+            } finally {
+                Files.deleteIfExists(partPath);
+            }
+            Path filePath = Paths.get(blob.getPath());
             
             // Update track file path
-            track.setFilePath(filePath.toString().replace("\\", "/"));
+            mediaStoreService.deleteLegacyFile(track.getFilePath(), track.getFileHash());
+            track.setFilePath(blob.getPath());
+            track.setFileHash(blob.getHash());
             
             // Automatically detect audio duration
             try {
@@ -217,6 +371,7 @@ public class FileController {
                 // Log but don't fail download if duration detection fails
                 System.err.println("Could not detect duration: " + e.getMessage());
             }
+            mediaMetadataService.apply(track, filePath);
             
             trackRepository.save(track);
             
@@ -230,38 +385,13 @@ public class FileController {
     
     // Get Album Artwork
     @GetMapping("/artwork/albums/{albumId}")
-    public ResponseEntity<?> getAlbumArtwork(@PathVariable Long albumId) {
-        try {
-            Album album = albumRepository.findById(albumId)
-                    .orElseThrow(() -> new RuntimeException("Album not found"));
-            
-            String artworkPath = album.getArtworkPath();
-            if (artworkPath == null || artworkPath.isEmpty()) {
-                return getDefaultArtwork();
-            }
-            
-            // If it's an HTTP/HTTPS URL, redirect to it
-            if (artworkPath.startsWith("http://") || artworkPath.startsWith("https://")) {
-                return ResponseEntity.status(HttpStatus.FOUND)
-                        .header(HttpHeaders.LOCATION, artworkPath)
-                        .build();
-            }
-            
-            Path filePath = Paths.get(artworkPath);
-            
-            if (!Files.exists(filePath)) {
-                return getDefaultArtwork();
-            }
-            
-            Resource resource = new FileSystemResource(filePath);
-            String contentType = Files.probeContentType(filePath);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType != null ? contentType : "image/jpeg"))
-                    .body(resource);
-        } catch (Exception e) {
-            return getDefaultArtwork();
-        }
+    public void getAlbumArtwork(
+            @PathVariable Long albumId,
+            @RequestParam(value = MediaStreamingService.VERSION_PARAM, required = false) String version,
+            @RequestParam(value = "size", required = false) Integer size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        sendArtwork(request, response, () -> artworkResolutionService.getAlbumArtwork(albumId), version, size);
     }
     
     // Upload Album Artwork
@@ -270,7 +400,7 @@ public class FileController {
             @PathVariable Long albumId,
             @RequestParam("file") MultipartFile file) {
         try {
-            Album album = albumRepository.findById(albumId)
+            Album album = albumRepository.findByIdUncached(albumId)
                     .orElseThrow(() -> new RuntimeException("Album not found"));
             
             if (file.isEmpty()) {
@@ -280,20 +410,17 @@ public class FileController {
             String originalFilename = file.getOriginalFilename();
             String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
             
-            // Create directory if needed
-            Path artworkDirPath = Paths.get(artworkDir, "albums");
-            Files.createDirectories(artworkDirPath);
-            
-            // Save file
-            String filename = albumId + extension;
-            Path filePath = artworkDirPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Save file to the content-addressed store
+            MediaBlobDTO blob = mediaStoreService.store(file.getInputStream(), extension);
             
             // Update album artwork path
-            album.setArtworkPath(filePath.toString().replace("\\", "/"));
+            mediaStoreService.deleteLegacyFile(album.getArtworkPath(), album.getArtworkHash());
+            album.setArtworkPath(blob.getPath());
+            album.setArtworkHash(blob.getHash());
             albumRepository.save(album);
+            artworkThumbnailService.prefetch(Paths.get(blob.getPath()), blob.getHash());
             
-            return ResponseEntity.ok("Artwork uploaded successfully: " + filePath.toString());
+            return ResponseEntity.ok("Artwork uploaded successfully: " + blob.getPath());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error uploading artwork: " + e.getMessage());
@@ -302,38 +429,13 @@ public class FileController {
     
     // Get Artist Image
     @GetMapping("/artwork/artists/{artistId}")
-    public ResponseEntity<?> getArtistImage(@PathVariable Long artistId) {
-        try {
-            Artist artist = artistRepository.findById(artistId)
-                    .orElseThrow(() -> new RuntimeException("Artist not found"));
-            
-            String imagePath = artist.getImagePath();
-            if (imagePath == null || imagePath.isEmpty()) {
-                return getDefaultArtwork();
-            }
-            
-            // If it's an HTTP/HTTPS URL, redirect to it
-            if (imagePath.startsWith("http://") || imagePath.startsWith("https://")) {
-                return ResponseEntity.status(HttpStatus.FOUND)
-                        .header(HttpHeaders.LOCATION, imagePath)
-                        .build();
-            }
-            
-            Path filePath = Paths.get(imagePath);
-            
-            if (!Files.exists(filePath)) {
-                return getDefaultArtwork();
-            }
-            
-            Resource resource = new FileSystemResource(filePath);
-            String contentType = Files.probeContentType(filePath);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType != null ? contentType : "image/jpeg"))
-                    .body(resource);
-        } catch (Exception e) {
-            return getDefaultArtwork();
-        }
+    public void getArtistImage(
+            @PathVariable Long artistId,
+            @RequestParam(value = MediaStreamingService.VERSION_PARAM, required = false) String version,
+            @RequestParam(value = "size", required = false) Integer size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        sendArtwork(request, response, () -> artworkResolutionService.getArtistArtwork(artistId), version, size);
     }
     
     // Upload Artist Image
@@ -342,7 +444,7 @@ public class FileController {
             @PathVariable Long artistId,
             @RequestParam("file") MultipartFile file) {
         try {
-            Artist artist = artistRepository.findById(artistId)
+            Artist artist = artistRepository.findByIdUncached(artistId)
                     .orElseThrow(() -> new RuntimeException("Artist not found"));
             
             if (file.isEmpty()) {
@@ -352,80 +454,32 @@ public class FileController {
             String originalFilename = file.getOriginalFilename();
             String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
             
-            // Create directory if needed
-            Path artworkDirPath = Paths.get(artworkDir, "artists");
-            Files.createDirectories(artworkDirPath);
-            
-            // Save file
-            String filename = artistId + extension;
-            Path filePath = artworkDirPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Save file to the content-addressed store
+            MediaBlobDTO blob = mediaStoreService.store(file.getInputStream(), extension);
             
             // Update artist image path
-            artist.setImagePath(filePath.toString().replace("\\", "/"));
+            mediaStoreService.deleteLegacyFile(artist.getImagePath(), artist.getImageHash());
+            artist.setImagePath(blob.getPath());
+            artist.setImageHash(blob.getHash());
             artistRepository.save(artist);
+            artworkThumbnailService.prefetch(Paths.get(blob.getPath()), blob.getHash());
             
-            return ResponseEntity.ok("Image uploaded successfully: " + filePath.toString());
+            return ResponseEntity.ok("Image uploaded successfully: " + blob.getPath());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error uploading image: " + e.getMessage());
         }
     }
     
-    // Get Track Artwork
+    // Get Track Artwork (falls back to album artwork)
     @GetMapping("/artwork/tracks/{trackId}")
-    public ResponseEntity<?> getTrackArtwork(@PathVariable Long trackId) {
-        try {
-            Track track = trackRepository.findById(trackId)
-                    .orElseThrow(() -> new RuntimeException("Track not found"));
-            
-            String artworkPath = track.getArtworkPath();
-            if (artworkPath != null && !artworkPath.isEmpty()) {
-                // If it's an HTTP/HTTPS URL, redirect to it
-                if (artworkPath.startsWith("http://") || artworkPath.startsWith("https://")) {
-                    return ResponseEntity.status(HttpStatus.FOUND)
-                            .header(HttpHeaders.LOCATION, artworkPath)
-                            .build();
-                }
-                
-                // Otherwise, try to load as local file
-                Path filePath = Paths.get(artworkPath);
-                if (Files.exists(filePath)) {
-                    Resource resource = new FileSystemResource(filePath);
-                    String contentType = Files.probeContentType(filePath);
-                    return ResponseEntity.ok()
-                            .contentType(MediaType.parseMediaType(contentType != null ? contentType : "image/jpeg"))
-                            .body(resource);
-                }
-            }
-            
-            // Fallback to album artwork
-            if (track.getAlbumId() != null) {
-                Album album = albumRepository.findById(track.getAlbumId()).orElse(null);
-                if (album != null && album.getArtworkPath() != null && !album.getArtworkPath().isEmpty()) {
-                    String albumArtworkPath = album.getArtworkPath();
-                    // If it's an HTTP/HTTPS URL, redirect to it
-                    if (albumArtworkPath.startsWith("http://") || albumArtworkPath.startsWith("https://")) {
-                        return ResponseEntity.status(HttpStatus.FOUND)
-                                .header(HttpHeaders.LOCATION, albumArtworkPath)
-                                .build();
-                    }
-                    
-                    Path filePath = Paths.get(albumArtworkPath);
-                    if (Files.exists(filePath)) {
-                        Resource resource = new FileSystemResource(filePath);
-                        String contentType = Files.probeContentType(filePath);
-                        return ResponseEntity.ok()
-                                .contentType(MediaType.parseMediaType(contentType != null ? contentType : "image/jpeg"))
-                                .body(resource);
-                    }
-                }
-            }
-            
-            return getDefaultArtwork();
-        } catch (Exception e) {
-            return getDefaultArtwork();
-        }
+    public void getTrackArtwork(
+            @PathVariable Long trackId,
+            @RequestParam(value = MediaStreamingService.VERSION_PARAM, required = false) String version,
+            @RequestParam(value = "size", required = false) Integer size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        sendArtwork(request, response, () -> artworkResolutionService.getTrackArtwork(trackId), version, size);
     }
     
     // Upload Track Artwork
@@ -434,7 +488,7 @@ public class FileController {
             @PathVariable Long trackId,
             @RequestParam("file") MultipartFile file) {
         try {
-            Track track = trackRepository.findById(trackId)
+            Track track = trackRepository.findByIdUncached(trackId)
                     .orElseThrow(() -> new RuntimeException("Track not found"));
             
             if (file.isEmpty()) {
@@ -444,30 +498,114 @@ public class FileController {
             String originalFilename = file.getOriginalFilename();
             String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
             
-            // Create directory if needed
-            Path artworkDirPath = Paths.get(artworkDir, "tracks");
-            Files.createDirectories(artworkDirPath);
-            
-            // Save file
-            String filename = trackId + extension;
-            Path filePath = artworkDirPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            // Save file to the content-addressed store
+            MediaBlobDTO blob = mediaStoreService.store(file.getInputStream(), extension);
             
             // Update track artwork path
-            track.setArtworkPath(filePath.toString().replace("\\", "/"));
+            mediaStoreService.deleteLegacyFile(track.getArtworkPath(), track.getArtworkHash());
+            track.setArtworkPath(blob.getPath());
+            track.setArtworkHash(blob.getHash());
             trackRepository.save(track);
+            artworkThumbnailService.prefetch(Paths.get(blob.getPath()), blob.getHash());
             
-            return ResponseEntity.ok("Artwork uploaded successfully: " + filePath.toString());
+            return ResponseEntity.ok("Artwork uploaded successfully: " + blob.getPath());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error uploading artwork: " + e.getMessage());
         }
     }
     
-    private ResponseEntity<Resource> getDefaultArtwork() {
+    // With metadata stored at ingest the response headers are built without touching the filesystem
+    private void streamTrackFile(HttpServletRequest request, HttpServletResponse response, Track track,
+                                 String contentType, String contentDisposition) throws IOException {
+        Path filePath = Paths.get(track.getFilePath());
+        if (track.getFileSizeBytes() == null || track.getFileModifiedAt() == null) {
+            mediaStreamingService.stream(request, response, filePath, contentType, contentDisposition,
+                    track.getFileHash());
+            return;
+        }
+        long lastModified = track.getFileModifiedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        mediaStreamingService.stream(request, response, filePath, contentType, contentDisposition,
+                track.getFileHash(), track.getFileSizeBytes(), lastModified);
+    }
+    
+    // Streams the frames covering [start, start + length) of an MP3 track, or up to the end without length.
+    // Returns false if the file has no frame index (not an MP3).
+    private boolean streamMp3Slice(HttpServletRequest request, HttpServletResponse response, Track track,
+                                   double start, Double length) throws IOException {
+        Path filePath = Paths.get(track.getFilePath());
+        Mp3FrameIndex index = mp3FrameIndexService.getIndex(filePath, track.getFileHash());
+        if (index == null) {
+            return false;
+        }
+        
+        int firstFrame = index.getFrameAt(start);
+        int endFrame = length != null
+                ? Math.max(index.getFrameFrom(start + length), firstFrame)
+                : index.getFrameCount();
+        long offset = index.getOffset(firstFrame);
+        long lastModified = track.getFileModifiedAt() != null
+                ? track.getFileModifiedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : Files.getLastModifiedTime(filePath).toMillis();
+        
+        // Exact start of the first frame, so the player can map its clock to the track timeline
+        response.setHeader(START_TIME, String.valueOf(index.getTime(firstFrame)));
+        mediaStreamingService.streamSlice(request, response, filePath, MediaMetadataService.getAudioContentType(filePath),
+                track.getFileHash(), firstFrame + "-" + endFrame, offset, index.getOffset(endFrame) - offset, lastModified);
+        return true;
+    }
+    
+    // Artwork is resolved from memory (see ArtworkResolutionService) and sent zero-copy like audio files.
+    // Artwork from the content-addressed store gets a strong ETag; a request with ?v=<hash> is cached forever.
+    // With ?size= a cached thumbnail is served; until it is generated in the background, the original is served uncached.
+    private void sendArtwork(HttpServletRequest request, HttpServletResponse response,
+                             Supplier<ArtworkResolutionService.ResolvedArtwork> resolver,
+                             String version, Integer size) throws IOException {
+        try {
+            ArtworkResolutionService.ResolvedArtwork artwork = resolver.get();
+            if (artwork == null) {
+                sendDefaultArtwork(response);
+                return;
+            }
+            
+            // If it's an HTTP/HTTPS URL, redirect to it
+            if (artwork.getRedirectUrl() != null) {
+                response.setStatus(HttpServletResponse.SC_FOUND);
+                response.setHeader(HttpHeaders.LOCATION, artwork.getRedirectUrl());
+                return;
+            }
+            
+            Path filePath = artwork.getPath();
+            String contentType = artwork.getContentType();
+            String hash = artwork.getHash();
+            String etag = hash;
+            boolean immutable = hash != null && hash.equals(version);
+            if (size != null) {
+                int thumbnailSize = artworkThumbnailService.resolveSize(size);
+                Path thumbnail = artworkThumbnailService.findThumbnail(filePath, hash, thumbnailSize);
+                if (thumbnail != null) {
+                    filePath = thumbnail;
+                    contentType = ArtworkResolutionService.getContentType(thumbnail);
+                    etag = hash != null ? hash + "-" + thumbnailSize : null;
+                } else {
+                    // The client must come back for the thumbnail instead of caching the original
+                    immutable = false;
+                }
+            }
+            
+            String cacheControl = etag == null ? null
+                    : immutable ? MediaStreamingService.IMMUTABLE_CACHE_CONTROL : "no-cache";
+            mediaStreamingService.stream(request, response, filePath, contentType, null, etag, cacheControl);
+        } catch (Exception e) {
+            if (!response.isCommitted()) {
+                sendDefaultArtwork(response);
+            }
+        }
+    }
+    
+    private void sendDefaultArtwork(HttpServletResponse response) throws IOException {
         // Return default placeholder image
         // В реальном приложении можно вернуть статическое изображение
-        return ResponseEntity.notFound().build();
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
     }
 }
-
@@ -0,0 +1,27 @@
+package com.music.musiccatalogservice.controller;
+
+import com.music.musiccatalogservice.dto.GenreDTO;
+import com.music.musiccatalogservice.service.GenreService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/genres")
+@Tag(name = "Genre Controller", description = "API for browsing genres")
+public class GenreController {
+    
+    @Autowired
+    private GenreService genreService;
+    
+    @GetMapping
+    @Operation(summary = "Get all genres with track counts")
+    public ResponseEntity<List<GenreDTO>> getGenres() {
+        List<GenreDTO> genres = genreService.getGenres();
+        return ResponseEntity.ok(genres);
+    }
+}
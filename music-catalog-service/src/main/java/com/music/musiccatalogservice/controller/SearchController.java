@@ -0,0 +1,30 @@
+package com.music.musiccatalogservice.controller;
+
+import com.music.musiccatalogservice.dto.SearchPageDTO;
+import com.music.musiccatalogservice.service.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/search")
+@Tag(name = "Search Controller", description = "API for searching tracks, albums and artists")
+public class SearchController {
+    
+    @Autowired
+    private SearchService searchService;
+    
+    @GetMapping
+    @Operation(summary = "Search tracks, albums and artists")
+    public ResponseEntity<SearchPageDTO> search(@RequestParam("q") String query,
+                                                @RequestParam(required = false) Set<String> types,
+                                                @RequestParam(defaultValue = "0") int page,
+                                                @RequestParam(defaultValue = "20") int size) {
+        SearchPageDTO result = searchService.search(query, types, page, size);
+        return ResponseEntity.ok(result);
+    }
+}
@@ -1,16 +1,23 @@
 package com.music.musiccatalogservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.music.common.dto.CursorPage;
+import com.music.common.web.NdjsonWriter;
 import com.music.musiccatalogservice.dto.TrackDTO;
 import com.music.musiccatalogservice.service.TrackService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/tracks")
@@ -21,7 +28,13 @@ public class TrackController {
     private TrackService trackService;
     
     @Autowired
-    private com.music.musiccatalogservice.service.TrackPlayService trackPlayService;
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private com.music.musiccatalogservice.service.PlayIngestionQueue playIngestionQueue;
+    
+    @Autowired
+    private com.music.musiccatalogservice.service.TrackPlayRollupService trackPlayRollupService;
     
     @PostMapping
     @Operation(summary = "Create a new track")
@@ -37,6 +50,35 @@ public class TrackController {
         return ResponseEntity.ok(tracks);
     }
     
+    @GetMapping(params = "limit")
+    @Operation(summary = "Get tracks page by cursor")
+    public ResponseEntity<CursorPage<TrackDTO>> getAllTracks(@RequestParam(required = false) String after,
+                                                             @RequestParam int limit) {
+        CursorPage<TrackDTO> tracks = trackService.getAllTracks(after, limit);
+        return ResponseEntity.ok(tracks);
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all tracks as NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamAllTracks() {
+        StreamingResponseBody body = out -> trackService.streamAllTracks(track -> NdjsonWriter.writeLine(objectMapper, out, track));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get tracks by a list of IDs, in the requested order")
+    public ResponseEntity<List<TrackDTO>> getTracksByIds(@RequestParam List<Long> ids) {
+        List<TrackDTO> tracks = trackService.getTracksByIds(ids);
+        return ResponseEntity.ok(tracks);
+    }
+    
+    @PostMapping("/batch")
+    @Operation(summary = "Get tracks by a list of IDs passed in the body, in the requested order")
+    public ResponseEntity<List<TrackDTO>> getTracksByIdsBatch(@RequestBody List<Long> ids) {
+        List<TrackDTO> tracks = trackService.getTracksByIds(ids);
+        return ResponseEntity.ok(tracks);
+    }
+    
     @GetMapping("/artist/{artistId}")
     @Operation(summary = "Get tracks by artist ID")
     public ResponseEntity<List<TrackDTO>> getTracksByArtistId(@PathVariable Long artistId) {
@@ -44,6 +86,15 @@ public class TrackController {
         return ResponseEntity.ok(tracks);
     }
     
+    @GetMapping(value = "/artist/{artistId}", params = "limit")
+    @Operation(summary = "Get tracks page by artist ID")
+    public ResponseEntity<CursorPage<TrackDTO>> getTracksByArtistId(@PathVariable Long artistId,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam int limit) {
+        CursorPage<TrackDTO> tracks = trackService.getTracksByArtistId(artistId, after, limit);
+        return ResponseEntity.ok(tracks);
+    }
+    
     @GetMapping("/album/{albumId}")
     @Operation(summary = "Get tracks by album ID")
     public ResponseEntity<List<TrackDTO>> getTracksByAlbumId(@PathVariable Long albumId) {
@@ -51,6 +102,32 @@ public class TrackController {
         return ResponseEntity.ok(tracks);
     }
     
+    @GetMapping(value = "/album/{albumId}", params = "limit")
+    @Operation(summary = "Get tracks page by album ID")
+    public ResponseEntity<CursorPage<TrackDTO>> getTracksByAlbumId(@PathVariable Long albumId,
+                                                                   @RequestParam(required = false) String after,
+                                                                   @RequestParam int limit) {
+        CursorPage<TrackDTO> tracks = trackService.getTracksByAlbumId(albumId, after, limit);
+        return ResponseEntity.ok(tracks);
+    }
+    
+    @GetMapping("/genre/{genre}")
+    @Operation(summary = "Get tracks page by genre")
+    public ResponseEntity<CursorPage<TrackDTO>> getTracksByGenre(@PathVariable String genre,
+                                                                 @RequestParam(required = false) String after,
+                                                                 @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<TrackDTO> tracks = trackService.getTracksByGenre(genre, after, limit);
+        return ResponseEntity.ok(tracks);
+    }
+    
+    @GetMapping(value = "/genre/{genre}", params = "sample")
+    @Operation(summary = "Get a random sample of tracks by genre")
+    public ResponseEntity<List<TrackDTO>> sampleTracksByGenre(@PathVariable String genre,
+                                                              @RequestParam int sample) {
+        List<TrackDTO> tracks = trackService.sampleTracksByGenre(genre, sample);
+        return ResponseEntity.ok(tracks);
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get track by ID")
     public ResponseEntity<TrackDTO> getTrackById(@PathVariable Long id) {
@@ -76,8 +153,19 @@ public class TrackController {
     @PostMapping("/{id}/play")
     @Operation(summary = "Record a track play")
     public ResponseEntity<Void> recordPlay(@PathVariable Long id) {
-        trackPlayService.recordPlay(id);
-        return ResponseEntity.ok().build();
+        if (!playIngestionQueue.offer(id)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+    
+    @PostMapping("/play-rollups/rebuild")
+    @Operation(summary = "Rebuild play count rollups from the play history")
+    public ResponseEntity<Map<String, Integer>> rebuildPlayRollups() {
+        Map<String, Integer> result = trackPlayRollupService.rebuildRollups();
+        return ResponseEntity.ok(result);
     }
     
     @GetMapping("/search")
@@ -87,4 +175,3 @@ public class TrackController {
         return ResponseEntity.ok(tracks);
     }
 }
-
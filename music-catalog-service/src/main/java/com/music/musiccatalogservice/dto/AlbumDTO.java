@@ -8,6 +8,7 @@ public class AlbumDTO {
     private String title;
     private Integer releaseYear;
     private String artworkPath;
+    private String artworkHash;
     private LocalDateTime createdAt;
     
     // Getters and Setters
@@ -51,6 +52,14 @@ public class AlbumDTO {
         this.artworkPath = artworkPath;
     }
     
+    public String getArtworkHash() {
+        return artworkHash;
+    }
+    
+    public void setArtworkHash(String artworkHash) {
+        this.artworkHash = artworkHash;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
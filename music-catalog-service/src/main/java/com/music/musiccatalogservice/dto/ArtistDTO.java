@@ -7,6 +7,7 @@ public class ArtistDTO {
     private String name;
     private String description;
     private String imagePath;
+    private String imageHash;
     private LocalDateTime createdAt;
     
     // Getters and Setters
@@ -42,6 +43,14 @@ public class ArtistDTO {
         this.imagePath = imagePath;
     }
     
+    public String getImageHash() {
+        return imageHash;
+    }
+    
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
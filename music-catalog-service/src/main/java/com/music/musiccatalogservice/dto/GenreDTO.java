@@ -0,0 +1,23 @@
+package com.music.musiccatalogservice.dto;
+
+public class GenreDTO {
+    private String name;
+    private Long trackCount;
+    
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public Long getTrackCount() {
+        return trackCount;
+    }
+    
+    public void setTrackCount(Long trackCount) {
+        this.trackCount = trackCount;
+    }
+}
@@ -0,0 +1,124 @@
+package com.music.musiccatalogservice.dto;
+
+import java.time.LocalDateTime;
+
+public class ImportJobDTO {
+    private String jobId;
+    private Long trackId;
+    private String url;
+    private String state;
+    private long bytesReceived;
+    private Long totalBytes;
+    private long bytesPerSecond;
+    private int resumes;
+    private Integer durationSeconds;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+    
+    public Long getTrackId() {
+        return trackId;
+    }
+    
+    public void setTrackId(Long trackId) {
+        this.trackId = trackId;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public void setUrl(String url) {
+        this.url = url;
+    }
+    
+    public String getState() {
+        return state;
+    }
+    
+    public void setState(String state) {
+        this.state = state;
+    }
+    
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+    
+    public void setBytesReceived(long bytesReceived) {
+        this.bytesReceived = bytesReceived;
+    }
+    
+    public Long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    public void setTotalBytes(Long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+    
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+    
+    public void setBytesPerSecond(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+    
+    public int getResumes() {
+        return resumes;
+    }
+    
+    public void setResumes(int resumes) {
+        this.resumes = resumes;
+    }
+    
+    public Integer getDurationSeconds() {
+        return durationSeconds;
+    }
+    
+    public void setDurationSeconds(Integer durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,23 @@
+package com.music.musiccatalogservice.dto;
+
+public class ImportRequestDTO {
+    private Long trackId;
+    private String url;
+    
+    // Getters and Setters
+    public Long getTrackId() {
+        return trackId;
+    }
+    
+    public void setTrackId(Long trackId) {
+        this.trackId = trackId;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public void setUrl(String url) {
+        this.url = url;
+    }
+}
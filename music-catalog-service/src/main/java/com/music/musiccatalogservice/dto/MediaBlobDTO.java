@@ -0,0 +1,32 @@
+package com.music.musiccatalogservice.dto;
+
+public class MediaBlobDTO {
+    private String hash;
+    private String path;
+    private long sizeBytes;
+    
+    // Getters and Setters
+    public String getHash() {
+        return hash;
+    }
+    
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public void setPath(String path) {
+        this.path = path;
+    }
+    
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+    
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+}
@@ -0,0 +1,52 @@
+package com.music.musiccatalogservice.dto;
+
+import java.util.List;
+
+public class SearchPageDTO {
+    private String query;
+    private int page;
+    private int size;
+    private boolean hasMore;
+    private List<SearchResultDTO> results;
+    
+    // Getters and Setters
+    public String getQuery() {
+        return query;
+    }
+    
+    public void setQuery(String query) {
+        this.query = query;
+    }
+    
+    public int getPage() {
+        return page;
+    }
+    
+    public void setPage(int page) {
+        this.page = page;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public void setSize(int size) {
+        this.size = size;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    public List<SearchResultDTO> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<SearchResultDTO> results) {
+        this.results = results;
+    }
+}
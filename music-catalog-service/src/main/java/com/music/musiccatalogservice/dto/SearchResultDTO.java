@@ -0,0 +1,68 @@
+package com.music.musiccatalogservice.dto;
+
+public class SearchResultDTO {
+    private String type;
+    private Long id;
+    private String title;
+    private Long artistId;
+    private Long albumId;
+    private String artworkPath;
+    private Double score;
+    
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public Long getArtistId() {
+        return artistId;
+    }
+    
+    public void setArtistId(Long artistId) {
+        this.artistId = artistId;
+    }
+    
+    public Long getAlbumId() {
+        return albumId;
+    }
+    
+    public void setAlbumId(Long albumId) {
+        this.albumId = albumId;
+    }
+    
+    public String getArtworkPath() {
+        return artworkPath;
+    }
+    
+    public void setArtworkPath(String artworkPath) {
+        this.artworkPath = artworkPath;
+    }
+    
+    public Double getScore() {
+        return score;
+    }
+    
+    public void setScore(Double score) {
+        this.score = score;
+    }
+}
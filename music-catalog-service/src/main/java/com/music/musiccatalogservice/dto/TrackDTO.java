@@ -9,8 +9,13 @@ public class TrackDTO {
     private String title;
     private Integer durationSeconds;
     private String filePath;
+    private String fileHash;
+    private Long fileSizeBytes;
+    private String mimeType;
+    private Integer bitrateKbps;
     private String genre;
     private String artworkPath;
+    private String artworkHash;
     private LocalDateTime createdAt;
     private Long playCountDay;
     private Long playCountWeek;
@@ -66,6 +71,38 @@ public class TrackDTO {
         this.filePath = filePath;
     }
     
+    public String getFileHash() {
+        return fileHash;
+    }
+    
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+    
+    public Long getFileSizeBytes() {
+        return fileSizeBytes;
+    }
+    
+    public void setFileSizeBytes(Long fileSizeBytes) {
+        this.fileSizeBytes = fileSizeBytes;
+    }
+    
+    public String getMimeType() {
+        return mimeType;
+    }
+    
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+    
+    public Integer getBitrateKbps() {
+        return bitrateKbps;
+    }
+    
+    public void setBitrateKbps(Integer bitrateKbps) {
+        this.bitrateKbps = bitrateKbps;
+    }
+    
     public String getGenre() {
         return genre;
     }
@@ -82,6 +119,14 @@ public class TrackDTO {
         this.artworkPath = artworkPath;
     }
     
+    public String getArtworkHash() {
+        return artworkHash;
+    }
+    
+    public void setArtworkHash(String artworkHash) {
+        this.artworkHash = artworkHash;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,61 @@
+package com.music.musiccatalogservice.dto;
+
+import java.time.LocalDateTime;
+
+public class UploadSessionDTO {
+    private String uploadId;
+    private Long trackId;
+    private long uploadLength;
+    private long uploadOffset;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    // Getters and Setters
+    public String getUploadId() {
+        return uploadId;
+    }
+    
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+    
+    public Long getTrackId() {
+        return trackId;
+    }
+    
+    public void setTrackId(Long trackId) {
+        this.trackId = trackId;
+    }
+    
+    public long getUploadLength() {
+        return uploadLength;
+    }
+    
+    public void setUploadLength(long uploadLength) {
+        this.uploadLength = uploadLength;
+    }
+    
+    public long getUploadOffset() {
+        return uploadOffset;
+    }
+    
+    public void setUploadOffset(long uploadOffset) {
+        this.uploadOffset = uploadOffset;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -25,6 +25,9 @@ public class Album {
     @Column(name = "artwork_path", length = 1024)
     private String artworkPath;
     
+    @Column(name = "artwork_hash", length = 64)
+    private String artworkHash;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -74,6 +77,14 @@ public class Album {
         this.artworkPath = artworkPath;
     }
     
+    public String getArtworkHash() {
+        return artworkHash;
+    }
+    
+    public void setArtworkHash(String artworkHash) {
+        this.artworkHash = artworkHash;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -22,6 +22,9 @@ public class Artist {
     @Column(name = "image_path", length = 1024)
     private String imagePath;
     
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -63,6 +66,14 @@ public class Artist {
         this.imagePath = imagePath;
     }
     
+    public String getImageHash() {
+        return imageHash;
+    }
+    
+    public void setImageHash(String imageHash) {
+        this.imageHash = imageHash;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -28,12 +28,30 @@ public class Track {
     @Column(name = "file_path", length = 1024)
     private String filePath;
     
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+    
+    @Column(name = "file_size_bytes")
+    private Long fileSizeBytes;
+    
+    @Column(name = "mime_type", length = 100)
+    private String mimeType;
+    
+    @Column(name = "bitrate_kbps")
+    private Integer bitrateKbps;
+    
+    @Column(name = "file_modified_at")
+    private LocalDateTime fileModifiedAt;
+    
     @Column(length = 120)
     private String genre;
     
     @Column(name = "artwork_path", length = 1024)
     private String artworkPath;
     
+    @Column(name = "artwork_hash", length = 64)
+    private String artworkHash;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -91,6 +109,46 @@ public class Track {
         this.filePath = filePath;
     }
     
+    public String getFileHash() {
+        return fileHash;
+    }
+    
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+    
+    public Long getFileSizeBytes() {
+        return fileSizeBytes;
+    }
+    
+    public void setFileSizeBytes(Long fileSizeBytes) {
+        this.fileSizeBytes = fileSizeBytes;
+    }
+    
+    public String getMimeType() {
+        return mimeType;
+    }
+    
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+    
+    public Integer getBitrateKbps() {
+        return bitrateKbps;
+    }
+    
+    public void setBitrateKbps(Integer bitrateKbps) {
+        this.bitrateKbps = bitrateKbps;
+    }
+    
+    public LocalDateTime getFileModifiedAt() {
+        return fileModifiedAt;
+    }
+    
+    public void setFileModifiedAt(LocalDateTime fileModifiedAt) {
+        this.fileModifiedAt = fileModifiedAt;
+    }
+    
     public String getGenre() {
         return genre;
     }
@@ -107,6 +165,14 @@ public class Track {
         this.artworkPath = artworkPath;
     }
     
+    public String getArtworkHash() {
+        return artworkHash;
+    }
+    
+    public void setArtworkHash(String artworkHash) {
+        this.artworkHash = artworkHash;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,46 @@
+package com.music.musiccatalogservice.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "track_play_daily")
+@IdClass(TrackPlayHourly.TrackPlayBucketId.class)
+public class TrackPlayDaily {
+    
+    @Id
+    @Column(name = "track_id")
+    private Long trackId;
+    
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+    
+    @Column(name = "play_count", nullable = false)
+    private Long playCount;
+    
+    // Getters and Setters
+    public Long getTrackId() {
+        return trackId;
+    }
+    
+    public void setTrackId(Long trackId) {
+        this.trackId = trackId;
+    }
+    
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+    
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+    
+    public Long getPlayCount() {
+        return playCount;
+    }
+    
+    public void setPlayCount(Long playCount) {
+        this.playCount = playCount;
+    }
+}
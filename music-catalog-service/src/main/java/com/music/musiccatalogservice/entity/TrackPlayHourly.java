@@ -0,0 +1,83 @@
+package com.music.musiccatalogservice.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "track_play_hourly")
+@IdClass(TrackPlayHourly.TrackPlayBucketId.class)
+public class TrackPlayHourly {
+    
+    @Id
+    @Column(name = "track_id")
+    private Long trackId;
+    
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+    
+    @Column(name = "play_count", nullable = false)
+    private Long playCount;
+    
+    // Getters and Setters
+    public Long getTrackId() {
+        return trackId;
+    }
+    
+    public void setTrackId(Long trackId) {
+        this.trackId = trackId;
+    }
+    
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+    
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+    
+    public Long getPlayCount() {
+        return playCount;
+    }
+    
+    public void setPlayCount(Long playCount) {
+        this.playCount = playCount;
+    }
+    
+    // Composite Key Class
+    public static class TrackPlayBucketId implements Serializable {
+        private Long trackId;
+        private LocalDateTime bucketStart;
+        
+        public TrackPlayBucketId() {}
+        
+        public TrackPlayBucketId(Long trackId, LocalDateTime bucketStart) {
+            this.trackId = trackId;
+            this.bucketStart = bucketStart;
+        }
+        
+        public Long getTrackId() {
+            return trackId;
+        }
+        
+        public LocalDateTime getBucketStart() {
+            return bucketStart;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TrackPlayBucketId that = (TrackPlayBucketId) o;
+            return Objects.equals(trackId, that.trackId) &&
+                   Objects.equals(bucketStart, that.bucketStart);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(trackId, bucketStart);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.music.musiccatalogservice.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "track_uploads")
+public class TrackUpload {
+    
+    @Id
+    @Column(length = 36)
+    private String id;
+    
+    @Column(name = "track_id", nullable = false)
+    private Long trackId;
+    
+    @Column(name = "upload_length", nullable = false)
+    private Long uploadLength;
+    
+    @Column(name = "upload_offset", nullable = false)
+    private Long uploadOffset;
+    
+    @Column(nullable = false, length = 10)
+    private String extension;
+    
+    // Хэш файла, с которым началось завершение: после сбоя повтор завершает загрузку из хранилища
+    @Column(name = "blob_hash", length = 64)
+    private String blobHash;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public Long getTrackId() {
+        return trackId;
+    }
+    
+    public void setTrackId(Long trackId) {
+        this.trackId = trackId;
+    }
+    
+    public Long getUploadLength() {
+        return uploadLength;
+    }
+    
+    public void setUploadLength(Long uploadLength) {
+        this.uploadLength = uploadLength;
+    }
+    
+    public Long getUploadOffset() {
+        return uploadOffset;
+    }
+    
+    public void setUploadOffset(Long uploadOffset) {
+        this.uploadOffset = uploadOffset;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+    
+    public String getBlobHash() {
+        return blobHash;
+    }
+    
+    public void setBlobHash(String blobHash) {
+        this.blobHash = blobHash;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
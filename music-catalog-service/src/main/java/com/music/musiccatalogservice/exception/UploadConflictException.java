@@ -0,0 +1,12 @@
+package com.music.musiccatalogservice.exception;
+
+/**
+ * Запрос к сессии загрузки не совпал с её состоянием: неверное смещение
+ * или в загрузку уже пишет другой запрос
+ */
+public class UploadConflictException extends RuntimeException {
+    
+    public UploadConflictException(String message) {
+        super(message);
+    }
+}
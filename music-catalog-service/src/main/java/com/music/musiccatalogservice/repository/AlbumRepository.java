@@ -1,14 +1,45 @@
 package com.music.musiccatalogservice.repository;
 
+import com.music.musiccatalogservice.config.CacheConfig;
 import com.music.musiccatalogservice.entity.Album;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AlbumRepository extends JpaRepository<Album, Long> {
+    // Кэш по id: медиа-запросы и страницы каталога резолвят сущность без обращения к БД.
+    // Для изменения сущность грузится через findByIdUncached - закэшированный экземпляр общий для всех потоков.
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ALBUMS, unless = "#result == null")
+    Optional<Album> findById(Long id);
+    
+    @Query("SELECT a FROM Album a WHERE a.id = :id")
+    Optional<Album> findByIdUncached(@Param("id") Long id);
+    
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.ALBUMS, CacheConfig.ALBUM_ARTWORK}, key = "#p0.id")
+    <S extends Album> S save(S entity);
+    
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.ALBUMS, CacheConfig.ALBUM_ARTWORK})
+    void deleteById(Long id);
+    
     List<Album> findByArtistId(Long artistId);
+    
+    // Keyset-пагинация: строки идут в порядке индекса, без OFFSET
+    List<Album> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    List<Album> findByArtistIdAndIdGreaterThanOrderByIdAsc(Long artistId, Long id, Pageable pageable);
+    
+    // lower(...) LIKE обслуживается триграммным индексом из V7
+    @Query("SELECT a FROM Album a WHERE lower(a.title) LIKE lower(concat('%', :#{escape([0])}, '%')) ESCAPE :#{escapeCharacter()}")
     List<Album> findByTitleContainingIgnoreCase(String title);
 }
 
@@ -1,13 +1,42 @@
 package com.music.musiccatalogservice.repository;
 
+import com.music.musiccatalogservice.config.CacheConfig;
 import com.music.musiccatalogservice.entity.Artist;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ArtistRepository extends JpaRepository<Artist, Long> {
+    // Кэш по id: медиа-запросы и страницы каталога резолвят сущность без обращения к БД.
+    // Для изменения сущность грузится через findByIdUncached - закэшированный экземпляр общий для всех потоков.
+    @Override
+    @Cacheable(cacheNames = CacheConfig.ARTISTS, unless = "#result == null")
+    Optional<Artist> findById(Long id);
+    
+    @Query("SELECT a FROM Artist a WHERE a.id = :id")
+    Optional<Artist> findByIdUncached(@Param("id") Long id);
+    
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.ARTISTS, CacheConfig.ARTIST_ARTWORK}, key = "#p0.id")
+    <S extends Artist> S save(S entity);
+    
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.ARTISTS, CacheConfig.ARTIST_ARTWORK})
+    void deleteById(Long id);
+    
+    // Keyset-пагинация: строки идут в порядке индекса, без OFFSET
+    List<Artist> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // lower(...) LIKE обслуживается триграммным индексом из V7
+    @Query("SELECT a FROM Artist a WHERE lower(a.name) LIKE lower(concat('%', :#{escape([0])}, '%')) ESCAPE :#{escapeCharacter()}")
     List<Artist> findByNameContainingIgnoreCase(String name);
 }
 
@@ -0,0 +1,39 @@
+package com.music.musiccatalogservice.repository;
+
+import com.music.musiccatalogservice.entity.TrackPlayDaily;
+import com.music.musiccatalogservice.entity.TrackPlayHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TrackPlayDailyRepository extends JpaRepository<TrackPlayDaily, TrackPlayHourly.TrackPlayBucketId> {
+    
+    /**
+     * Возвращает строки [trackId, всего, за месяц, за неделю] по дневным корзинам
+     */
+    @Query("SELECT d.trackId, SUM(d.playCount), " +
+           "SUM(CASE WHEN d.bucketStart >= :monthStart THEN d.playCount ELSE 0L END), " +
+           "SUM(CASE WHEN d.bucketStart >= :weekStart THEN d.playCount ELSE 0L END) " +
+           "FROM TrackPlayDaily d WHERE d.trackId IN :trackIds GROUP BY d.trackId")
+    List<Object[]> sumByTrackIds(@Param("trackIds") Collection<Long> trackIds,
+                                 @Param("monthStart") LocalDateTime monthStart,
+                                 @Param("weekStart") LocalDateTime weekStart);
+    
+    @Modifying
+    @Query(value = "DELETE FROM track_play_daily", nativeQuery = true)
+    int deleteAllBuckets();
+    
+    @Modifying
+    @Query(value = "INSERT INTO track_play_daily (track_id, bucket_start, play_count) " +
+                   "SELECT track_id, date_trunc('day', played_at), COUNT(*) FROM track_plays " +
+                   "GROUP BY track_id, date_trunc('day', played_at)",
+           nativeQuery = true)
+    int rebuildFromPlays();
+}
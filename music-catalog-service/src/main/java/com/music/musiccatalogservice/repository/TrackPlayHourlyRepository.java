@@ -0,0 +1,40 @@
+package com.music.musiccatalogservice.repository;
+
+import com.music.musiccatalogservice.entity.TrackPlayHourly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TrackPlayHourlyRepository extends JpaRepository<TrackPlayHourly, TrackPlayHourly.TrackPlayBucketId> {
+    
+    /**
+     * Возвращает пары [trackId, сумма прослушиваний] по часовым корзинам начиная с since
+     */
+    @Query("SELECT h.trackId, SUM(h.playCount) FROM TrackPlayHourly h " +
+           "WHERE h.trackId IN :trackIds AND h.bucketStart >= :since GROUP BY h.trackId")
+    List<Object[]> sumByTrackIdsSince(@Param("trackIds") Collection<Long> trackIds,
+                                      @Param("since") LocalDateTime since);
+    
+    @Modifying
+    @Query("DELETE FROM TrackPlayHourly h WHERE h.bucketStart < :before")
+    int deleteByBucketStartBefore(@Param("before") LocalDateTime before);
+    
+    @Modifying
+    @Query(value = "DELETE FROM track_play_hourly", nativeQuery = true)
+    int deleteAllBuckets();
+    
+    @Modifying
+    @Query(value = "INSERT INTO track_play_hourly (track_id, bucket_start, play_count) " +
+                   "SELECT track_id, date_trunc('hour', played_at), COUNT(*) FROM track_plays " +
+                   "WHERE played_at >= :since " +
+                   "GROUP BY track_id, date_trunc('hour', played_at)",
+           nativeQuery = true)
+    int rebuildFromPlaysSince(@Param("since") LocalDateTime since);
+}
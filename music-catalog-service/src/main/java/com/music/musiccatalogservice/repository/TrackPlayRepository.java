@@ -2,6 +2,7 @@ package com.music.musiccatalogservice.repository;
 
 import com.music.musiccatalogservice.entity.TrackPlay;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,5 +20,12 @@ public interface TrackPlayRepository extends JpaRepository<TrackPlay, Long> {
     Long countByTrackIdAndPlayedAtAfter(@Param("trackId") Long trackId, @Param("since") LocalDateTime since);
     
     List<TrackPlay> findByTrackId(Long trackId);
+    
+    /**
+     * Блокирует вставку новых прослушиваний до конца транзакции (нужно для точной перестройки корзин)
+     */
+    @Modifying
+    @Query(value = "LOCK TABLE track_plays IN SHARE MODE", nativeQuery = true)
+    void lockForRollupRebuild();
 }
 
@@ -1,16 +1,95 @@
 package com.music.musiccatalogservice.repository;
 
+import com.music.musiccatalogservice.config.CacheConfig;
 import com.music.musiccatalogservice.entity.Track;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TrackRepository extends JpaRepository<Track, Long> {
+    // Кэш по id: медиа-запросы и страницы каталога резолвят сущность без обращения к БД.
+    // Для изменения сущность грузится через findByIdUncached - закэшированный экземпляр общий для всех потоков.
+    @Override
+    @Cacheable(cacheNames = CacheConfig.TRACKS, unless = "#result == null")
+    Optional<Track> findById(Long id);
+    
+    @Query("SELECT t FROM Track t WHERE t.id = :id")
+    Optional<Track> findByIdUncached(@Param("id") Long id);
+    
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.TRACKS, CacheConfig.TRACK_ARTWORK}, key = "#p0.id")
+    <S extends Track> S save(S entity);
+    
+    @Override
+    @CacheEvict(cacheNames = {CacheConfig.TRACKS, CacheConfig.TRACK_ARTWORK})
+    void deleteById(Long id);
+    
     List<Track> findByArtistId(Long artistId);
     List<Track> findByAlbumId(Long albumId);
+    
+    // Keyset-пагинация: строки идут в порядке индекса, без OFFSET
+    List<Track> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    List<Track> findByArtistIdAndIdGreaterThanOrderByIdAsc(Long artistId, Long id, Pageable pageable);
+    List<Track> findByAlbumIdAndIdGreaterThanOrderByIdAsc(Long albumId, Long id, Pageable pageable);
+    
+    // Потоковое чтение курсором БД: строки приходят порциями по fetch size, а не одним списком
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Track> streamAllByOrderByIdAsc();
+    
+    // lower(...) LIKE обслуживается триграммным индексом из V7
+    @Query("SELECT t FROM Track t WHERE lower(t.title) LIKE lower(concat('%', :#{escape([0])}, '%')) ESCAPE :#{escapeCharacter()}")
     List<Track> findByTitleContainingIgnoreCase(String title);
+    
     List<Track> findByGenre(String genre);
+    
+    List<Track> findByGenreAndIdGreaterThanOrderByIdAsc(String genre, Long id, Pageable pageable);
+    
+    // Размер жанра, но не больше limit: для большого жанра не считаются все его строки
+    @Query(value = "SELECT count(*) FROM (SELECT 1 FROM tracks WHERE genre = :genre LIMIT :limit) t", nativeQuery = true)
+    long countByGenreUpTo(@Param("genre") String genre, @Param("limit") int limit);
+    
+    @Query(value = "SELECT * FROM tracks WHERE genre = :genre ORDER BY random() LIMIT :limit", nativeQuery = true)
+    List<Track> findRandomByGenre(@Param("genre") String genre, @Param("limit") int limit);
+    
+    @Query("SELECT MIN(t.id), MAX(t.id) FROM Track t WHERE t.genre = :genre")
+    List<Object[]> findIdRangeByGenre(@Param("genre") String genre);
+    
+    // Для каждой точки - первый трек жанра с id >= точки: один короткий проход индекса (genre, id) на точку
+    @Query(value = "SELECT t.* FROM unnest(CAST(string_to_array(:pivots, ',') AS BIGINT[])) AS p(pivot) " +
+            "CROSS JOIN LATERAL (SELECT * FROM tracks WHERE genre = :genre AND id >= p.pivot ORDER BY id LIMIT 1) t",
+            nativeQuery = true)
+    List<Track> findFirstByGenreFromPivots(@Param("genre") String genre, @Param("pivots") String pivots);
+    
+    @Query("SELECT t.genre, COUNT(t) FROM Track t WHERE t.genre IS NOT NULL GROUP BY t.genre ORDER BY t.genre")
+    List<Object[]> countTracksByGenre();
+    
+    // Треки без длительности для фонового заполнения; частичный индекс из V10
+    @Query("SELECT t.id, t.filePath FROM Track t WHERE t.durationSeconds IS NULL AND t.filePath IS NOT NULL " +
+            "AND t.id > :afterId ORDER BY t.id")
+    List<Object[]> findMissingDuration(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // Треки без метаданных файла для фонового заполнения; частичный индекс из V13
+    @Query("SELECT t.id, t.filePath, t.durationSeconds FROM Track t WHERE t.fileSizeBytes IS NULL " +
+            "AND t.filePath IS NOT NULL AND t.id > :afterId ORDER BY t.id")
+    List<Object[]> findMissingMediaMetadata(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT t.id FROM Track t WHERE t.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
 
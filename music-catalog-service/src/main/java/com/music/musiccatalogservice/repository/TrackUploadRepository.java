@@ -0,0 +1,14 @@
+package com.music.musiccatalogservice.repository;
+
+import com.music.musiccatalogservice.entity.TrackUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TrackUploadRepository extends JpaRepository<TrackUpload, String> {
+    
+    List<TrackUpload> findByUpdatedAtBefore(LocalDateTime threshold);
+}
@@ -1,12 +1,17 @@
 package com.music.musiccatalogservice.service;
 
+import com.music.musiccatalogservice.config.CacheConfig;
 import com.music.musiccatalogservice.dto.AlbumDTO;
+import com.music.common.dto.CursorPage;
 import com.music.musiccatalogservice.entity.Album;
 import com.music.musiccatalogservice.repository.AlbumRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -14,6 +19,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class AlbumService {
     
+    private static final int MAX_BATCH_IDS = 1000;
+    
     @Autowired
     private AlbumRepository albumRepository;
     
@@ -35,6 +42,13 @@ public class AlbumService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<AlbumDTO> getAllAlbums(String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Album> rows = albumRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Album::getId, this::convertToDTOs);
+    }
+    
     @Transactional(readOnly = true)
     public List<AlbumDTO> getAlbumsByArtistId(Long artistId) {
         return albumRepository.findByArtistId(artistId).stream()
@@ -42,6 +56,27 @@ public class AlbumService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<AlbumDTO> getAlbumsByArtistId(Long artistId, String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Album> rows = albumRepository.findByArtistIdAndIdGreaterThanOrderByIdAsc(
+                artistId, afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Album::getId, this::convertToDTOs);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<AlbumDTO> getAlbumsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new RuntimeException("Too many album ids, maximum is " + MAX_BATCH_IDS);
+        }
+        return albumRepository.findAllById(new LinkedHashSet<>(ids)).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
     @Transactional(readOnly = true)
     public AlbumDTO getAlbumById(Long id) {
         Album album = albumRepository.findById(id)
@@ -50,7 +85,7 @@ public class AlbumService {
     }
     
     public AlbumDTO updateAlbum(Long id, AlbumDTO albumDTO) {
-        Album album = albumRepository.findById(id)
+        Album album = albumRepository.findByIdUncached(id)
                 .orElseThrow(() -> new RuntimeException("Album not found with id: " + id));
         
         if (albumDTO.getTitle() != null) {
@@ -62,14 +97,18 @@ public class AlbumService {
         if (albumDTO.getReleaseYear() != null) {
             album.setReleaseYear(albumDTO.getReleaseYear());
         }
-        if (albumDTO.getArtworkPath() != null) {
+        // Путь, заданный вручную, больше не ссылается на файл из хранилища
+        if (albumDTO.getArtworkPath() != null && !albumDTO.getArtworkPath().equals(album.getArtworkPath())) {
             album.setArtworkPath(albumDTO.getArtworkPath());
+            album.setArtworkHash(null);
         }
         
         Album updatedAlbum = albumRepository.save(album);
         return convertToDTO(updatedAlbum);
     }
     
+    // У треков альбома album_id обнуляется в БД (ON DELETE SET NULL)
+    @CacheEvict(cacheNames = CacheConfig.TRACKS, allEntries = true)
     public void deleteAlbum(Long id) {
         if (!albumRepository.existsById(id)) {
             throw new RuntimeException("Album not found with id: " + id);
@@ -77,6 +116,12 @@ public class AlbumService {
         albumRepository.deleteById(id);
     }
     
+    private List<AlbumDTO> convertToDTOs(List<Album> albums) {
+        return albums.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
     private AlbumDTO convertToDTO(Album album) {
         AlbumDTO dto = new AlbumDTO();
         dto.setId(album.getId());
@@ -84,6 +129,7 @@ public class AlbumService {
         dto.setTitle(album.getTitle());
         dto.setReleaseYear(album.getReleaseYear());
         dto.setArtworkPath(album.getArtworkPath());
+        dto.setArtworkHash(album.getArtworkHash());
         dto.setCreatedAt(album.getCreatedAt());
         return dto;
     }
@@ -1,14 +1,20 @@
 package com.music.musiccatalogservice.service;
 
+import com.music.musiccatalogservice.config.CacheConfig;
 import com.music.musiccatalogservice.dto.ArtistDTO;
+import com.music.common.dto.CursorPage;
 import com.music.musiccatalogservice.entity.Artist;
 import com.music.musiccatalogservice.repository.ArtistRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,6 +22,8 @@ import java.util.stream.Collectors;
 @Transactional
 public class ArtistService {
     
+    private static final int MAX_BATCH_IDS = 1000;
+    
     @Autowired
     private ArtistRepository artistRepository;
     
@@ -36,12 +44,32 @@ public class ArtistService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<ArtistDTO> getAllArtists(String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Artist> rows = artistRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Artist::getId, this::convertToDTOs);
+    }
+    
     @Transactional(readOnly = true)
     public Page<ArtistDTO> getAllArtists(Pageable pageable) {
         return artistRepository.findAll(pageable)
                 .map(this::convertToDTO);
     }
     
+    @Transactional(readOnly = true)
+    public List<ArtistDTO> getArtistsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new RuntimeException("Too many artist ids, maximum is " + MAX_BATCH_IDS);
+        }
+        return artistRepository.findAllById(new LinkedHashSet<>(ids)).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
     @Transactional(readOnly = true)
     public ArtistDTO getArtistById(Long id) {
         Artist artist = artistRepository.findById(id)
@@ -50,7 +78,7 @@ public class ArtistService {
     }
     
     public ArtistDTO updateArtist(Long id, ArtistDTO artistDTO) {
-        Artist artist = artistRepository.findById(id)
+        Artist artist = artistRepository.findByIdUncached(id)
                 .orElseThrow(() -> new RuntimeException("Artist not found with id: " + id));
         
         if (artistDTO.getName() != null) {
@@ -59,14 +87,23 @@ public class ArtistService {
         if (artistDTO.getDescription() != null) {
             artist.setDescription(artistDTO.getDescription());
         }
-        if (artistDTO.getImagePath() != null) {
+        // Путь, заданный вручную, больше не ссылается на файл из хранилища
+        if (artistDTO.getImagePath() != null && !artistDTO.getImagePath().equals(artist.getImagePath())) {
             artist.setImagePath(artistDTO.getImagePath());
+            artist.setImageHash(null);
         }
         
         Artist updatedArtist = artistRepository.save(artist);
         return convertToDTO(updatedArtist);
     }
     
+    // Альбомы и треки артиста удаляются каскадом в БД, их id здесь неизвестны
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.ALBUMS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.TRACKS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.GENRES, allEntries = true),
+            @CacheEvict(cacheNames = {CacheConfig.ALBUM_ARTWORK, CacheConfig.TRACK_ARTWORK}, allEntries = true)
+    })
     public void deleteArtist(Long id) {
         if (!artistRepository.existsById(id)) {
             throw new RuntimeException("Artist not found with id: " + id);
@@ -81,12 +118,19 @@ public class ArtistService {
                 .collect(Collectors.toList());
     }
     
+    private List<ArtistDTO> convertToDTOs(List<Artist> artists) {
+        return artists.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
     private ArtistDTO convertToDTO(Artist artist) {
         ArtistDTO dto = new ArtistDTO();
         dto.setId(artist.getId());
         dto.setName(artist.getName());
         dto.setDescription(artist.getDescription());
         dto.setImagePath(artist.getImagePath());
+        dto.setImageHash(artist.getImageHash());
         dto.setCreatedAt(artist.getCreatedAt());
         return dto;
     }
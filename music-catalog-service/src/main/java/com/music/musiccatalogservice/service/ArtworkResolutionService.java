@@ -0,0 +1,190 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.config.CacheConfig;
+import com.music.musiccatalogservice.entity.Track;
+import com.music.musiccatalogservice.repository.AlbumRepository;
+import com.music.musiccatalogservice.repository.ArtistRepository;
+import com.music.musiccatalogservice.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Разрешение обложек: какой файл или внешний адрес отдавать для трека, альбома или артиста.
+ * Результат (путь, MIME тип, ETag) хранится в кэшах trackArtwork, albumArtwork и artistArtwork,
+ * которые сбрасываются вместе с кэшами сущностей при save/deleteById в репозиториях,
+ * поэтому запрос обложки - это поиск в памяти без обращения к БД и Files.probeContentType.
+ * <p>
+ * Трек без своей обложки хранит только ссылку на альбом, а сама обложка альбома
+ * берётся из кэша альбомов: замена обложки альбома не требует сбрасывать записи его треков.
+ * Отсутствие обложки не кэшируется, иначе обложка, загруженная сразу после промаха,
+ * не была бы видна, пока запись не сбросят.
+ */
+@Service
+public class ArtworkResolutionService {
+    
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "bmp", "image/bmp",
+            "svg", "image/svg+xml");
+    
+    private static final String DEFAULT_CONTENT_TYPE = "image/jpeg";
+    
+    // Сущность без обложки: в кэш нельзя положить null
+    private static final ResolvedArtwork NONE = new ResolvedArtwork(null, null, null, null, null);
+    
+    @Autowired
+    private TrackRepository trackRepository;
+    
+    @Autowired
+    private AlbumRepository albumRepository;
+    
+    @Autowired
+    private ArtistRepository artistRepository;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    /**
+     * Обложка трека, а если её нет - обложка его альбома
+     * @return null если отдавать нечего
+     */
+    public ResolvedArtwork getTrackArtwork(Long trackId) {
+        ResolvedArtwork artwork = get(CacheConfig.TRACK_ARTWORK, trackId, () -> resolveTrack(trackId));
+        if (artwork.albumId != null) {
+            return getAlbumArtwork(artwork.albumId);
+        }
+        return artwork == NONE ? null : artwork;
+    }
+    
+    /**
+     * @return null если отдавать нечего
+     */
+    public ResolvedArtwork getAlbumArtwork(Long albumId) {
+        ResolvedArtwork artwork = get(CacheConfig.ALBUM_ARTWORK, albumId, () -> albumRepository.findById(albumId)
+                .map(album -> resolve(album.getArtworkPath(), album.getArtworkHash()))
+                .orElse(NONE));
+        return artwork == NONE ? null : artwork;
+    }
+    
+    /**
+     * @return null если отдавать нечего
+     */
+    public ResolvedArtwork getArtistArtwork(Long artistId) {
+        ResolvedArtwork artwork = get(CacheConfig.ARTIST_ARTWORK, artistId, () -> artistRepository.findById(artistId)
+                .map(artist -> resolve(artist.getImagePath(), artist.getImageHash()))
+                .orElse(NONE));
+        return artwork == NONE ? null : artwork;
+    }
+    
+    /**
+     * MIME тип изображения по расширению файла
+     */
+    public static String getContentType(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String type = dot >= 0 ? CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+        return type != null ? type : DEFAULT_CONTENT_TYPE;
+    }
+    
+    private ResolvedArtwork resolveTrack(Long trackId) {
+        Track track = trackRepository.findById(trackId).orElse(null);
+        if (track == null) {
+            return NONE;
+        }
+        ResolvedArtwork artwork = resolve(track.getArtworkPath(), track.getArtworkHash());
+        if (artwork == NONE && track.getAlbumId() != null) {
+            return new ResolvedArtwork(null, null, null, null, track.getAlbumId());
+        }
+        return artwork;
+    }
+    
+    private ResolvedArtwork resolve(String artworkPath, String hash) {
+        if (artworkPath == null || artworkPath.isEmpty()) {
+            return NONE;
+        }
+        if (artworkPath.startsWith("http://") || artworkPath.startsWith("https://")) {
+            return new ResolvedArtwork(null, artworkPath, null, null, null);
+        }
+        Path file = Paths.get(artworkPath);
+        if (!Files.exists(file)) {
+            return NONE;
+        }
+        return new ResolvedArtwork(file, null, getContentType(file), hash, null);
+    }
+    
+    private ResolvedArtwork get(String cacheName, Long id, Callable<ResolvedArtwork> loader) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return load(loader);
+        }
+        Cache.ValueWrapper cached = cache.get(id);
+        if (cached != null) {
+            return (ResolvedArtwork) cached.get();
+        }
+        ResolvedArtwork artwork = load(loader);
+        if (artwork != NONE) {
+            cache.put(id, artwork);
+        }
+        return artwork;
+    }
+    
+    private static ResolvedArtwork load(Callable<ResolvedArtwork> loader) {
+        try {
+            return loader.call();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * Файл обложки или адрес для перенаправления
+     */
+    public static class ResolvedArtwork {
+        private final Path path;
+        private final String redirectUrl;
+        private final String contentType;
+        private final String hash;
+        // Трек без своей обложки: отдаётся обложка этого альбома
+        private final Long albumId;
+        
+        private ResolvedArtwork(Path path, String redirectUrl, String contentType, String hash, Long albumId) {
+            this.path = path;
+            this.redirectUrl = redirectUrl;
+            this.contentType = contentType;
+            this.hash = hash;
+            this.albumId = albumId;
+        }
+        
+        public Path getPath() {
+            return path;
+        }
+        
+        public String getRedirectUrl() {
+            return redirectUrl;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        /**
+         * SHA-256 файла из хранилища по содержимому или null
+         */
+        public String getHash() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.music.musiccatalogservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Уменьшенные копии обложек и фото артистов (по умолчанию 64, 256 и 640 px по длинной стороне).
+ * Копии лежат в дисковом кэше catalog.artwork.thumbnails.dir, размер которого ограничен
+ * catalog.artwork.thumbnails.max-size: при переполнении удаляются давно не запрошенные.
+ * <p>
+ * Копии строятся в небольшом пуле потоков при загрузке обложки или при первом запросе.
+ * Поток запроса никогда не ждёт уменьшения: пока копии нет, вызывающий получает null
+ * и отдаёт оригинал. Ключ кэша - SHA-256 оригинала из хранилища по содержимому,
+ * поэтому копия не устаревает; для файлов вне хранилища ключ строится по пути,
+ * размеру и времени изменения.
+ */
+@Service
+public class ArtworkThumbnailService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ArtworkThumbnailService.class);
+    
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+    private static final int MAX_FAILED_ENTRIES = 10_000;
+    private static final float JPEG_QUALITY = 0.85f;
+    
+    @Value("${catalog.artwork.thumbnails.dir:uploads/thumbnails}")
+    private String thumbnailsDir;
+    
+    @Value("${catalog.artwork.thumbnails.sizes:64,256,640}")
+    private int[] sizes;
+    
+    @Value("${catalog.artwork.thumbnails.max-size:256MB}")
+    private DataSize maxCacheSize;
+    
+    @Value("${catalog.artwork.thumbnails.threads:2}")
+    private int threads;
+    
+    @Value("${catalog.artwork.thumbnails.queue-capacity:200}")
+    private int queueCapacity;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private ThreadPoolExecutor executor;
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter generatedCounter;
+    private Counter failedCounter;
+    
+    // Имя копии без расширения -> файл; порядок доступа для вытеснения. Доступ под монитором this
+    private final LinkedHashMap<String, CachedThumbnail> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long cacheBytes;
+    
+    // Копии, которые сейчас строятся или ждут в очереди
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    
+    // Оригиналы, которые не удалось декодировать: не пытаемся на каждом запросе
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    public void init() throws IOException {
+        Arrays.sort(sizes);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "artwork-thumbnail-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        
+        hitCounter = meterRegistry.counter("artwork.thumbnails.requests", "result", "hit");
+        missCounter = meterRegistry.counter("artwork.thumbnails.requests", "result", "miss");
+        generatedCounter = meterRegistry.counter("artwork.thumbnails.generated");
+        failedCounter = meterRegistry.counter("artwork.thumbnails.failed");
+        Gauge.builder("artwork.thumbnails.cache.bytes", this, ArtworkThumbnailService::getCacheBytes)
+                .description("Disk space used by cached artwork thumbnails")
+                .register(meterRegistry);
+        
+        loadIndex();
+        logger.info("Artwork thumbnails: sizes={}, cache {} files / {} bytes of {}",
+                Arrays.toString(sizes), index.size(), cacheBytes, maxCacheSize.toBytes());
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Ближайший поддерживаемый размер не меньше запрошенного (или наибольший),
+     * чтобы произвольные ?size= не плодили копии
+     */
+    public int resolveSize(int requested) {
+        for (int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+    
+    /**
+     * Возвращает готовую копию или null, ставя её построение в очередь
+     * @param original файл оригинала
+     * @param hash SHA-256 оригинала из хранилища или null
+     * @param size размер из {@link #resolveSize(int)}
+     */
+    public Path findThumbnail(Path original, String hash, int size) throws IOException {
+        String name = getCacheKey(original, hash) + "-" + size;
+        Path cached;
+        synchronized (this) {
+            CachedThumbnail thumbnail = index.get(name);
+            cached = thumbnail != null ? thumbnail.path : null;
+        }
+        if (cached != null && Files.exists(cached)) {
+            hitCounter.increment();
+            return cached;
+        }
+        missCounter.increment();
+        schedule(original, name, size);
+        return null;
+    }
+    
+    /**
+     * Заранее строит все размеры только что загруженной обложки
+     */
+    public void prefetch(Path original, String hash) {
+        try {
+            String key = getCacheKey(original, hash);
+            for (int size : sizes) {
+                schedule(original, key + "-" + size, size);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not schedule thumbnails for {}: {}", original, e.getMessage());
+        }
+    }
+    
+    public synchronized long getCacheBytes() {
+        return cacheBytes;
+    }
+    
+    private void schedule(Path original, String name, int size) {
+        if (failed.contains(name) || !pending.add(name)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(original, name, size);
+                } finally {
+                    pending.remove(name);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Очередь заполнена - копия построится при одном из следующих запросов
+            pending.remove(name);
+        }
+    }
+    
+    private void generate(Path original, String name, int size) {
+        Path temp = null;
+        try {
+            BufferedImage source = read(original, size);
+            boolean alpha = source.getColorModel().hasAlpha();
+            int longSide = Math.max(source.getWidth(), source.getHeight());
+            // Оригинал меньше запрошенного размера не увеличиваем
+            BufferedImage thumbnail = longSide <= size
+                    ? source
+                    : scale(source,
+                            Math.max(1, (int) Math.round((double) source.getWidth() * size / longSide)),
+                            Math.max(1, (int) Math.round((double) source.getHeight() * size / longSide)),
+                            alpha);
+            
+            Path dir = Paths.get(thumbnailsDir);
+            Files.createDirectories(dir);
+            temp = dir.resolve(UUID.randomUUID() + ".tmp");
+            String format = alpha ? "png" : "jpg";
+            write(thumbnail, format, temp);
+            Path target = dir.resolve(name + "." + format);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            add(name, target, Files.size(target));
+            generatedCounter.increment();
+        } catch (Exception e) {
+            failedCounter.increment();
+            if (failed.size() >= MAX_FAILED_ENTRIES) {
+                failed.clear();
+            }
+            failed.add(name);
+            logger.warn("Could not create {} px thumbnail of {}: {}", size, original, e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ex) {
+                    logger.warn("Could not delete temporary thumbnail {}", temp, ex);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Декодирует оригинал; большие изображения читаются с прореживанием,
+     * оставляя не меньше двукратного запаса над целевым размером
+     */
+    private BufferedImage read(Path original, int size) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            if (in == null) {
+                throw new IOException("Cannot open image");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longSide / (size * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * Уменьшение шагами не больше чем вдвое: одно бикубическое уменьшение в десятки раз
+     * пропускает пиксели и даёт рябь
+     */
+    private BufferedImage scale(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+    
+    private void write(BufferedImage image, String format, Path target) throws IOException {
+        if ("png".equals(format)) {
+            if (!ImageIO.write(image, format, target.toFile())) {
+                throw new IOException("No writer for " + format);
+            }
+            return;
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+    
+    private String getCacheKey(Path original, String hash) throws IOException {
+        if (hash != null) {
+            return hash;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(original, BasicFileAttributes.class);
+        String source = original.toAbsolutePath().normalize() + "|" + attributes.size() + "|"
+                + attributes.lastModifiedTime().toMillis();
+        MessageDigest digest = MediaStoreService.newDigest();
+        return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private void add(String name, Path path, long bytes) {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            CachedThumbnail previous = index.put(name, new CachedThumbnail(path, bytes));
+            if (previous != null) {
+                cacheBytes -= previous.bytes;
+            }
+            cacheBytes += bytes;
+            
+            Iterator<Map.Entry<String, CachedThumbnail>> iterator = index.entrySet().iterator();
+            while (cacheBytes > maxCacheSize.toBytes() && iterator.hasNext()) {
+                Map.Entry<String, CachedThumbnail> eldest = iterator.next();
+                if (eldest.getKey().equals(name)) {
+                    continue;
+                }
+                cacheBytes -= eldest.getValue().bytes;
+                evicted.add(eldest.getValue().path);
+                iterator.remove();
+            }
+        }
+        for (Path file : evicted) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete evicted thumbnail {}", file, e);
+            }
+        }
+    }
+    
+    /**
+     * Восстанавливает индекс кэша после перезапуска; порядок вытеснения - по времени создания копий
+     */
+    private void loadIndex() throws IOException {
+        Path dir = Paths.get(thumbnailsDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = new ArrayList<>(stream.filter(Files::isRegularFile).toList());
+        }
+        files.sort(Comparator.comparingLong(this::lastModified));
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            if (fileName.endsWith(".tmp")) {
+                Files.deleteIfExists(file);
+                continue;
+            }
+            int dot = fileName.lastIndexOf('.');
+            add(dot > 0 ? fileName.substring(0, dot) : fileName, file, Files.size(file));
+        }
+    }
+    
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private static class CachedThumbnail {
+        private final Path path;
+        private final long bytes;
+        
+        private CachedThumbnail(Path path, long bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.music.musiccatalogservice.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.sound.sampled.AudioFileFormat;
@@ -9,6 +10,7 @@ import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 
@@ -17,21 +19,39 @@ public class AudioDurationService {
     
     private static final Logger logger = LoggerFactory.getLogger(AudioDurationService.class);
     
+    @Autowired
+    private AudioHeaderProbe audioHeaderProbe;
+    
     /**
      * Определяет длительность аудио файла в секундах
-     * Использует Java Sound API (встроенный в JDK)
-     * Для MP3 файлов требуется MP3SPI провайдер
+     * Сначала читает только заголовки контейнера (MP3, FLAC, OGG, WAV, M4A),
+     * при неудаче - Java Sound API (для MP3 требуется MP3SPI провайдер)
      * @param filePath путь к аудио файлу
      * @return длительность в секундах или null если не удалось определить
      */
     public Integer getDurationSeconds(Path filePath) {
+        if (!Files.exists(filePath)) {
+            logger.warn("Audio file not found: {}", filePath);
+            return null;
+        }
+        
         try {
-            File audioFile = filePath.toFile();
-            
-            if (!audioFile.exists()) {
-                logger.warn("Audio file not found: {}", filePath);
-                return null;
+            Double seconds = audioHeaderProbe.probeDurationSeconds(filePath);
+            if (seconds != null && seconds >= 0.5) {
+                int durationSeconds = (int) Math.round(seconds);
+                logger.info("Detected duration for {}: {} seconds (from headers)", filePath, durationSeconds);
+                return durationSeconds;
             }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Header probe failed for {}: {}", filePath, e.getMessage());
+        }
+        
+        return getDurationFromJavaSound(filePath);
+    }
+    
+    private Integer getDurationFromJavaSound(Path filePath) {
+        try {
+            File audioFile = filePath.toFile();
             
             // Используем Java Sound API для определения длительности
             AudioFileFormat fileFormat;
@@ -0,0 +1,525 @@
+package com.music.musiccatalogservice.service;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Быстрое определение длительности по заголовкам контейнера, без декодирования.
+ * Читает только нужные байты позиционными чтениями FileChannel:
+ * MP3 - Xing/Info/VBRI, иначе ограниченный проход по заголовкам фреймов;
+ * FLAC - STREAMINFO; Ogg - granule position последней страницы; WAV - размер чанка data;
+ * M4A - атом mvhd. Для MP3 также строит полный индекс фреймов (см. {@link Mp3FrameIndex}).
+ */
+@Service
+public class AudioHeaderProbe {
+    
+    // Сколько байт аудио проходить по фреймам MP3 без VBR-заголовка; дальше - экстраполяция
+    private static final long MAX_MP3_SCAN_BYTES = 8L * 1024 * 1024;
+    // Где искать первый фрейм после ID3v2 (мусор, выравнивание, битые теги)
+    private static final int MAX_MP3_SYNC_SEARCH = 64 * 1024;
+    private static final int SCAN_WINDOW = 64 * 1024;
+    // Последняя страница Ogg не длиннее 65307 байт
+    private static final int OGG_TAIL = 65 * 1024 + 27;
+    private static final int MAX_CHUNKS = 64;
+    
+    /**
+     * @param filePath путь к аудио файлу
+     * @return длительность в секундах или null, если формат не распознан или заголовки неполные
+     */
+    public Double probeDurationSeconds(Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer head = read(channel, 0, 12);
+            if (head.limit() < 12) {
+                return null;
+            }
+            
+            if (startsWith(head, 0, "fLaC")) {
+                return probeFlac(channel);
+            }
+            if (startsWith(head, 0, "OggS")) {
+                return probeOgg(channel);
+            }
+            if (startsWith(head, 0, "RIFF") && startsWith(head, 8, "WAVE")) {
+                return probeWav(channel);
+            }
+            if (startsWith(head, 4, "ftyp")) {
+                return probeMp4(channel);
+            }
+            return probeMp3(channel, head);
+        }
+    }
+    
+    // MP3
+    
+    /**
+     * Индекс фреймов MP3 для перемотки и нарезки по времени без декодирования.
+     * Проходит все заголовки фреймов; фрейм с заголовком Xing/Info/VBRI не содержит звука и в индекс не входит
+     * @param filePath путь к аудио файлу
+     * @return индекс или null, если файл не MP3 или в нём не нашлось фреймов
+     */
+    public Mp3FrameIndex indexMp3Frames(Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer head = read(channel, 0, 12);
+            if (head.limit() < 12 || startsWith(head, 0, "fLaC") || startsWith(head, 0, "OggS")
+                    || startsWith(head, 0, "RIFF") || startsWith(head, 4, "ftyp")) {
+                return null;
+            }
+            long[] bounds = getMp3AudioBounds(channel, head);
+            long audioEnd = bounds[1];
+            long pos = findFirstFrame(channel, bounds[0], audioEnd);
+            if (pos < 0) {
+                return null;
+            }
+            ByteBuffer frame = read(channel, pos, 192);
+            Mp3FrameHeader first = Mp3FrameHeader.parse(frame, 0);
+            if (hasVbrHeader(frame, first)) {
+                pos += first.frameLength();
+            }
+            
+            long[] offsets = new long[1024];
+            int frames = 0;
+            ByteBuffer window = null;
+            long windowStart = 0;
+            while (pos + 4 <= audioEnd) {
+                if (window == null || pos + 4 > windowStart + window.limit()) {
+                    window = read(channel, pos, SCAN_WINDOW);
+                    windowStart = pos;
+                    if (window.limit() < 4) {
+                        break;
+                    }
+                }
+                Mp3FrameHeader header = Mp3FrameHeader.parse(window, (int) (pos - windowStart));
+                // Потеря синхронизации или обрезанный последний фрейм - индекс заканчивается здесь
+                if (header == null || header.sampleRate() != first.sampleRate()
+                        || pos + header.frameLength() > audioEnd) {
+                    break;
+                }
+                if (frames == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, frames * 2);
+                }
+                offsets[frames++] = pos;
+                pos += header.frameLength();
+            }
+            if (frames == 0) {
+                return null;
+            }
+            return new Mp3FrameIndex(first.sampleRate(), first.samplesPerFrame(), Arrays.copyOf(offsets, frames), pos);
+        }
+    }
+    
+    private Double probeMp3(FileChannel channel, ByteBuffer head) throws IOException {
+        long[] bounds = getMp3AudioBounds(channel, head);
+        long audioEnd = bounds[1];
+        long firstFrame = findFirstFrame(channel, bounds[0], audioEnd);
+        if (firstFrame < 0) {
+            return null;
+        }
+        ByteBuffer frame = read(channel, firstFrame, 192);
+        Mp3FrameHeader header = Mp3FrameHeader.parse(frame, 0);
+        
+        // Xing/Info стоит сразу после side info первого фрейма, VBRI - на фиксированном смещении 36
+        int xingOffset = header.xingOffset();
+        if (frame.limit() >= xingOffset + 12
+                && (startsWith(frame, xingOffset, "Xing") || startsWith(frame, xingOffset, "Info"))) {
+            int flags = frame.getInt(xingOffset + 4);
+            if ((flags & 0x1) != 0) {
+                long frames = frame.getInt(xingOffset + 8) & 0xFFFFFFFFL;
+                if (frames > 0) {
+                    return (double) frames * header.samplesPerFrame() / header.sampleRate();
+                }
+            }
+        }
+        if (frame.limit() >= 36 + 18 && startsWith(frame, 36, "VBRI")) {
+            long frames = frame.getInt(36 + 14) & 0xFFFFFFFFL;
+            if (frames > 0) {
+                return (double) frames * header.samplesPerFrame() / header.sampleRate();
+            }
+        }
+        
+        return scanMp3Frames(channel, firstFrame, audioEnd, header);
+    }
+    
+    /**
+     * Проходит заголовки фреймов подряд. Дошли до конца - длительность точная;
+     * упёрлись в MAX_MP3_SCAN_BYTES или потеряли синхронизацию - экстраполируем
+     * по среднему размеру фрейма, что для VBR точнее оценки по битрейту первого фрейма.
+     */
+    private Double scanMp3Frames(FileChannel channel, long firstFrame, long audioEnd,
+                                 Mp3FrameHeader first) throws IOException {
+        long pos = firstFrame;
+        long frames = 0;
+        ByteBuffer window = null;
+        long windowStart = 0;
+        while (pos + 4 <= audioEnd && pos - firstFrame < MAX_MP3_SCAN_BYTES) {
+            if (window == null || pos + 4 > windowStart + window.limit()) {
+                window = read(channel, pos, SCAN_WINDOW);
+                windowStart = pos;
+                if (window.limit() < 4) {
+                    break;
+                }
+            }
+            Mp3FrameHeader header = Mp3FrameHeader.parse(window, (int) (pos - windowStart));
+            if (header == null || header.sampleRate() != first.sampleRate()) {
+                break;
+            }
+            frames++;
+            pos += header.frameLength();
+        }
+        if (frames == 0) {
+            return null;
+        }
+        
+        double seconds = (double) frames * first.samplesPerFrame() / first.sampleRate();
+        long scanned = Math.min(pos, audioEnd) - firstFrame;
+        if (pos < audioEnd && scanned > 0) {
+            seconds *= (double) (audioEnd - firstFrame) / scanned;
+        }
+        return seconds;
+    }
+    
+    /**
+     * @return {начало аудио после ID3v2, конец аудио перед ID3v1}
+     */
+    private long[] getMp3AudioBounds(FileChannel channel, ByteBuffer head) throws IOException {
+        long audioStart = 0;
+        if (startsWith(head, 0, "ID3")) {
+            // Размер ID3v2 - syncsafe integer, 7 значащих бит в байте; флаг 0x10 - есть футер
+            int size = ((head.get(6) & 0x7F) << 21) | ((head.get(7) & 0x7F) << 14)
+                    | ((head.get(8) & 0x7F) << 7) | (head.get(9) & 0x7F);
+            audioStart = 10L + size + ((head.get(5) & 0x10) != 0 ? 10 : 0);
+        }
+        
+        long audioEnd = channel.size();
+        if (audioEnd >= 128) {
+            ByteBuffer tail = read(channel, audioEnd - 128, 3);
+            if (startsWith(tail, 0, "TAG")) {
+                audioEnd -= 128;
+            }
+        }
+        return new long[]{audioStart, audioEnd};
+    }
+    
+    private boolean hasVbrHeader(ByteBuffer frame, Mp3FrameHeader header) {
+        int xingOffset = header.xingOffset();
+        return startsWith(frame, xingOffset, "Xing") || startsWith(frame, xingOffset, "Info")
+                || startsWith(frame, 36, "VBRI");
+    }
+    
+    /**
+     * Первый фрейм - тот, за которым на расстоянии frameLength стоит ещё один валидный
+     * заголовок; одиночное совпадение 0xFFE в обложке или мусоре не считается.
+     */
+    private long findFirstFrame(FileChannel channel, long from, long audioEnd) throws IOException {
+        ByteBuffer buffer = read(channel, from, MAX_MP3_SYNC_SEARCH);
+        for (int i = 0; i + 4 <= buffer.limit(); i++) {
+            Mp3FrameHeader header = Mp3FrameHeader.parse(buffer, i);
+            if (header == null) {
+                continue;
+            }
+            long next = from + i + header.frameLength();
+            if (next + 4 > audioEnd) {
+                return from + i;
+            }
+            ByteBuffer nextHeader = read(channel, next, 4);
+            if (nextHeader.limit() == 4 && Mp3FrameHeader.parse(nextHeader, 0) != null) {
+                return from + i;
+            }
+        }
+        return -1;
+    }
+    
+    // FLAC
+    
+    private Double probeFlac(FileChannel channel) throws IOException {
+        // STREAMINFO обязан быть первым блоком метаданных: 4 байта маркера, 4 байта заголовка блока, 34 байта данных
+        ByteBuffer buffer = read(channel, 0, 42);
+        if (buffer.limit() < 42 || (buffer.get(4) & 0x7F) != 0) {
+            return null;
+        }
+        int sampleRate = ((buffer.get(18) & 0xFF) << 12) | ((buffer.get(19) & 0xFF) << 4)
+                | ((buffer.get(20) & 0xF0) >> 4);
+        long totalSamples = ((long) (buffer.get(21) & 0x0F) << 32) | (buffer.getInt(22) & 0xFFFFFFFFL);
+        if (sampleRate == 0 || totalSamples == 0) {
+            return null;
+        }
+        return (double) totalSamples / sampleRate;
+    }
+    
+    // Ogg (Vorbis, Opus)
+    
+    private Double probeOgg(FileChannel channel) throws IOException {
+        ByteBuffer first = read(channel, 0, 27 + 255 + 32).order(ByteOrder.LITTLE_ENDIAN);
+        if (first.limit() < 28) {
+            return null;
+        }
+        int serial = first.getInt(14);
+        int packetStart = 27 + (first.get(26) & 0xFF);
+        
+        long sampleRate;
+        long preSkip = 0;
+        if (first.limit() >= packetStart + 16 && startsWith(first, packetStart + 1, "vorbis")) {
+            sampleRate = first.getInt(packetStart + 12) & 0xFFFFFFFFL;
+        } else if (first.limit() >= packetStart + 12 && startsWith(first, packetStart, "OpusHead")) {
+            // Granule position в Opus всегда в отсчётах 48 кГц
+            sampleRate = 48000;
+            preSkip = first.getShort(packetStart + 10) & 0xFFFF;
+        } else {
+            return null;
+        }
+        if (sampleRate == 0) {
+            return null;
+        }
+        
+        long size = channel.size();
+        long tailStart = Math.max(0, size - OGG_TAIL);
+        ByteBuffer tail = read(channel, tailStart, (int) (size - tailStart)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = tail.limit() - 27; i >= 0; i--) {
+            if (startsWith(tail, i, "OggS") && tail.getInt(i + 14) == serial) {
+                long granule = tail.getLong(i + 6);
+                if (granule > 0) {
+                    return (double) Math.max(0, granule - preSkip) / sampleRate;
+                }
+            }
+        }
+        return null;
+    }
+    
+    // WAV
+    
+    private Double probeWav(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long pos = 12;
+        long byteRate = 0;
+        for (int i = 0; i < MAX_CHUNKS && pos + 8 <= size; i++) {
+            ByteBuffer chunk = read(channel, pos, 20).order(ByteOrder.LITTLE_ENDIAN);
+            if (chunk.limit() < 8) {
+                return null;
+            }
+            long chunkSize = chunk.getInt(4) & 0xFFFFFFFFL;
+            if (startsWith(chunk, 0, "fmt ") && chunk.limit() >= 20) {
+                byteRate = chunk.getInt(16) & 0xFFFFFFFFL;
+            } else if (startsWith(chunk, 0, "data")) {
+                if (byteRate == 0) {
+                    return null;
+                }
+                // Записанные потоком файлы оставляют размер 0 или 0xFFFFFFFF - берём остаток файла
+                long dataSize = chunkSize == 0 || pos + 8 + chunkSize > size ? size - pos - 8 : chunkSize;
+                return (double) dataSize / byteRate;
+            }
+            // Чанки RIFF выровнены по чётной границе
+            pos += 8 + chunkSize + (chunkSize & 1);
+        }
+        return null;
+    }
+    
+    // MP4 / M4A
+    
+    private Double probeMp4(FileChannel channel) throws IOException {
+        long[] moov = findBox(channel, 0, channel.size(), "moov");
+        if (moov == null) {
+            return null;
+        }
+        long[] mvhd = findBox(channel, moov[0], moov[1], "mvhd");
+        if (mvhd == null) {
+            return null;
+        }
+        ByteBuffer box = read(channel, mvhd[0], 32);
+        if (box.limit() < 20) {
+            return null;
+        }
+        int version = box.get(0) & 0xFF;
+        long timescale;
+        long duration;
+        if (version == 1) {
+            if (box.limit() < 32) {
+                return null;
+            }
+            timescale = box.getInt(20) & 0xFFFFFFFFL;
+            duration = box.getLong(24);
+        } else {
+            timescale = box.getInt(12) & 0xFFFFFFFFL;
+            duration = box.getInt(16) & 0xFFFFFFFFL;
+        }
+        if (timescale == 0 || duration <= 0) {
+            return null;
+        }
+        return (double) duration / timescale;
+    }
+    
+    /**
+     * Ищет атом среди непосредственных детей диапазона [from, to)
+     * @return {начало данных атома, конец атома} или null
+     */
+    private long[] findBox(FileChannel channel, long from, long to, String type) throws IOException {
+        long pos = from;
+        for (int i = 0; i < MAX_CHUNKS && pos + 8 <= to; i++) {
+            ByteBuffer header = read(channel, pos, 16);
+            if (header.limit() < 8) {
+                return null;
+            }
+            long size = header.getInt(0) & 0xFFFFFFFFL;
+            int headerLength = 8;
+            if (size == 1 && header.limit() >= 16) {
+                size = header.getLong(8);
+                headerLength = 16;
+            } else if (size == 0) {
+                size = to - pos;
+            }
+            if (size < headerLength) {
+                return null;
+            }
+            if (startsWith(header, 4, type)) {
+                return new long[]{pos + headerLength, Math.min(pos + size, to)};
+            }
+            pos += size;
+        }
+        return null;
+    }
+    
+    // Чтение
+    
+    /**
+     * Позиционное чтение: не двигает позицию канала, у конца файла возвращает меньше байт
+     */
+    static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    private static boolean startsWith(ByteBuffer buffer, int offset, String magic) {
+        if (buffer.limit() < offset + magic.length()) {
+            return false;
+        }
+        byte[] expected = magic.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Заголовок фрейма MPEG audio (Layer I/II/III, MPEG 1/2/2.5)
+     */
+    static final class Mp3FrameHeader {
+        
+        // Битрейты в кбит/с: [MPEG1 или MPEG2/2.5][слой I, II, III][индекс]
+        private static final int[][][] BITRATES = {
+                {
+                        {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+                        {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+                        {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}
+                },
+                {
+                        {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+                        {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+                        {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+                }
+        };
+        private static final int[] SAMPLE_RATES = {44100, 48000, 32000};
+        
+        private final boolean mpeg1;
+        private final int layer;
+        private final int sampleRate;
+        private final int frameLength;
+        private final boolean mono;
+        private final boolean crc;
+        
+        private Mp3FrameHeader(boolean mpeg1, int layer, int sampleRate, int frameLength, boolean mono, boolean crc) {
+            this.mpeg1 = mpeg1;
+            this.layer = layer;
+            this.sampleRate = sampleRate;
+            this.frameLength = frameLength;
+            this.mono = mono;
+            this.crc = crc;
+        }
+        
+        /**
+         * @return заголовок или null, если по смещению нет валидного заголовка фрейма
+         */
+        static Mp3FrameHeader parse(ByteBuffer buffer, int offset) {
+            if (buffer.limit() < offset + 4) {
+                return null;
+            }
+            int b1 = buffer.get(offset) & 0xFF;
+            int b2 = buffer.get(offset + 1) & 0xFF;
+            int b3 = buffer.get(offset + 2) & 0xFF;
+            int b4 = buffer.get(offset + 3) & 0xFF;
+            if (b1 != 0xFF || (b2 & 0xE0) != 0xE0) {
+                return null;
+            }
+            
+            int versionBits = (b2 >> 3) & 0x3;
+            int layerBits = (b2 >> 1) & 0x3;
+            int bitrateIndex = (b3 >> 4) & 0xF;
+            int sampleRateIndex = (b3 >> 2) & 0x3;
+            if (versionBits == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                // Зарезервированные значения и free format не поддерживаются
+                return null;
+            }
+            
+            boolean mpeg1 = versionBits == 3;
+            int layer = 4 - layerBits;
+            int sampleRate = SAMPLE_RATES[sampleRateIndex] >> (versionBits == 3 ? 0 : versionBits == 2 ? 1 : 2);
+            int bitrate = BITRATES[mpeg1 ? 0 : 1][layer - 1][bitrateIndex] * 1000;
+            int padding = (b3 >> 1) & 0x1;
+            
+            int frameLength;
+            if (layer == 1) {
+                frameLength = (12 * bitrate / sampleRate + padding) * 4;
+            } else if (layer == 3 && !mpeg1) {
+                frameLength = 72 * bitrate / sampleRate + padding;
+            } else {
+                frameLength = 144 * bitrate / sampleRate + padding;
+            }
+            // Бит protection = 0: за заголовком идут 2 байта CRC
+            boolean crc = (b2 & 0x1) == 0;
+            return new Mp3FrameHeader(mpeg1, layer, sampleRate, frameLength, ((b4 >> 6) & 0x3) == 3, crc);
+        }
+        
+        int samplesPerFrame() {
+            if (layer == 1) {
+                return 384;
+            }
+            return layer == 3 && !mpeg1 ? 576 : 1152;
+        }
+        
+        int sideInfoLength() {
+            if (mpeg1) {
+                return mono ? 17 : 32;
+            }
+            return mono ? 9 : 17;
+        }
+        
+        /**
+         * Смещение заголовка Xing/Info от начала фрейма: заголовок, CRC и side info
+         */
+        int xingOffset() {
+            return 4 + (crc ? 2 : 0) + sideInfoLength();
+        }
+        
+        int sampleRate() {
+            return sampleRate;
+        }
+        
+        int frameLength() {
+            return frameLength;
+        }
+    }
+}
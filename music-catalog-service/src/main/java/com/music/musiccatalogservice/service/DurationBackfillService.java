@@ -0,0 +1,251 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.config.CacheConfig;
+import com.music.musiccatalogservice.repository.TrackRepository;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновое заполнение duration_seconds у треков, где длительность не определилась при загрузке.
+ * Проходит треки с NULL длительностью keyset-страницами по id, читает заголовки файлов
+ * на ограниченном ForkJoinPool с ограничением частоты открытия файлов и пишет результат
+ * пачкой UPDATE. Запускается и останавливается через actuator (/actuator/durationbackfill);
+ * после остановки продолжает с последнего обработанного id.
+ */
+@Service
+public class DurationBackfillService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DurationBackfillService.class);
+    
+    public static final String RATE_LIMITER = "durationBackfill";
+    
+    private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+    
+    // Условие IS NULL: длительность, записанную загрузкой файла во время прохода, не перетираем.
+    // Средний битрейт считается по сохранённому размеру файла, как в MediaMetadataService.getBitrateKbps
+    private static final String UPDATE_SQL =
+            "UPDATE tracks SET duration_seconds = ?, bitrate_kbps = ROUND(file_size_bytes * 8.0 / 1000 / ?) " +
+            "WHERE id = ? AND duration_seconds IS NULL";
+    
+    @Value("${catalog.backfill.duration.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${catalog.backfill.duration.batch-size:200}")
+    private int batchSize;
+    
+    @Autowired
+    private TrackRepository trackRepository;
+    
+    @Autowired
+    private AudioDurationService audioDurationService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private RateLimiterRegistry rateLimiterRegistry;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private RateLimiter rateLimiter;
+    private Counter updatedCounter;
+    private Counter failedCounter;
+    
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long lastId;
+    private volatile boolean running;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String lastError;
+    private Thread worker;
+    
+    @PostConstruct
+    public void init() {
+        rateLimiter = rateLimiterRegistry.rateLimiter(RATE_LIMITER);
+        updatedCounter = meterRegistry.counter("tracks.duration.backfill.updated");
+        failedCounter = meterRegistry.counter("tracks.duration.backfill.failed");
+    }
+    
+    /**
+     * Запускает проход, если он ещё не идёт
+     * @param restart true - начать с первого трека, false - продолжить с последнего обработанного id
+     * @return false если проход уже выполняется
+     */
+    public synchronized boolean start(boolean restart) {
+        // Остановленный поток может ещё дописывать последнюю пачку
+        if (running || (worker != null && worker.isAlive())) {
+            return false;
+        }
+        if (restart) {
+            lastId = 0;
+            scanned.set(0);
+            updated.set(0);
+            failed.set(0);
+        }
+        running = true;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        lastError = null;
+        
+        worker = new Thread(this::run, "duration-backfill");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("Duration backfill started from id {}: parallelism={}, batchSize={}", lastId, parallelism, batchSize);
+        return true;
+    }
+    
+    /**
+     * Просит проход остановиться после текущей пачки
+     */
+    public synchronized void stop() {
+        running = false;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        stop();
+        Thread current = worker;
+        if (current != null) {
+            try {
+                current.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running);
+        status.put("lastId", lastId);
+        status.put("scanned", scanned.get());
+        status.put("updated", updated.get());
+        status.put("failed", failed.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+    
+    private void run() {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            while (running) {
+                List<Object[]> page = trackRepository.findMissingDuration(lastId, PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                
+                List<CompletableFuture<Object[]>> probes = new ArrayList<>(page.size());
+                for (Object[] row : page) {
+                    Long id = (Long) row[0];
+                    String filePath = (String) row[1];
+                    probes.add(CompletableFuture.supplyAsync(() -> probe(id, filePath), pool));
+                }
+                
+                List<Object[]> updates = new ArrayList<>();
+                for (CompletableFuture<Object[]> probe : probes) {
+                    Object[] result = probe.join();
+                    if (result != null) {
+                        updates.add(result);
+                    }
+                }
+                write(updates);
+                
+                scanned.addAndGet(page.size());
+                lastId = (Long) page.get(page.size() - 1)[0];
+            }
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("Duration backfill stopped at id {}", lastId, e);
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running = false;
+            finishedAt = LocalDateTime.now();
+            logger.info("Duration backfill finished at id {}: scanned={}, updated={}, failed={}",
+                    lastId, scanned.get(), updated.get(), failed.get());
+        }
+    }
+    
+    /**
+     * @return {длительность, длительность, id} для UPDATE или null, если длительность не определилась
+     */
+    private Object[] probe(Long id, String filePath) {
+        // Тайм-аут лимитера - не ошибка трека: ждём дальше, иначе RequestNotPermitted
+        // из join() остановил бы весь проход, а трек остался бы позади lastId
+        while (!rateLimiter.acquirePermission()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+        }
+        try {
+            Path path = Paths.get(filePath);
+            Integer duration = audioDurationService.getDurationSeconds(path);
+            if (duration != null && duration > 0) {
+                return new Object[]{duration, duration, id};
+            }
+        } catch (Exception e) {
+            logger.debug("Could not probe duration for track {}: {}", id, e.getMessage());
+        }
+        failed.incrementAndGet();
+        failedCounter.increment();
+        return null;
+    }
+    
+    private void write(List<Object[]> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        
+        // UPDATE прошёл мимо репозитория - сбрасываем закэшированные сущности сами
+        Cache tracks = cacheManager.getCache(CacheConfig.TRACKS);
+        int written = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                written++;
+                if (tracks != null) {
+                    tracks.evict(updates.get(i)[2]);
+                }
+            }
+        }
+        updated.addAndGet(written);
+        updatedCounter.increment(written);
+    }
+}
@@ -18,7 +18,8 @@ public class FileDownloadService {
     
     private static final int CONNECT_TIMEOUT = 30000; // 30 seconds
     private static final int READ_TIMEOUT = 60000; // 60 seconds
-    private static final int MAX_FILE_SIZE = 100 * 1024 * 1024; // 100 MB
+    public static final int MAX_FILE_SIZE = 100 * 1024 * 1024; // 100 MB
+    public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36";
     
     /**
      * Скачивает файл по URL и сохраняет его локально
@@ -28,13 +29,7 @@ public class FileDownloadService {
      * @throws Exception если произошла ошибка при скачивании
      */
     public boolean downloadFile(String fileUrl, Path destinationPath) throws Exception {
-        if (fileUrl == null || fileUrl.trim().isEmpty()) {
-            throw new IllegalArgumentException("URL не может быть пустым");
-        }
-        
-        if (!fileUrl.startsWith("http://") && !fileUrl.startsWith("https://")) {
-            throw new IllegalArgumentException("URL должен начинаться с http:// или https://");
-        }
+        validateUrl(fileUrl);
         
         logger.info("Downloading file from URL: {}", fileUrl);
         
@@ -52,7 +47,7 @@ public class FileDownloadService {
             connection.setInstanceFollowRedirects(true);
             
             // Устанавливаем User-Agent для совместимости с некоторыми серверами
-            connection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
+            connection.setRequestProperty("User-Agent", USER_AGENT);
             
             // Проверяем размер файла
             long contentLength = connection.getContentLengthLong();
@@ -99,10 +94,24 @@ public class FileDownloadService {
         }
     }
     
+    /**
+     * Проверяет, что URL задан и использует http или https
+     * @throws IllegalArgumentException если URL не подходит для скачивания
+     */
+    public void validateUrl(String fileUrl) {
+        if (fileUrl == null || fileUrl.trim().isEmpty()) {
+            throw new IllegalArgumentException("URL не может быть пустым");
+        }
+        
+        if (!fileUrl.startsWith("http://") && !fileUrl.startsWith("https://")) {
+            throw new IllegalArgumentException("URL должен начинаться с http:// или https://");
+        }
+    }
+    
     /**
      * Проверяет, является ли Content-Type аудио файлом
      */
-    private boolean isAudioFile(String contentType) {
+    public boolean isAudioFile(String contentType) {
         if (contentType == null) {
             return false;
         }
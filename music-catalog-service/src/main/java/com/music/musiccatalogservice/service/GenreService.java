@@ -0,0 +1,36 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.config.CacheConfig;
+import com.music.musiccatalogservice.dto.GenreDTO;
+import com.music.musiccatalogservice.repository.TrackRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Список жанров с количеством треков.
+ * Считается одним GROUP BY и держится в кэше; сбрасывается при создании, изменении и удалении треков.
+ */
+@Service
+@Transactional(readOnly = true)
+public class GenreService {
+    
+    @Autowired
+    private TrackRepository trackRepository;
+    
+    @Cacheable(CacheConfig.GENRES)
+    public List<GenreDTO> getGenres() {
+        return trackRepository.countTracksByGenre().stream()
+                .map(row -> {
+                    GenreDTO dto = new GenreDTO();
+                    dto.setName((String) row[0]);
+                    dto.setTrackCount(((Number) row[1]).longValue());
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+}
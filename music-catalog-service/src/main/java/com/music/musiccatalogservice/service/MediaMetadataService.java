@@ -0,0 +1,184 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.config.CacheConfig;
+import com.music.musiccatalogservice.entity.Track;
+import com.music.musiccatalogservice.repository.TrackRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Метаданные аудио файла трека: размер, MIME тип, время изменения и средний битрейт.
+ * Заполняются при загрузке и импорте файла, чтобы отдача трека выставляла Content-Length,
+ * Content-Type, ETag и Last-Modified без обращения к файловой системе.
+ * Контрольная сумма - file_hash из хранилища по содержимому.
+ * <p>
+ * У треков, загруженных раньше, метаданные дозаполняет периодический проход keyset-страницами по id.
+ */
+@Service
+public class MediaMetadataService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MediaMetadataService.class);
+    
+    // Условие по file_path: метаданные файла, сменившегося во время прохода, не записываем
+    private static final String UPDATE_SQL =
+            "UPDATE tracks SET file_size_bytes = ?, mime_type = ?, file_modified_at = ?, " +
+            "bitrate_kbps = COALESCE(?, bitrate_kbps) WHERE id = ? AND file_path = ?";
+    
+    @Value("${catalog.backfill.media.batch-size:500}")
+    private int batchSize;
+    
+    @Autowired
+    private TrackRepository trackRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private Mp3FrameIndexService mp3FrameIndexService;
+    
+    /**
+     * Определяет MIME тип по расширению файла
+     */
+    public static String getAudioContentType(Path filePath) {
+        String filePathStr = filePath.toString().toLowerCase();
+        if (filePathStr.endsWith(".wav")) {
+            return "audio/wav";
+        } else if (filePathStr.endsWith(".ogg")) {
+            return "audio/ogg";
+        } else if (filePathStr.endsWith(".m4a")) {
+            return "audio/mp4";
+        } else if (filePathStr.endsWith(".flac")) {
+            return "audio/flac";
+        }
+        return "audio/mpeg"; // По умолчанию MP3
+    }
+    
+    /**
+     * Средний битрейт по размеру файла и длительности
+     * @return битрейт в кбит/с или null если что-то из них неизвестно
+     */
+    public static Integer getBitrateKbps(Long sizeBytes, Integer durationSeconds) {
+        if (sizeBytes == null || durationSeconds == null || durationSeconds <= 0) {
+            return null;
+        }
+        return (int) Math.round(sizeBytes * 8.0 / 1000 / durationSeconds);
+    }
+    
+    /**
+     * Записывает в трек метаданные только что загруженного файла и строит индекс фреймов MP3.
+     * Вызывается после определения длительности - от неё зависит битрейт
+     */
+    public void apply(Track track, Path filePath) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        track.setFileSizeBytes(attributes.size());
+        track.setMimeType(getAudioContentType(filePath));
+        track.setFileModifiedAt(toLocalDateTime(attributes));
+        track.setBitrateKbps(getBitrateKbps(attributes.size(), track.getDurationSeconds()));
+        
+        try {
+            mp3FrameIndexService.build(filePath, track.getFileHash());
+        } catch (Exception e) {
+            // Индекс построится при первом запросе по времени, загрузку не проваливаем
+            logger.warn("Could not index MP3 frames of track {}: {}", track.getId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Сбрасывает метаданные, когда путь к файлу задан вручную; их дозаполнит фоновый проход
+     */
+    public void clear(Track track) {
+        track.setFileSizeBytes(null);
+        track.setMimeType(null);
+        track.setFileModifiedAt(null);
+        track.setBitrateKbps(null);
+    }
+    
+    /**
+     * Дозаполняет метаданные у треков, где их нет. Треки, файлы которых не найдены,
+     * остаются без метаданных и проверяются снова при следующем проходе
+     */
+    @Scheduled(initialDelayString = "${catalog.backfill.media.initial-delay-ms:60000}",
+            fixedDelayString = "${catalog.backfill.media.interval-ms:3600000}")
+    public void backfillMissing() {
+        long lastId = 0;
+        int updated = 0;
+        int missing = 0;
+        while (true) {
+            List<Object[]> page = trackRepository.findMissingMediaMetadata(lastId, PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            
+            List<Object[]> updates = new ArrayList<>(page.size());
+            for (Object[] row : page) {
+                Long id = (Long) row[0];
+                String filePath = (String) row[1];
+                Integer duration = (Integer) row[2];
+                try {
+                    Path path = Paths.get(filePath);
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    updates.add(new Object[]{attributes.size(), getAudioContentType(path),
+                            Timestamp.valueOf(toLocalDateTime(attributes)),
+                            getBitrateKbps(attributes.size(), duration), id, filePath});
+                } catch (Exception e) {
+                    missing++;
+                    logger.debug("Could not read metadata of track {} file {}: {}", id, filePath, e.getMessage());
+                }
+            }
+            updated += write(updates);
+            lastId = (Long) page.get(page.size() - 1)[0];
+        }
+        if (updated > 0 || missing > 0) {
+            logger.info("Media metadata backfill finished: updated={}, files not readable={}", updated, missing);
+        }
+    }
+    
+    private int write(List<Object[]> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        
+        // UPDATE прошёл мимо репозитория - сбрасываем закэшированные сущности сами
+        Cache tracks = cacheManager.getCache(CacheConfig.TRACKS);
+        int written = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                written++;
+                if (tracks != null) {
+                    tracks.evict(updates.get(i)[4]);
+                }
+            }
+        }
+        return written;
+    }
+    
+    // Точность до секунды: так же время изменения уходит в Last-Modified
+    private LocalDateTime toLocalDateTime(BasicFileAttributes attributes) {
+        return LocalDateTime.ofInstant(attributes.lastModifiedTime().toInstant(), ZoneId.systemDefault())
+                .truncatedTo(ChronoUnit.SECONDS);
+    }
+}
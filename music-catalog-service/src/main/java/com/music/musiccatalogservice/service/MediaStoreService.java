@@ -0,0 +1,196 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.dto.MediaBlobDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Хранилище медиафайлов по содержимому. Каждый файл лежит один раз под своим SHA-256
+ * в каталоге file.upload.blobs.dir/ab/cd/abcd...ext, а треки, альбомы и артисты ссылаются
+ * на него по хэшу (file_hash, artwork_hash, image_hash). Одинаковый файл, загруженный
+ * для нескольких треков или альбомов, занимает место на диске один раз.
+ * <p>
+ * Счётчик ссылок в media_blobs ведут триггеры БД. Файлы без ссылок удаляются
+ * периодически, не раньше catalog.media.orphan-grace-minutes после последнего сохранения:
+ * между сохранением файла и записью ссылки на него сборщик его не тронет.
+ */
+@Service
+public class MediaStoreService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MediaStoreService.class);
+    
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    
+    // Повторное сохранение того же содержимого только продлевает жизнь записи
+    private static final String UPSERT_SQL =
+            "INSERT INTO media_blobs (hash, path, size_bytes) VALUES (?, ?, ?) " +
+            "ON CONFLICT (hash) DO UPDATE SET updated_at = NOW() RETURNING path";
+    
+    private static final String TOUCH_SQL =
+            "UPDATE media_blobs SET updated_at = NOW() WHERE hash = ? RETURNING path, size_bytes";
+    
+    private static final String PURGE_SQL =
+            "DELETE FROM media_blobs WHERE ref_count <= 0 AND updated_at < ? RETURNING path";
+    
+    @Value("${file.upload.dir:uploads}")
+    private String uploadDir;
+    
+    @Value("${file.upload.blobs.dir:uploads/blobs}")
+    private String blobsDir;
+    
+    @Value("${catalog.media.orphan-grace-minutes:60}")
+    private long orphanGraceMinutes;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Сохраняет поток, считая SHA-256 по ходу записи
+     * @param extension расширение файла с точкой
+     */
+    public MediaBlobDTO store(InputStream in, String extension) throws IOException {
+        Path tempDir = Paths.get(blobsDir, "tmp");
+        Files.createDirectories(tempDir);
+        Path temp = tempDir.resolve(UUID.randomUUID() + ".tmp");
+        
+        MessageDigest digest = newDigest();
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return commit(temp, HexFormat.of().formatHex(digest.digest()), extension);
+    }
+    
+    /**
+     * SHA-256 файла в шестнадцатеричном виде
+     */
+    public static String hashFile(Path source) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    /**
+     * Переносит в хранилище уже записанный файл (загрузка по частям, импорт по URL).
+     * Исходный файл перемещается или удаляется, если такое содержимое уже хранится.
+     * @param hash SHA-256 файла, посчитанный при записи, или null - тогда файл читается ещё раз
+     */
+    public MediaBlobDTO storeFile(Path source, String extension, String hash) throws IOException {
+        return commit(source, hash != null ? hash : hashFile(source), extension);
+    }
+    
+    /**
+     * Уже сохранённый файл по хэшу. Продлевает ему жизнь, как повторное сохранение:
+     * сборщик не удалит его ещё catalog.media.orphan-grace-minutes
+     * @return null если записи или файла нет
+     */
+    public synchronized MediaBlobDTO findStored(String hash) {
+        List<MediaBlobDTO> blobs = jdbcTemplate.query(TOUCH_SQL, (rs, rowNum) -> {
+            MediaBlobDTO blob = new MediaBlobDTO();
+            blob.setHash(hash);
+            blob.setPath(rs.getString("path"));
+            blob.setSizeBytes(rs.getLong("size_bytes"));
+            return blob;
+        }, hash);
+        if (blobs.isEmpty() || !Files.exists(Paths.get(blobs.get(0).getPath()))) {
+            return null;
+        }
+        return blobs.get(0);
+    }
+    
+    /**
+     * Удаляет файл, загруженный до появления хранилища, когда сущность перестаёт на него ссылаться.
+     * Файлы из хранилища удаляет сборщик по счётчику ссылок, внешние пути не трогаются.
+     * @param hash хэш, по которому сущность ссылалась на файл, или null
+     */
+    public void deleteLegacyFile(String path, String hash) {
+        if (path == null || hash != null) {
+            return;
+        }
+        Path file = Paths.get(path).toAbsolutePath().normalize();
+        if (!file.startsWith(Paths.get(uploadDir).toAbsolutePath().normalize())
+                || file.startsWith(Paths.get(blobsDir).toAbsolutePath().normalize())) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete replaced file {}", file, e);
+        }
+    }
+    
+    /**
+     * Удаляет файлы, на которые больше никто не ссылается
+     */
+    @Scheduled(fixedDelayString = "${catalog.media.purge-interval-ms:3600000}")
+    public synchronized void purgeUnreferenced() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(orphanGraceMinutes);
+        List<String> paths = jdbcTemplate.queryForList(PURGE_SQL, String.class, threshold);
+        for (String path : paths) {
+            try {
+                Files.deleteIfExists(Paths.get(path));
+            } catch (IOException e) {
+                logger.warn("Could not delete unreferenced media file {}", path, e);
+            }
+        }
+        if (!paths.isEmpty()) {
+            logger.info("Removed {} unreferenced media files", paths.size());
+        }
+    }
+    
+    // Под монитором this вместе со сборщиком: иначе он мог бы удалить файл,
+    // который только что признан существующей копией
+    private synchronized MediaBlobDTO commit(Path source, String hash, String extension) throws IOException {
+        long size = Files.size(source);
+        Path target = Paths.get(blobsDir, hash.substring(0, 2), hash.substring(2, 4), hash + extension);
+        String path = jdbcTemplate.queryForObject(UPSERT_SQL, String.class,
+                hash, target.toString().replace("\\", "/"), size);
+        
+        Path stored = Paths.get(path);
+        if (Files.exists(stored)) {
+            Files.delete(source);
+        } else {
+            Files.createDirectories(stored.getParent());
+            Files.move(source, stored, StandardCopyOption.ATOMIC_MOVE);
+        }
+        
+        MediaBlobDTO blob = new MediaBlobDTO();
+        blob.setHash(hash);
+        blob.setPath(path);
+        blob.setSizeBytes(size);
+        return blob;
+    }
+}
@@ -0,0 +1,382 @@
+package com.music.musiccatalogservice.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Отдача медиафайлов с поддержкой HTTP Range (RFC 9110): 206 для одного и нескольких диапазонов,
+ * 416 для невыполнимых, условные запросы по ETag/Last-Modified (If-None-Match, If-Modified-Since, If-Range).
+ * Тело передаётся без копирования через heap: через sendfile Tomcat, если коннектор его поддерживает,
+ * иначе через FileChannel.transferTo.
+ * <p>
+ * Для файлов из хранилища по содержимому ETag - это SHA-256 файла, а запрос с ?v=хэш
+ * получает Cache-Control immutable: по такому адресу содержимое никогда не меняется.
+ */
+@Service
+public class MediaStreamingService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(MediaStreamingService.class);
+    
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+    
+    // Защита от запросов с тысячами мелких диапазонов
+    private static final int MAX_RANGES = 32;
+    
+    public static final String VERSION_PARAM = "v";
+    public static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    
+    /**
+     * Отдаёт файл целиком или запрошенными диапазонами
+     * @param file путь к файлу
+     * @param contentType MIME тип содержимого
+     * @param contentDisposition значение Content-Disposition или null
+     */
+    public void stream(HttpServletRequest request, HttpServletResponse response,
+                       Path file, String contentType, String contentDisposition) throws IOException {
+        stream(request, response, file, contentType, contentDisposition, null);
+    }
+    
+    /**
+     * Отдаёт файл из хранилища по содержимому
+     * @param contentHash SHA-256 файла или null, если файл загружен до появления хранилища
+     */
+    public void stream(HttpServletRequest request, HttpServletResponse response,
+                       Path file, String contentType, String contentDisposition,
+                       String contentHash) throws IOException {
+        stream(request, response, file, contentType, contentDisposition, contentHash,
+                getCacheControl(request, contentHash));
+    }
+    
+    /**
+     * Отдаёт файл по размеру и времени изменения, сохранённым при загрузке:
+     * заголовки ответа строятся без чтения атрибутов файла. Файл открывается (для sendfile -
+     * проверяется) перед отправкой заголовков, поэтому пропавший файл даёт 404, а не оборванный ответ
+     * @param length размер файла в байтах
+     * @param lastModified время изменения файла в миллисекундах
+     */
+    public void stream(HttpServletRequest request, HttpServletResponse response,
+                       Path file, String contentType, String contentDisposition,
+                       String contentHash, long length, long lastModified) throws IOException {
+        try {
+            send(request, response, file, contentType, contentDisposition, contentHash,
+                    getCacheControl(request, contentHash), 0, length, lastModified);
+        } catch (NoSuchFileException e) {
+            // Файл пропал после записи метаданных: заголовки ещё не отправлены
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+    
+    /**
+     * Отдаёт файл с заданными ETag и Cache-Control (обложки и их уменьшенные копии)
+     * @param etag значение ETag без кавычек или null - тогда он строится по размеру и времени изменения
+     * @param cacheControl значение Cache-Control или null, чтобы не выставлять заголовок
+     */
+    public void stream(HttpServletRequest request, HttpServletResponse response,
+                       Path file, String contentType, String contentDisposition,
+                       String etag, String cacheControl) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        send(request, response, file, contentType, contentDisposition, etag, cacheControl,
+                0, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+    
+    /**
+     * Отдаёт часть файла [offset, offset + length) как самостоятельный ресурс:
+     * Range и условные запросы относятся к этой части (отрезки MP3 по индексу фреймов)
+     * @param contentHash SHA-256 всего файла или null
+     * @param sliceId различает части одного файла в ETag
+     * @param lastModified время изменения файла в миллисекундах
+     */
+    public void streamSlice(HttpServletRequest request, HttpServletResponse response,
+                            Path file, String contentType, String contentHash, String sliceId,
+                            long offset, long length, long lastModified) throws IOException {
+        String etag = (contentHash != null ? contentHash : Long.toHexString(lastModified)) + "-" + sliceId;
+        try {
+            send(request, response, file, contentType, null, etag,
+                    getCacheControl(request, contentHash), offset, length, lastModified);
+        } catch (NoSuchFileException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+    
+    // Без версии в адресе файл трека может смениться - клиент перепроверяет его по ETag
+    private String getCacheControl(HttpServletRequest request, String contentHash) {
+        if (contentHash == null) {
+            return null;
+        }
+        return contentHash.equals(request.getParameter(VERSION_PARAM)) ? IMMUTABLE_CACHE_CONTROL : "no-cache";
+    }
+    
+    // offset - начало отдаваемого ресурса в файле, length - его размер; диапазоны Range считаются от offset
+    private void send(HttpServletRequest request, HttpServletResponse response,
+                      Path file, String contentType, String contentDisposition,
+                      String etag, String cacheControl, long offset, long length, long lastModified) throws IOException {
+        // HTTP даты имеют точность до секунды
+        lastModified = lastModified / 1000 * 1000;
+        etag = etag != null
+                ? "\"" + etag + "\""
+                : "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (cacheControl != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+        
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !isIfRangeSatisfied(request, etag, lastModified)) {
+            sendFull(request, response, file, contentType, offset, length, headOnly);
+            return;
+        }
+        
+        List<long[]> ranges = parseRanges(rangeHeader, length);
+        if (ranges == null) {
+            // Синтаксически неверный заголовок Range игнорируется
+            sendFull(request, response, file, contentType, offset, length, headOnly);
+            return;
+        }
+        if (ranges.isEmpty()) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + length);
+            response.setContentLengthLong(range[1] - range[0] + 1);
+            if (!headOnly) {
+                transfer(request, response, file, offset + range[0], range[1] - range[0] + 1);
+            }
+        } else {
+            sendMultipart(response, file, contentType, offset, length, ranges, headOnly);
+        }
+    }
+    
+    private void sendFull(HttpServletRequest request, HttpServletResponse response,
+                          Path file, String contentType, long offset, long length, boolean headOnly) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType);
+        response.setContentLengthLong(length);
+        if (!headOnly) {
+            transfer(request, response, file, offset, length);
+        }
+    }
+    
+    private void sendMultipart(HttpServletResponse response, Path file, String contentType,
+                               long offset, long length, List<long[]> ranges, boolean headOnly) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n" +
+                    "Content-Type: " + contentType + "\r\n" +
+                    "Content-Range: bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + (range[1] - range[0] + 1);
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+        
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (headOnly) {
+            return;
+        }
+        
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                out.write(partHeaders.get(i));
+                transferFully(channel, offset + range[0], range[1] - range[0] + 1, target);
+            }
+        }
+        out.write(closing);
+        out.flush();
+    }
+    
+    private void transfer(HttpServletRequest request, HttpServletResponse response,
+                          Path file, long start, long count) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        
+        // Tomcat сам отправит файл через sendfile после выхода из обработчика, когда заголовки
+        // уже ушли. Пропавший файл обнаруживается здесь, пока вызывающий ещё может ответить 404
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            long size = Files.size(file);
+            if (!Files.isReadable(file)) {
+                throw new AccessDeniedException(file.toString());
+            }
+            if (size < start + count) {
+                throw new IOException("File is shorter than the requested range: " + size + " bytes");
+            }
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+        
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transferFully(channel, start, count, target);
+        }
+        response.flushBuffer();
+    }
+    
+    private void transferFully(FileChannel channel, long position, long count,
+                               WritableByteChannel target) throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            long n = channel.transferTo(position + transferred, count - transferred, target);
+            if (n <= 0) {
+                // Файл укоротился во время отдачи
+                logger.warn("Short transfer: {} of {} bytes", transferred, count);
+                throw new IOException("File truncated while streaming");
+            }
+            transferred += n;
+        }
+    }
+    
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesEtag(ifNoneMatch, etag);
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range допускает только сильное сравнение
+            return ifRange.trim().equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    private boolean matchesEtag(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Разбирает заголовок Range
+     * @return список диапазонов [start, end] включительно; пустой список если ни один не выполним;
+     *         null если заголовок некорректен и должен быть проигнорирован
+     */
+    private List<long[]> parseRanges(String header, long length) {
+        if (!header.startsWith("bytes=")) {
+            return null;
+        }
+        String[] specs = header.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        
+        List<long[]> ranges = new ArrayList<>();
+        for (String rawSpec : specs) {
+            String spec = rawSpec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                long start;
+                long end;
+                if (dash == 0) {
+                    // Суффикс: последние N байт
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix == 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    end = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+                    if (end < start) {
+                        return null;
+                    }
+                    end = Math.min(end, length - 1);
+                }
+                if (start < length) {
+                    ranges.add(new long[] {start, end});
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,109 @@
+package com.music.musiccatalogservice.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Смещения всех звуковых фреймов MP3. Все фреймы потока содержат одинаковое число сэмплов,
+ * поэтому время переводится в номер фрейма делением, а номер фрейма в байтовое смещение -
+ * обращением к массиву; для VBR это точнее 100 точек оглавления Xing.
+ * <p>
+ * На диске смещения хранятся разностями (длина фрейма не больше 2 КБ) - по 2 байта на фрейм.
+ */
+public final class Mp3FrameIndex {
+    
+    private static final int MAGIC = 0x4D503349; // "MP3I"
+    private static final int VERSION = 1;
+    
+    private final int sampleRate;
+    private final int samplesPerFrame;
+    private final long[] offsets;
+    private final long dataEnd;
+    
+    Mp3FrameIndex(int sampleRate, int samplesPerFrame, long[] offsets, long dataEnd) {
+        this.sampleRate = sampleRate;
+        this.samplesPerFrame = samplesPerFrame;
+        this.offsets = offsets;
+        this.dataEnd = dataEnd;
+    }
+    
+    public int getFrameCount() {
+        return offsets.length;
+    }
+    
+    /**
+     * Номер фрейма, в котором звучит момент seconds; за концом записи - getFrameCount()
+     */
+    public int getFrameAt(double seconds) {
+        if (seconds <= 0) {
+            return 0;
+        }
+        long frame = (long) (seconds * sampleRate / samplesPerFrame);
+        return (int) Math.min(frame, offsets.length);
+    }
+    
+    /**
+     * Первый фрейм, который начинается не раньше seconds: конец отрезка по времени
+     */
+    public int getFrameFrom(double seconds) {
+        long frame = (long) Math.ceil(seconds * sampleRate / samplesPerFrame);
+        return (int) Math.max(0, Math.min(frame, offsets.length));
+    }
+    
+    /**
+     * Байтовое смещение начала фрейма; для getFrameCount() - конец последнего фрейма
+     */
+    public long getOffset(int frame) {
+        return frame < offsets.length ? offsets[frame] : dataEnd;
+    }
+    
+    /**
+     * Время начала фрейма в секундах
+     */
+    public double getTime(int frame) {
+        return (double) frame * samplesPerFrame / sampleRate;
+    }
+    
+    // Приблизительный размер в памяти - вес записи в кэше индексов
+    int getWeight() {
+        return 64 + offsets.length * Long.BYTES;
+    }
+    
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(sampleRate);
+        out.writeInt(samplesPerFrame);
+        out.writeInt(offsets.length);
+        out.writeLong(dataEnd);
+        if (offsets.length == 0) {
+            return;
+        }
+        out.writeLong(offsets[0]);
+        for (int i = 1; i < offsets.length; i++) {
+            out.writeShort((int) (offsets[i] - offsets[i - 1]));
+        }
+    }
+    
+    static Mp3FrameIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unsupported frame index format");
+        }
+        int sampleRate = in.readInt();
+        int samplesPerFrame = in.readInt();
+        int count = in.readInt();
+        long dataEnd = in.readLong();
+        if (sampleRate <= 0 || samplesPerFrame <= 0 || count < 0) {
+            throw new IOException("Corrupted frame index");
+        }
+        long[] offsets = new long[count];
+        if (count > 0) {
+            offsets[0] = in.readLong();
+            for (int i = 1; i < count; i++) {
+                offsets[i] = offsets[i - 1] + in.readUnsignedShort();
+            }
+        }
+        return new Mp3FrameIndex(sampleRate, samplesPerFrame, offsets, dataEnd);
+    }
+}
@@ -0,0 +1,148 @@
+package com.music.musiccatalogservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Индексы фреймов MP3 для перемотки по времени и нарезки превью без декодирования.
+ * Индекс строится при загрузке файла и сохраняется в catalog.mp3.index.dir под SHA-256 файла
+ * из хранилища по содержимому; в памяти держатся недавно запрошенные индексы
+ * в пределах catalog.mp3.index.cache-max-size. Для файлов, загруженных раньше,
+ * индекс строится при первом запросе.
+ */
+@Service
+public class Mp3FrameIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(Mp3FrameIndexService.class);
+
+    private static final String MP3_CONTENT_TYPE = "audio/mpeg";
+
+    // Файл не MP3: в кэш нельзя положить null, а сканировать его на каждом запросе незачем
+    private static final Mp3FrameIndex NONE = new Mp3FrameIndex(1, 1, new long[0], 0);
+
+    @Value("${catalog.mp3.index.dir:uploads/mp3index}")
+    private String indexDir;
+
+    @Value("${catalog.mp3.index.cache-max-size:64MB}")
+    private DataSize cacheMaxSize;
+
+    @Autowired
+    private AudioHeaderProbe audioHeaderProbe;
+
+    private Cache<String, Mp3FrameIndex> indexes;
+
+    @PostConstruct
+    public void init() {
+        indexes = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxSize.toBytes())
+                .weigher((String key, Mp3FrameIndex index) -> index.getWeight())
+                .build();
+    }
+
+    /**
+     * Строит и сохраняет индекс только что загруженного файла
+     * @param hash SHA-256 файла из хранилища или null
+     */
+    public void build(Path file, String hash) throws IOException {
+        if (!MP3_CONTENT_TYPE.equals(MediaMetadataService.getAudioContentType(file))) {
+            return;
+        }
+        String key = getKey(file, hash);
+        indexes.put(key, buildAndSave(file, key));
+    }
+
+    /**
+     * @param hash SHA-256 файла из хранилища или null
+     * @return индекс или null, если файл не MP3 или фреймы не нашлись
+     */
+    public Mp3FrameIndex getIndex(Path file, String hash) throws IOException {
+        if (!MP3_CONTENT_TYPE.equals(MediaMetadataService.getAudioContentType(file))) {
+            return null;
+        }
+        String key = getKey(file, hash);
+        try {
+            Mp3FrameIndex index = indexes.get(key, k -> load(file, k));
+            return index == NONE ? null : index;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Mp3FrameIndex load(Path file, String key) {
+        try {
+            Path indexFile = getIndexFile(key);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                return Mp3FrameIndex.readFrom(in);
+            } catch (NoSuchFileException e) {
+                return buildAndSave(file, key);
+            } catch (IOException e) {
+                logger.warn("Rebuilding unreadable frame index {}: {}", indexFile, e.getMessage());
+                return buildAndSave(file, key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Mp3FrameIndex buildAndSave(Path file, String key) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        Mp3FrameIndex index = audioHeaderProbe.indexMp3Frames(file);
+        if (index == null) {
+            return NONE;
+        }
+
+        Path dir = Paths.get(indexDir);
+        Files.createDirectories(dir);
+        Path temp = dir.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                index.writeTo(out);
+            }
+            Files.move(temp, getIndexFile(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        logger.info("Indexed {} MP3 frames of {} in {} ms", index.getFrameCount(), file,
+                System.currentTimeMillis() - startedAt);
+        return index;
+    }
+
+    private Path getIndexFile(String key) {
+        return Paths.get(indexDir, key + ".idx");
+    }
+
+    // Для файлов вне хранилища ключ строится по пути, размеру и времени изменения
+    private String getKey(Path file, String hash) throws IOException {
+        if (hash != null) {
+            return hash;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String source = file.toAbsolutePath().normalize() + "|" + attributes.size() + "|"
+                + attributes.lastModifiedTime().toMillis();
+        return HexFormat.of().formatHex(MediaStoreService.newDigest().digest(source.getBytes(StandardCharsets.UTF_8)));
+    }
+}
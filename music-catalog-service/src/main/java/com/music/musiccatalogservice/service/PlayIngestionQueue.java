@@ -0,0 +1,179 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.entity.TrackPlay;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронный приём прослушиваний.
+ * Запрос только кладёт прослушивание в ограниченную очередь (O(1)), а фоновый поток
+ * сбрасывает накопленное в track_plays пачками - по размеру пачки или по таймеру.
+ * Если очередь заполнена, прослушивание отклоняется (backpressure), а не копится в памяти.
+ */
+@Service
+public class PlayIngestionQueue {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PlayIngestionQueue.class);
+    
+    private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+    
+    @Value("${play.ingestion.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${play.ingestion.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${play.ingestion.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+    
+    @Autowired
+    private TrackPlayService trackPlayService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private BlockingQueue<TrackPlay> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private Counter droppedCounter;
+    private Timer flushTimer;
+    
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        
+        Gauge.builder("track.plays.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Plays waiting to be flushed to track_plays")
+                .register(meterRegistry);
+        acceptedCounter = meterRegistry.counter("track.plays.ingestion.accepted");
+        rejectedCounter = meterRegistry.counter("track.plays.ingestion.rejected");
+        droppedCounter = meterRegistry.counter("track.plays.ingestion.dropped");
+        flushTimer = Timer.builder("track.plays.ingestion.flush")
+                .description("Time spent writing one batch of plays")
+                .register(meterRegistry);
+        
+        running = true;
+        flusher = new Thread(this::runFlusher, "play-ingestion-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Play ingestion started: capacity={}, batchSize={}, flushInterval={}ms",
+                queueCapacity, batchSize, flushIntervalMs);
+    }
+    
+    /**
+     * Ставит прослушивание в очередь на запись
+     * @param trackId идентификатор трека
+     * @return false если очередь заполнена или сервис останавливается
+     */
+    public boolean offer(Long trackId) {
+        if (!running) {
+            rejectedCounter.increment();
+            return false;
+        }
+        
+        TrackPlay play = new TrackPlay();
+        play.setTrackId(trackId);
+        play.setPlayedAt(LocalDateTime.now());
+        
+        if (queue.offer(play)) {
+            acceptedCounter.increment();
+            return true;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            flusher.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        // Если фоновый поток не успел - дописываем остаток сами
+        List<TrackPlay> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            for (int from = 0; from < remaining.size(); from += batchSize) {
+                flush(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+            }
+        }
+        logger.info("Play ingestion stopped");
+    }
+    
+    private void runFlusher() {
+        List<TrackPlay> batch = new ArrayList<>(batchSize);
+        
+        while (running || !queue.isEmpty()) {
+            try {
+                TrackPlay first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                
+                // Добираем пачку до batchSize, но ждём не дольше flushIntervalMs
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    TrackPlay next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void flush(List<TrackPlay> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            int written = trackPlayService.recordPlays(batch);
+            if (written < batch.size()) {
+                droppedCounter.increment(batch.size() - written);
+            }
+        } catch (Exception e) {
+            droppedCounter.increment(batch.size());
+            logger.error("Failed to flush {} plays", batch.size(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
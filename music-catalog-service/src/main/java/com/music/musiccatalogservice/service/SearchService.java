@@ -0,0 +1,155 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.dto.SearchPageDTO;
+import com.music.musiccatalogservice.dto.SearchResultDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Единый поиск по трекам, альбомам и артистам.
+ * Опирается на индексы из V7: триграммный GIN для подстрок и опечаток,
+ * btree text_pattern_ops для префикса. Запросы короче MIN_FUZZY_LENGTH
+ * ищутся только по префиксу - для одной-двух букв триграммы не работают.
+ * Ранжирование: точное совпадение, затем префикс, затем подстрока, затем similarity().
+ */
+@Service
+@Transactional(readOnly = true)
+public class SearchService {
+    
+    public static final String TYPE_TRACK = "track";
+    public static final String TYPE_ALBUM = "album";
+    public static final String TYPE_ARTIST = "artist";
+    
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final int MAX_QUERY_LENGTH = 100;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Глубокие страницы стоят дорого при любом индексе, поэтому глубина ограничена
+    private static final int MAX_OFFSET = 1000;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Ищет по всем типам сразу
+     * @param query строка поиска
+     * @param types типы результатов (track, album, artist); пусто - все
+     * @param page номер страницы с нуля
+     * @param size размер страницы
+     */
+    public SearchPageDTO search(String query, Set<String> types, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new RuntimeException("Search query must not be empty");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new RuntimeException("Invalid page or size, size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // В long: page * size в int переполняется и обходит проверку глубины
+        long requestedOffset = (long) page * size;
+        if (requestedOffset > MAX_OFFSET) {
+            throw new RuntimeException("Page is too deep, refine the search query");
+        }
+        int offset = (int) requestedOffset;
+        
+        String normalized = query.trim().toLowerCase(Locale.ROOT);
+        if (normalized.length() > MAX_QUERY_LENGTH) {
+            normalized = normalized.substring(0, MAX_QUERY_LENGTH);
+        }
+        Set<String> requestedTypes = types == null || types.isEmpty()
+                ? new LinkedHashSet<>(List.of(TYPE_TRACK, TYPE_ALBUM, TYPE_ARTIST))
+                : types;
+        
+        // Каждая ветка отдаёт не больше offset + size + 1 строк, лишняя строка означает наличие следующей страницы
+        int branchLimit = offset + size + 1;
+        boolean fuzzy = normalized.length() >= MIN_FUZZY_LENGTH;
+        
+        List<String> branches = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        if (requestedTypes.contains(TYPE_TRACK)) {
+            branches.add(branch(TYPE_TRACK, "tracks", "title", "artist_id", "album_id", "artwork_path",
+                    normalized, fuzzy, branchLimit, params));
+        }
+        if (requestedTypes.contains(TYPE_ALBUM)) {
+            branches.add(branch(TYPE_ALBUM, "albums", "title", "artist_id", "NULL", "artwork_path",
+                    normalized, fuzzy, branchLimit, params));
+        }
+        if (requestedTypes.contains(TYPE_ARTIST)) {
+            branches.add(branch(TYPE_ARTIST, "artists", "name", "id", "NULL", "image_path",
+                    normalized, fuzzy, branchLimit, params));
+        }
+        if (branches.isEmpty()) {
+            throw new RuntimeException("Unknown search types: " + types);
+        }
+        
+        String sql = "SELECT * FROM (" + String.join(" UNION ALL ", branches) + ") hits " +
+                "ORDER BY match_rank DESC, score DESC, length(title), type, id " +
+                "LIMIT ? OFFSET ?";
+        params.add(size + 1);
+        params.add(offset);
+        
+        List<SearchResultDTO> results = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            SearchResultDTO result = new SearchResultDTO();
+            result.setType(rs.getString("type"));
+            result.setId(rs.getLong("id"));
+            result.setTitle(rs.getString("title"));
+            result.setArtistId(rs.getObject("artist_id", Long.class));
+            result.setAlbumId(rs.getObject("album_id", Long.class));
+            result.setArtworkPath(rs.getString("artwork_path"));
+            result.setScore(rs.getDouble("score"));
+            return result;
+        }, params.toArray());
+        
+        SearchPageDTO searchPage = new SearchPageDTO();
+        searchPage.setQuery(query.trim());
+        searchPage.setPage(page);
+        searchPage.setSize(size);
+        searchPage.setHasMore(results.size() > size);
+        searchPage.setResults(results.size() > size ? results.subList(0, size) : results);
+        return searchPage;
+    }
+    
+    private String branch(String type, String table, String textColumn, String artistColumn, String albumColumn,
+                          String artworkColumn, String query, boolean fuzzy, int limit, List<Object> params) {
+        String text = "lower(" + textColumn + ")";
+        String escaped = escapeLike(query);
+        
+        StringBuilder sql = new StringBuilder("(SELECT '").append(type).append("' AS type, id, ")
+                .append(textColumn).append(" AS title, ")
+                .append(artistColumn).append(" AS artist_id, ")
+                .append(albumColumn).append("::BIGINT AS album_id, ")
+                .append(artworkColumn).append(" AS artwork_path, ")
+                .append("CASE WHEN ").append(text).append(" = ? THEN 3 ")
+                .append("WHEN ").append(text).append(" LIKE ? THEN 2 ")
+                .append("WHEN ").append(text).append(" LIKE ? THEN 1 ELSE 0 END AS match_rank, ")
+                .append("similarity(").append(text).append(", ?) AS score ")
+                .append("FROM ").append(table).append(" WHERE ");
+        params.add(query);
+        params.add(escaped + "%");
+        params.add("%" + escaped + "%");
+        params.add(query);
+        
+        if (fuzzy) {
+            sql.append(text).append(" LIKE ? OR ").append(text).append(" % ?");
+            params.add("%" + escaped + "%");
+            params.add(query);
+        } else {
+            sql.append(text).append(" LIKE ?");
+            params.add(escaped + "%");
+        }
+        
+        sql.append(" ORDER BY match_rank DESC, score DESC LIMIT ?)");
+        params.add(limit);
+        return sql.toString();
+    }
+    
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,624 @@
+package com.music.musiccatalogservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.music.musiccatalogservice.dto.ImportJobDTO;
+import com.music.musiccatalogservice.dto.ImportRequestDTO;
+import com.music.musiccatalogservice.dto.MediaBlobDTO;
+import com.music.musiccatalogservice.entity.Track;
+import com.music.musiccatalogservice.repository.TrackRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Импорт аудио файла трека по URL фоновой задачей.
+ * Запрос только регистрирует задачу и сразу возвращает её id; скачивание идёт
+ * в ограниченном пуле importExecutor через общий HttpClient, а прогресс
+ * (байты, скорость, состояние) доступен для опроса. Задачи живут в памяти
+ * сервиса и удаляются через catalog.import.job-retention-minutes.
+ * <p>
+ * Ожидающие задачи лежат в очередях по хостам; в пул задача попадает, только когда
+ * свободны и общий слот (catalog.import.threads), и слот её хоста (catalog.import.max-per-host).
+ * Поэтому поток пула никогда не ждёт лимита хоста, а один медленный сайт не занимает все слоты.
+ * Оборванная передача продолжается запросом Range с конца частичного файла.
+ * Чтение тела сторожит отдельный поток: если источник молчит дольше
+ * catalog.import.idle-timeout-ms, поток закрывается и передача продолжается как оборванная.
+ */
+@Service
+public class TrackImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TrackImportService.class);
+    
+    public static final String STATE_QUEUED = "QUEUED";
+    public static final String STATE_RUNNING = "RUNNING";
+    public static final String STATE_SUCCEEDED = "SUCCEEDED";
+    public static final String STATE_FAILED = "FAILED";
+    
+    public static final int MAX_BULK_SIZE = 500;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(\\d+|\\*)");
+    
+    @Value("${file.upload.tracks.dir:uploads/tracks}")
+    private String tracksDir;
+    
+    @Value("${catalog.import.threads:4}")
+    private int maxConcurrent;
+    
+    @Value("${catalog.import.max-per-host:2}")
+    private int maxPerHost;
+    
+    @Value("${catalog.import.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${catalog.import.max-resume-attempts:3}")
+    private int maxResumeAttempts;
+    
+    @Value("${catalog.import.response-timeout-ms:60000}")
+    private long responseTimeoutMs;
+    
+    @Value("${catalog.import.idle-timeout-ms:60000}")
+    private long idleTimeoutMs;
+    
+    @Value("${catalog.import.max-transfer-ms:600000}")
+    private long maxTransferMs;
+    
+    @Value("${catalog.import.job-retention-minutes:60}")
+    private long jobRetentionMinutes;
+    
+    @Autowired
+    private HttpClient importHttpClient;
+    
+    @Autowired
+    @Qualifier("importExecutor")
+    private ExecutorService importExecutor;
+    
+    @Autowired
+    private FileDownloadService fileDownloadService;
+    
+    @Autowired
+    private AudioDurationService audioDurationService;
+    
+    @Autowired
+    private TrackRepository trackRepository;
+    
+    @Autowired
+    private MediaStoreService mediaStoreService;
+    
+    @Autowired
+    private MediaMetadataService mediaMetadataService;
+    
+    private Cache<String, ImportJob> jobs;
+    
+    // Свой планировщик, а не бин: бин ScheduledExecutorService подменил бы планировщик @Scheduled
+    private ScheduledExecutorService watchdog;
+    
+    // Очереди и счётчики диспетчера; доступ только под монитором this
+    private final Map<String, Deque<ImportJob>> pendingByHost = new LinkedHashMap<>();
+    private final Map<String, Integer> activeByHost = new HashMap<>();
+    private int pending;
+    private int active;
+    
+    @PostConstruct
+    public void init() {
+        jobs = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(jobRetentionMinutes, TimeUnit.MINUTES)
+                .build();
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "track-import-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+    
+    /**
+     * Ставит импорт в очередь и сразу возвращает задачу
+     * @throws RejectedExecutionException если очередь импортов заполнена
+     */
+    public ImportJobDTO startImport(Long trackId, String fileUrl) {
+        URI uri = parseUrl(fileUrl);
+        if (!trackRepository.existsById(trackId)) {
+            throw new RuntimeException("Track not found");
+        }
+        
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), trackId, uri);
+        enqueue(List.of(job));
+        return convertToDTO(job);
+    }
+    
+    /**
+     * Ставит в очередь пачку импортов. Возвращаемый поток сначала отдаёт пары с неверным URL
+     * или несуществующим треком (FAILED, без id), затем все принятые задачи с их id в состоянии
+     * на момент постановки, затем результаты по мере завершения, а не в порядке запроса.
+     * Проверки и постановка в очередь выполняются сразу; возвращаемый поток блокируется
+     * на ожидании очередного завершённого импорта, но не дольше maxWait: импорты, не успевшие
+     * завершиться, продолжаются, и их состояние клиент получает опросом по id.
+     * @throws RejectedExecutionException если пачка не помещается в очередь импортов
+     */
+    public Stream<ImportJobDTO> bulkImport(List<ImportRequestDTO> requests, Duration maxWait) {
+        if (requests == null || requests.isEmpty()) {
+            throw new RuntimeException("Import list must not be empty");
+        }
+        if (requests.size() > MAX_BULK_SIZE) {
+            throw new RuntimeException("Too many imports in one request, maximum is " + MAX_BULK_SIZE);
+        }
+        
+        Set<Long> trackIds = requests.stream()
+                .map(ImportRequestDTO::getTrackId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> existing = trackIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(trackRepository.findExistingIds(trackIds));
+        
+        List<ImportJob> accepted = new ArrayList<>();
+        List<ImportJobDTO> rejected = new ArrayList<>();
+        for (ImportRequestDTO request : requests) {
+            try {
+                URI uri = parseUrl(request.getUrl());
+                if (!existing.contains(request.getTrackId())) {
+                    throw new RuntimeException("Track not found");
+                }
+                accepted.add(new ImportJob(UUID.randomUUID().toString(), request.getTrackId(), uri));
+            } catch (RuntimeException e) {
+                ImportJobDTO failed = new ImportJobDTO();
+                failed.setTrackId(request.getTrackId());
+                failed.setUrl(request.getUrl());
+                failed.setState(STATE_FAILED);
+                failed.setError(e.getMessage());
+                rejected.add(failed);
+            }
+        }
+        
+        BlockingQueue<ImportJobDTO> finished = new LinkedBlockingQueue<>();
+        for (ImportJob job : accepted) {
+            job.done.thenAccept(finished::add);
+        }
+        enqueue(accepted);
+        List<ImportJobDTO> queued = accepted.stream().map(this::convertToDTO).toList();
+        
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        Stream<ImportJobDTO> completed = Stream.generate(() -> {
+            try {
+                // null - время ожидания вышло, остальные результаты доступны по id
+                return finished.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // Импорты продолжаются, их состояние доступно по id
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for imports");
+            }
+        }).limit(accepted.size()).takeWhile(Objects::nonNull);
+        return Stream.concat(Stream.concat(rejected.stream(), queued.stream()), completed);
+    }
+    
+    public ImportJobDTO getJob(String jobId) {
+        ImportJob job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found");
+        }
+        return convertToDTO(job);
+    }
+    
+    private URI parseUrl(String fileUrl) {
+        fileDownloadService.validateUrl(fileUrl);
+        try {
+            URI uri = URI.create(fileUrl.trim());
+            if (uri.getHost() == null) {
+                throw new IllegalArgumentException("no host");
+            }
+            return uri;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid URL: " + fileUrl);
+        }
+    }
+    
+    // Диспетчер
+    
+    private void enqueue(List<ImportJob> newJobs) {
+        synchronized (this) {
+            if (pending + newJobs.size() > queueCapacity) {
+                throw new RejectedExecutionException("Import queue is full");
+            }
+            for (ImportJob job : newJobs) {
+                jobs.put(job.id, job);
+                pendingByHost.computeIfAbsent(job.host, host -> new ArrayDeque<>()).add(job);
+            }
+            pending += newJobs.size();
+        }
+        dispatch();
+    }
+    
+    /**
+     * Отдаёт в пул столько ожидающих задач, сколько позволяют общий лимит и лимиты хостов.
+     * Хосты обходятся по кругу: хост, получивший слот, уходит в конец очереди.
+     */
+    private void dispatch() {
+        List<ImportJob> toStart = new ArrayList<>();
+        synchronized (this) {
+            boolean progress = true;
+            while (active < maxConcurrent && progress) {
+                progress = false;
+                Iterator<Map.Entry<String, Deque<ImportJob>>> hosts = pendingByHost.entrySet().iterator();
+                while (hosts.hasNext() && active < maxConcurrent) {
+                    Map.Entry<String, Deque<ImportJob>> entry = hosts.next();
+                    String host = entry.getKey();
+                    if (activeByHost.getOrDefault(host, 0) >= maxPerHost) {
+                        continue;
+                    }
+                    ImportJob job = entry.getValue().poll();
+                    hosts.remove();
+                    if (!entry.getValue().isEmpty()) {
+                        pendingByHost.put(host, entry.getValue());
+                    }
+                    activeByHost.merge(host, 1, Integer::sum);
+                    active++;
+                    pending--;
+                    toStart.add(job);
+                    progress = true;
+                    // Итератор недействителен после put - начинаем обход заново
+                    break;
+                }
+            }
+        }
+        for (ImportJob job : toStart) {
+            try {
+                importExecutor.execute(() -> {
+                    try {
+                        run(job);
+                    } finally {
+                        release(job);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Пул остановлен или переполнен: задача завершается ошибкой и освобождает свои слоты
+                logger.warn("Import job {} rejected by executor", job.id);
+                job.error = "Import executor rejected the job";
+                job.state = STATE_FAILED;
+                job.finishedNanos = System.nanoTime();
+                job.finishedAt = LocalDateTime.now();
+                release(job);
+            }
+        }
+    }
+    
+    private void release(ImportJob job) {
+        synchronized (this) {
+            active--;
+            activeByHost.computeIfPresent(job.host, (host, count) -> count > 1 ? count - 1 : null);
+        }
+        job.done.complete(convertToDTO(job));
+        dispatch();
+    }
+    
+    // Скачивание
+    
+    private void run(ImportJob job) {
+        job.startedNanos = System.nanoTime();
+        job.startedAt = LocalDateTime.now();
+        job.state = STATE_RUNNING;
+        
+        Path partPath = null;
+        try {
+            Path trackDir = Paths.get(tracksDir, job.trackId.toString());
+            Files.createDirectories(trackDir);
+            partPath = trackDir.resolve(job.id + ".part");
+            
+            download(job, partPath);
+            // Докачанный файл целиком переносится в хранилище: плеер не увидит недокачанный файл.
+            // Хэш считается отдельным чтением - продолжение по Range и повтор с нуля не ломают его
+            MediaBlobDTO blob = mediaStoreService.storeFile(partPath,
+                    fileDownloadService.getFileExtensionFromUrl(job.uri.toString()), null);
+            Path filePath = Paths.get(blob.getPath());
+            
+            Track track = trackRepository.findByIdUncached(job.trackId)
+                    .orElseThrow(() -> new RuntimeException("Track not found"));
+            mediaStoreService.deleteLegacyFile(track.getFilePath(), track.getFileHash());
+            track.setFilePath(blob.getPath());
+            track.setFileHash(blob.getHash());
+            Integer duration = audioDurationService.getDurationSeconds(filePath);
+            if (duration != null && duration > 0) {
+                track.setDurationSeconds(duration);
+                job.durationSeconds = duration;
+            }
+            mediaMetadataService.apply(track, filePath);
+            trackRepository.save(track);
+            
+            job.state = STATE_SUCCEEDED;
+            logger.info("Import job {} finished: track {}, {} bytes, {} resumes",
+                    job.id, job.trackId, job.bytesReceived, job.resumes);
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.state = STATE_FAILED;
+            logger.warn("Import job {} for track {} failed: {}", job.id, job.trackId, e.getMessage());
+            if (partPath != null) {
+                try {
+                    Files.deleteIfExists(partPath);
+                } catch (IOException ex) {
+                    logger.warn("Could not delete partial file {}", partPath, ex);
+                }
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            job.finishedNanos = System.nanoTime();
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+    
+    /**
+     * Скачивает файл, при обрыве продолжая с конца частичного файла.
+     * Ошибки HTTP-статуса, размера и общего времени не повторяются.
+     */
+    private void download(ImportJob job, Path target) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxTransferMs);
+        while (true) {
+            long offset = Files.exists(target) ? Files.size(target) : 0;
+            try {
+                transfer(job, target, offset, deadline);
+                return;
+            } catch (ImportAbortedException e) {
+                throw e;
+            } catch (IOException e) {
+                long partial = Files.exists(target) ? Files.size(target) : 0;
+                if (partial == 0 || job.resumes >= maxResumeAttempts || System.nanoTime() > deadline) {
+                    throw e;
+                }
+                job.resumes++;
+                logger.info("Import job {} interrupted at {} bytes, resuming ({}/{}): {}",
+                        job.id, partial, job.resumes, maxResumeAttempts, e.getMessage());
+            }
+        }
+    }
+    
+    private void transfer(ImportJob job, Path target, long offset, long deadline) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(job.uri)
+                .timeout(Duration.ofMillis(responseTimeoutMs))
+                .header("User-Agent", FileDownloadService.USER_AGENT)
+                .GET();
+        if (offset > 0) {
+            builder.header("Range", "bytes=" + offset + "-");
+            // Если файл на источнике изменился, сервер ответит 200 целиком, а не куском другой версии
+            if (job.validator != null) {
+                builder.header("If-Range", job.validator);
+            }
+        }
+        HttpResponse<InputStream> response = importHttpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        
+        try (InputStream body = response.body();
+             IdleWatchdog guard = new IdleWatchdog(body, deadline)) {
+            boolean append = false;
+            if (offset > 0 && response.statusCode() == 206) {
+                Matcher range = CONTENT_RANGE.matcher(response.headers().firstValue("Content-Range").orElse(""));
+                if (!range.matches() || Long.parseLong(range.group(1)) != offset) {
+                    throw new ImportAbortedException("Неожиданный Content-Range при продолжении скачивания");
+                }
+                if (!"*".equals(range.group(2))) {
+                    job.totalBytes = Long.parseLong(range.group(2));
+                }
+                job.bytesReceived = offset;
+                append = true;
+            } else if (response.statusCode() == 200) {
+                long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+                job.totalBytes = contentLength >= 0 ? contentLength : null;
+                job.bytesReceived = 0;
+                job.validator = response.headers().firstValue("ETag")
+                        .filter(etag -> !etag.startsWith("W/"))
+                        .or(() -> response.headers().firstValue("Last-Modified"))
+                        .orElse(null);
+                response.headers().firstValue("Content-Type")
+                        .filter(contentType -> !fileDownloadService.isAudioFile(contentType))
+                        .ifPresent(contentType -> logger.warn("Content-Type не является аудио файлом: {}", contentType));
+            } else {
+                throw new ImportAbortedException("HTTP ошибка: " + response.statusCode());
+            }
+            if (job.totalBytes != null && job.totalBytes > FileDownloadService.MAX_FILE_SIZE) {
+                throw new ImportAbortedException("Файл слишком большой (максимум 100 MB)");
+            }
+            
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (OutputStream out = append
+                    ? Files.newOutputStream(target, StandardOpenOption.APPEND)
+                    : Files.newOutputStream(target)) {
+                int read;
+                while ((read = guard.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    job.bytesReceived += read;
+                    if (job.bytesReceived > FileDownloadService.MAX_FILE_SIZE) {
+                        throw new ImportAbortedException("Файл слишком большой (максимум 100 MB)");
+                    }
+                    if (System.nanoTime() > deadline) {
+                        throw new ImportAbortedException("Превышено время скачивания");
+                    }
+                }
+            }
+            if (job.totalBytes != null && job.bytesReceived < job.totalBytes) {
+                throw new IOException("Соединение закрыто после " + job.bytesReceived + " из " + job.totalBytes + " байт");
+            }
+        }
+    }
+    
+    private ImportJobDTO convertToDTO(ImportJob job) {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setJobId(job.id);
+        dto.setTrackId(job.trackId);
+        dto.setUrl(job.uri.toString());
+        dto.setState(job.state);
+        dto.setBytesReceived(job.bytesReceived);
+        dto.setTotalBytes(job.totalBytes);
+        dto.setResumes(job.resumes);
+        dto.setDurationSeconds(job.durationSeconds);
+        dto.setError(job.error);
+        dto.setCreatedAt(job.createdAt);
+        dto.setStartedAt(job.startedAt);
+        dto.setFinishedAt(job.finishedAt);
+        
+        // Средняя скорость с начала скачивания
+        if (job.startedAt != null) {
+            long end = job.finishedAt != null ? job.finishedNanos : System.nanoTime();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(end - job.startedNanos);
+            dto.setBytesPerSecond(elapsedMs > 0 ? job.bytesReceived * 1000 / elapsedMs : 0);
+        }
+        return dto;
+    }
+    
+    /**
+     * Состояние задачи: пишет только поток импорта, читают потоки запросов
+     */
+    private static class ImportJob {
+        private final String id;
+        private final Long trackId;
+        private final URI uri;
+        private final String host;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final CompletableFuture<ImportJobDTO> done = new CompletableFuture<>();
+        private volatile String state = STATE_QUEUED;
+        private volatile long bytesReceived;
+        private volatile Long totalBytes;
+        private volatile int resumes;
+        private volatile String validator;
+        private volatile Integer durationSeconds;
+        private volatile String error;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        
+        private ImportJob(String id, Long trackId, URI uri) {
+            this.id = id;
+            this.trackId = trackId;
+            this.uri = uri;
+            this.host = uri.getHost().toLowerCase() + ":" + uri.getPort();
+        }
+    }
+    
+    /**
+     * Сторож чтения тела ответа. HttpRequest.timeout ограничивает только ожидание заголовков,
+     * а read() на молчащем источнике блокируется навсегда; сторож закрывает поток, если данных
+     * нет дольше idleTimeoutMs или истёк общий срок, и read() завершается ошибкой.
+     * Простой - обычный обрыв, после него скачивание продолжается по Range; истёкший срок - нет.
+     */
+    private class IdleWatchdog implements AutoCloseable {
+        private final InputStream body;
+        private final long deadline;
+        private final ScheduledFuture<?> task;
+        private volatile long lastProgressNanos = System.nanoTime();
+        private volatile boolean idle;
+        private volatile boolean expired;
+        
+        private IdleWatchdog(InputStream body, long deadline) {
+            this.body = body;
+            this.deadline = deadline;
+            long period = Math.max(idleTimeoutMs / 4, 10);
+            this.task = watchdog.scheduleWithFixedDelay(this::check, period, period, TimeUnit.MILLISECONDS);
+        }
+        
+        private int read(byte[] buffer) throws IOException {
+            int read;
+            try {
+                read = body.read(buffer);
+            } catch (IOException e) {
+                throw fired(e);
+            }
+            if (idle || expired) {
+                throw fired(null);
+            }
+            lastProgressNanos = System.nanoTime();
+            return read;
+        }
+        
+        private IOException fired(IOException cause) {
+            if (expired) {
+                return new ImportAbortedException("Превышено время скачивания");
+            }
+            if (idle) {
+                return new IOException("Источник не присылает данные дольше " + idleTimeoutMs + " мс", cause);
+            }
+            return cause;
+        }
+        
+        private void check() {
+            if (idle || expired) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now > deadline) {
+                expired = true;
+            } else if (now - lastProgressNanos > TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs)) {
+                idle = true;
+            } else {
+                return;
+            }
+            try {
+                body.close();
+            } catch (IOException e) {
+                logger.debug("Could not close stalled import stream", e);
+            }
+        }
+        
+        @Override
+        public void close() {
+            task.cancel(false);
+        }
+    }
+    
+    /**
+     * Ошибка, после которой продолжать скачивание бессмысленно
+     */
+    private static class ImportAbortedException extends IOException {
+        private ImportAbortedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.repository.TrackPlayDailyRepository;
+import com.music.musiccatalogservice.repository.TrackPlayHourlyRepository;
+import com.music.musiccatalogservice.repository.TrackPlayRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Обслуживание корзин прослушиваний: перестройка из track_plays и очистка старых часовых корзин.
+ */
+@Service
+public class TrackPlayRollupService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TrackPlayRollupService.class);
+    
+    // Часовые корзины нужны только для окна "day", остальное считается по дневным
+    private static final long HOURLY_RETENTION_HOURS = 48;
+    
+    @Autowired
+    private TrackPlayRepository trackPlayRepository;
+    
+    @Autowired
+    private TrackPlayHourlyRepository trackPlayHourlyRepository;
+    
+    @Autowired
+    private TrackPlayDailyRepository trackPlayDailyRepository;
+    
+    /**
+     * Полностью перестраивает корзины по истории track_plays.
+     * На время перестройки вставка новых прослушиваний блокируется, поэтому результат точный.
+     * @return количество записанных часовых и дневных корзин
+     */
+    @Transactional
+    public Map<String, Integer> rebuildRollups() {
+        long started = System.currentTimeMillis();
+        
+        trackPlayRepository.lockForRollupRebuild();
+        trackPlayHourlyRepository.deleteAllBuckets();
+        trackPlayDailyRepository.deleteAllBuckets();
+        
+        LocalDateTime hourlySince = LocalDateTime.now()
+                .minusHours(HOURLY_RETENTION_HOURS)
+                .truncatedTo(ChronoUnit.HOURS);
+        int hourly = trackPlayHourlyRepository.rebuildFromPlaysSince(hourlySince);
+        int daily = trackPlayDailyRepository.rebuildFromPlays();
+        
+        logger.info("Rebuilt play rollups: {} hourly and {} daily buckets in {} ms",
+                hourly, daily, System.currentTimeMillis() - started);
+        
+        Map<String, Integer> result = new HashMap<>();
+        result.put("hourlyBuckets", hourly);
+        result.put("dailyBuckets", daily);
+        return result;
+    }
+    
+    /**
+     * При первом запуске после миграции корзины пустые - заполняем их из существующей истории.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (trackPlayDailyRepository.count() == 0 && trackPlayRepository.count() > 0) {
+            logger.info("Play rollups are empty, backfilling from track_plays history");
+            rebuildRollups();
+        }
+    }
+    
+    @Scheduled(cron = "0 5 * * * *")
+    @Transactional
+    public void purgeExpiredHourlyBuckets() {
+        LocalDateTime before = LocalDateTime.now()
+                .minusHours(HOURLY_RETENTION_HOURS)
+                .truncatedTo(ChronoUnit.HOURS);
+        int deleted = trackPlayHourlyRepository.deleteByBucketStartBefore(before);
+        if (deleted > 0) {
+            logger.info("Purged {} expired hourly play buckets", deleted);
+        }
+    }
+}
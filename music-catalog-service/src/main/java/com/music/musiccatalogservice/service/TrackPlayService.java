@@ -1,27 +1,116 @@
 package com.music.musiccatalogservice.service;
 
 import com.music.musiccatalogservice.entity.TrackPlay;
+import com.music.musiccatalogservice.entity.TrackPlayHourly.TrackPlayBucketId;
+import com.music.musiccatalogservice.repository.TrackPlayDailyRepository;
+import com.music.musiccatalogservice.repository.TrackPlayHourlyRepository;
 import com.music.musiccatalogservice.repository.TrackPlayRepository;
+import com.music.musiccatalogservice.repository.TrackRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class TrackPlayService {
     
+    // Ограничение на размер IN (...) в одном запросе к корзинам
+    private static final int ROLLUP_QUERY_CHUNK = 1000;
+    
+    private static final String INSERT_PLAY_SQL =
+            "INSERT INTO track_plays (track_id, played_at) VALUES (?, ?)";
+    
+    private static final String UPSERT_HOURLY_SQL =
+            "INSERT INTO track_play_hourly (track_id, bucket_start, play_count) VALUES (?, ?, ?) " +
+            "ON CONFLICT (track_id, bucket_start) " +
+            "DO UPDATE SET play_count = track_play_hourly.play_count + EXCLUDED.play_count";
+    
+    private static final String UPSERT_DAILY_SQL =
+            "INSERT INTO track_play_daily (track_id, bucket_start, play_count) VALUES (?, ?, ?) " +
+            "ON CONFLICT (track_id, bucket_start) " +
+            "DO UPDATE SET play_count = track_play_daily.play_count + EXCLUDED.play_count";
+    
     @Autowired
     private TrackPlayRepository trackPlayRepository;
     
-    public void recordPlay(Long trackId) {
-        TrackPlay trackPlay = new TrackPlay();
-        trackPlay.setTrackId(trackId);
-        trackPlayRepository.save(trackPlay);
+    @Autowired
+    private TrackPlayHourlyRepository trackPlayHourlyRepository;
+    
+    @Autowired
+    private TrackPlayDailyRepository trackPlayDailyRepository;
+    
+    @Autowired
+    private TrackRepository trackRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Записывает пачку прослушиваний пакетными вставками JDBC.
+     * Корзины обновляются в той же транзакции: прослушивания сначала суммируются по (трек, корзина),
+     * поэтому на каждую корзину приходится один upsert на всю пачку.
+     * Прослушивания удалённых или несуществующих треков отбрасываются.
+     * @param plays прослушивания с заполненными trackId и playedAt
+     * @return количество записанных прослушиваний
+     */
+    public int recordPlays(List<TrackPlay> plays) {
+        if (plays == null || plays.isEmpty()) {
+            return 0;
+        }
+        
+        Set<Long> trackIds = plays.stream().map(TrackPlay::getTrackId).collect(Collectors.toSet());
+        Set<Long> existingIds = new HashSet<>(trackRepository.findExistingIds(trackIds));
+        List<TrackPlay> valid = plays.stream()
+                .filter(play -> existingIds.contains(play.getTrackId()))
+                .collect(Collectors.toList());
+        if (valid.isEmpty()) {
+            return 0;
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_PLAY_SQL, valid, valid.size(), (ps, play) -> {
+            ps.setLong(1, play.getTrackId());
+            ps.setTimestamp(2, Timestamp.valueOf(play.getPlayedAt()));
+        });
+        
+        Map<TrackPlayBucketId, Long> hourly = new HashMap<>();
+        Map<TrackPlayBucketId, Long> daily = new HashMap<>();
+        for (TrackPlay play : valid) {
+            hourly.merge(new TrackPlayBucketId(play.getTrackId(),
+                    play.getPlayedAt().truncatedTo(ChronoUnit.HOURS)), 1L, Long::sum);
+            daily.merge(new TrackPlayBucketId(play.getTrackId(),
+                    play.getPlayedAt().truncatedTo(ChronoUnit.DAYS)), 1L, Long::sum);
+        }
+        upsertBuckets(UPSERT_HOURLY_SQL, hourly);
+        upsertBuckets(UPSERT_DAILY_SQL, daily);
+        
+        return valid.size();
+    }
+    
+    private void upsertBuckets(String sql, Map<TrackPlayBucketId, Long> buckets) {
+        List<Map.Entry<TrackPlayBucketId, Long>> entries = new ArrayList<>(buckets.entrySet());
+        // Один порядок блокировки строк во всех экземплярах: параллельные сбросы не взаимоблокируются
+        entries.sort(Comparator.comparing((Map.Entry<TrackPlayBucketId, Long> entry) -> entry.getKey().getTrackId())
+                .thenComparing(entry -> entry.getKey().getBucketStart()));
+        jdbcTemplate.batchUpdate(sql, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getKey().getTrackId());
+            ps.setTimestamp(2, Timestamp.valueOf(entry.getKey().getBucketStart()));
+            ps.setLong(3, entry.getValue());
+        });
     }
     
     @Transactional(readOnly = true)
@@ -36,19 +125,58 @@ public class TrackPlayService {
     
     @Transactional(readOnly = true)
     public Map<String, Long> getPlayCounts(Long trackId) {
-        Map<String, Long> counts = new HashMap<>();
+        return getPlayCounts(List.of(trackId)).get(trackId);
+    }
+    
+    /**
+     * Возвращает счётчики прослушиваний (day/week/month/all) для набора треков.
+     * Считается по предагрегированным корзинам: два запроса на каждые 1000 треков
+     * вместо четырёх COUNT по track_plays на каждый трек.
+     * Границы периодов выровнены по корзинам: "day" - по часу, "week"/"month" - по суткам.
+     * @param trackIds идентификаторы треков
+     * @return счётчики для каждого запрошенного трека (нули, если прослушиваний не было)
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Map<String, Long>> getPlayCounts(Collection<Long> trackIds) {
+        Map<Long, Map<String, Long>> result = new HashMap<>();
+        if (trackIds == null || trackIds.isEmpty()) {
+            return result;
+        }
+        
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(trackIds));
+        for (Long id : ids) {
+            Map<String, Long> counts = new HashMap<>();
+            counts.put("all", 0L);
+            counts.put("day", 0L);
+            counts.put("week", 0L);
+            counts.put("month", 0L);
+            result.put(id, counts);
+        }
         
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime dayAgo = now.minusDays(1);
-        LocalDateTime weekAgo = now.minusWeeks(1);
-        LocalDateTime monthAgo = now.minusMonths(1);
+        LocalDateTime dayStart = now.minusDays(1).truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime weekStart = now.minusWeeks(1).truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime monthStart = now.minusMonths(1).truncatedTo(ChronoUnit.DAYS);
         
-        counts.put("all", getPlayCount(trackId));
-        counts.put("day", getPlayCountSince(trackId, dayAgo));
-        counts.put("week", getPlayCountSince(trackId, weekAgo));
-        counts.put("month", getPlayCountSince(trackId, monthAgo));
+        for (int from = 0; from < ids.size(); from += ROLLUP_QUERY_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + ROLLUP_QUERY_CHUNK, ids.size()));
+            
+            for (Object[] row : trackPlayDailyRepository.sumByTrackIds(chunk, monthStart, weekStart)) {
+                Map<String, Long> counts = result.get((Long) row[0]);
+                counts.put("all", toLong(row[1]));
+                counts.put("month", toLong(row[2]));
+                counts.put("week", toLong(row[3]));
+            }
+            
+            for (Object[] row : trackPlayHourlyRepository.sumByTrackIdsSince(chunk, dayStart)) {
+                result.get((Long) row[0]).put("day", toLong(row[1]));
+            }
+        }
         
-        return counts;
+        return result;
+    }
+    
+    private static Long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
     }
 }
-
@@ -1,26 +1,55 @@
 package com.music.musiccatalogservice.service;
 
+import com.music.musiccatalogservice.config.CacheConfig;
+import com.music.common.dto.CursorPage;
 import com.music.musiccatalogservice.dto.TrackDTO;
 import com.music.musiccatalogservice.entity.Track;
 import com.music.musiccatalogservice.repository.TrackRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class TrackService {
     
+    private static final int MAX_BATCH_IDS = 1000;
+    private static final int MAX_SAMPLE_SIZE = 100;
+    private static final int SAMPLE_ROUNDS = 3;
+    // Жанр не больше этого размера выбирается через ORDER BY random() без перекоса
+    private static final int RANDOM_ORDER_MAX_GENRE_SIZE = 1000;
+    // Счётчики прослушиваний при потоковой выдаче запрашиваются пачками такого размера
+    private static final int STREAM_CHUNK_SIZE = 500;
+    
     @Autowired
     private TrackRepository trackRepository;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     @Autowired
     private TrackPlayService trackPlayService;
     
+    @Autowired
+    private MediaMetadataService mediaMetadataService;
+    
+    @CacheEvict(cacheNames = CacheConfig.GENRES, allEntries = true)
     public TrackDTO createTrack(TrackDTO trackDTO) {
         Track track = new Track();
         track.setAlbumId(trackDTO.getAlbumId());
@@ -37,23 +66,140 @@ public class TrackService {
     
     @Transactional(readOnly = true)
     public List<TrackDTO> getAllTracks() {
-        return trackRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(trackRepository.findAll());
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<TrackDTO> getAllTracks(String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Track> rows = trackRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Track::getId, this::convertToDTOs);
+    }
+    
+    /**
+     * Отдаёт все треки по одному, не собирая их в список.
+     * Строки читаются курсором БД, DTO собираются порциями по STREAM_CHUNK_SIZE; после каждой
+     * порции контекст персистентности очищается, так что память не растёт с размером каталога.
+     * @param consumer получатель DTO, вызывается в порядке id
+     */
+    @Transactional(readOnly = true)
+    public void streamAllTracks(Consumer<TrackDTO> consumer) {
+        try (Stream<Track> tracks = trackRepository.streamAllByOrderByIdAsc()) {
+            List<Track> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            tracks.forEach(track -> {
+                chunk.add(track);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    flushChunk(chunk, consumer);
+                }
+            });
+            flushChunk(chunk, consumer);
+        }
+    }
+    
+    private void flushChunk(List<Track> chunk, Consumer<TrackDTO> consumer) {
+        convertToDTOs(chunk).forEach(consumer);
+        chunk.clear();
+        entityManager.clear();
     }
     
     @Transactional(readOnly = true)
     public List<TrackDTO> getTracksByArtistId(Long artistId) {
-        return trackRepository.findByArtistId(artistId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(trackRepository.findByArtistId(artistId));
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<TrackDTO> getTracksByArtistId(Long artistId, String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Track> rows = trackRepository.findByArtistIdAndIdGreaterThanOrderByIdAsc(
+                artistId, afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Track::getId, this::convertToDTOs);
     }
     
     @Transactional(readOnly = true)
     public List<TrackDTO> getTracksByAlbumId(Long albumId) {
-        return trackRepository.findByAlbumId(albumId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(trackRepository.findByAlbumId(albumId));
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<TrackDTO> getTracksByAlbumId(Long albumId, String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Track> rows = trackRepository.findByAlbumIdAndIdGreaterThanOrderByIdAsc(
+                albumId, afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Track::getId, this::convertToDTOs);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<TrackDTO> getTracksByGenre(String genre, String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Track> rows = trackRepository.findByGenreAndIdGreaterThanOrderByIdAsc(
+                genre, afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Track::getId, this::convertToDTOs);
+    }
+    
+    /**
+     * Случайная выборка треков жанра.
+     * Жанр до RANDOM_ORDER_MAX_GENRE_SIZE треков выбирается равномерно через ORDER BY random().
+     * В большом жанре берутся случайные точки в диапазоне id жанра и для каждой точки -
+     * первый трек с id не меньше неё. Выборка неравномерная: вероятность трека пропорциональна
+     * «дыре» в id жанра перед ним, поэтому треки после больших дыр (удалённые треки, треки
+     * других жанров) выпадают заметно чаще. Если после SAMPLE_ROUNDS точки так и не дали
+     * size разных треков, выборка добирается подряд идущими треками от случайной точки.
+     * @param size размер выборки
+     */
+    @Transactional(readOnly = true)
+    public List<TrackDTO> sampleTracksByGenre(String genre, int size) {
+        if (size < 1 || size > MAX_SAMPLE_SIZE) {
+            throw new RuntimeException("Sample size must be between 1 and " + MAX_SAMPLE_SIZE);
+        }
+        
+        if (trackRepository.countByGenreUpTo(genre, RANDOM_ORDER_MAX_GENRE_SIZE + 1) <= RANDOM_ORDER_MAX_GENRE_SIZE) {
+            return convertToDTOs(trackRepository.findRandomByGenre(genre, size));
+        }
+        
+        Object[] range = trackRepository.findIdRangeByGenre(genre).get(0);
+        long minId = ((Number) range[0]).longValue();
+        long maxId = ((Number) range[1]).longValue();
+        
+        Map<Long, Track> sample = new LinkedHashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int round = 0; round < SAMPLE_ROUNDS && sample.size() < size; round++) {
+            // Точки с запасом: несколько точек в одной «дыре» id дают один и тот же трек
+            String pivots = random.longs(2L * (size - sample.size()), minId, maxId + 1)
+                    .mapToObj(String::valueOf)
+                    .collect(Collectors.joining(","));
+            for (Track track : trackRepository.findFirstByGenreFromPivots(genre, pivots)) {
+                if (sample.size() >= size) {
+                    break;
+                }
+                sample.putIfAbsent(track.getId(), track);
+            }
+        }
+        
+        // Точки попадали в одни и те же «дыры»: добираем подряд от случайной точки, с переходом в начало жанра
+        long from = random.nextLong(minId, maxId + 1) - 1;
+        boolean wrapped = false;
+        while (sample.size() < size) {
+            List<Track> run = trackRepository.findByGenreAndIdGreaterThanOrderByIdAsc(
+                    genre, from, PageRequest.of(0, size));
+            for (Track track : run) {
+                if (sample.size() >= size) {
+                    break;
+                }
+                sample.putIfAbsent(track.getId(), track);
+            }
+            if (run.size() == size) {
+                from = run.get(run.size() - 1).getId();
+            } else if (!wrapped) {
+                wrapped = true;
+                from = minId - 1;
+            } else {
+                break;
+            }
+        }
+        
+        List<Track> tracks = new ArrayList<>(sample.values());
+        Collections.shuffle(tracks);
+        return convertToDTOs(tracks);
     }
     
     @Transactional(readOnly = true)
@@ -63,8 +209,32 @@ public class TrackService {
         return convertToDTO(track);
     }
     
+    @Transactional(readOnly = true)
+    public List<TrackDTO> getTracksByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new RuntimeException("Too many track ids, maximum is " + MAX_BATCH_IDS);
+        }
+        
+        Map<Long, Track> found = trackRepository.findAllById(new LinkedHashSet<>(ids)).stream()
+                .collect(Collectors.toMap(Track::getId, Function.identity()));
+        
+        // Keep the order the caller asked for, skipping ids that no longer exist
+        List<Track> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Track track = found.get(id);
+            if (track != null) {
+                ordered.add(track);
+            }
+        }
+        return convertToDTOs(ordered);
+    }
+    
+    @CacheEvict(cacheNames = CacheConfig.GENRES, allEntries = true)
     public TrackDTO updateTrack(Long id, TrackDTO trackDTO) {
-        Track track = trackRepository.findById(id)
+        Track track = trackRepository.findByIdUncached(id)
                 .orElseThrow(() -> new RuntimeException("Track not found with id: " + id));
         
         if (trackDTO.getTitle() != null) {
@@ -78,21 +248,27 @@ public class TrackService {
         }
         if (trackDTO.getDurationSeconds() != null) {
             track.setDurationSeconds(trackDTO.getDurationSeconds());
+            track.setBitrateKbps(MediaMetadataService.getBitrateKbps(track.getFileSizeBytes(), track.getDurationSeconds()));
         }
-        if (trackDTO.getFilePath() != null) {
+        // Путь, заданный вручную, больше не ссылается на файл из хранилища
+        if (trackDTO.getFilePath() != null && !trackDTO.getFilePath().equals(track.getFilePath())) {
             track.setFilePath(trackDTO.getFilePath());
+            track.setFileHash(null);
+            mediaMetadataService.clear(track);
         }
         if (trackDTO.getGenre() != null) {
             track.setGenre(trackDTO.getGenre());
         }
-        if (trackDTO.getArtworkPath() != null) {
+        if (trackDTO.getArtworkPath() != null && !trackDTO.getArtworkPath().equals(track.getArtworkPath())) {
             track.setArtworkPath(trackDTO.getArtworkPath());
+            track.setArtworkHash(null);
         }
         
         Track updatedTrack = trackRepository.save(track);
         return convertToDTO(updatedTrack);
     }
     
+    @CacheEvict(cacheNames = CacheConfig.GENRES, allEntries = true)
     public void deleteTrack(Long id) {
         if (!trackRepository.existsById(id)) {
             throw new RuntimeException("Track not found with id: " + id);
@@ -102,12 +278,23 @@ public class TrackService {
     
     @Transactional(readOnly = true)
     public List<TrackDTO> searchTracks(String query) {
-        return trackRepository.findByTitleContainingIgnoreCase(query).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(trackRepository.findByTitleContainingIgnoreCase(query));
     }
     
     private TrackDTO convertToDTO(Track track) {
+        return convertToDTO(track, trackPlayService.getPlayCounts(track.getId()));
+    }
+    
+    private List<TrackDTO> convertToDTOs(List<Track> tracks) {
+        // Resolve play counts for the whole list in one batch
+        Map<Long, Map<String, Long>> playCounts = trackPlayService.getPlayCounts(
+                tracks.stream().map(Track::getId).collect(Collectors.toList()));
+        return tracks.stream()
+                .map(track -> convertToDTO(track, playCounts.get(track.getId())))
+                .collect(Collectors.toList());
+    }
+    
+    private TrackDTO convertToDTO(Track track, Map<String, Long> counts) {
         TrackDTO dto = new TrackDTO();
         dto.setId(track.getId());
         dto.setAlbumId(track.getAlbumId());
@@ -115,12 +302,16 @@ public class TrackService {
         dto.setTitle(track.getTitle());
         dto.setDurationSeconds(track.getDurationSeconds());
         dto.setFilePath(track.getFilePath());
+        dto.setFileHash(track.getFileHash());
+        dto.setFileSizeBytes(track.getFileSizeBytes());
+        dto.setMimeType(track.getMimeType());
+        dto.setBitrateKbps(track.getBitrateKbps());
         dto.setGenre(track.getGenre());
         dto.setArtworkPath(track.getArtworkPath());
+        dto.setArtworkHash(track.getArtworkHash());
         dto.setCreatedAt(track.getCreatedAt());
         
-        // Get play counts
-        Map<String, Long> counts = trackPlayService.getPlayCounts(track.getId());
+        // Play counts
         dto.setPlayCountDay(counts.get("day"));
         dto.setPlayCountWeek(counts.get("week"));
         dto.setPlayCountMonth(counts.get("month"));
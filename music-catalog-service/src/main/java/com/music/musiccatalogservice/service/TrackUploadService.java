@@ -0,0 +1,317 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.dto.MediaBlobDTO;
+import com.music.musiccatalogservice.dto.UploadSessionDTO;
+import com.music.musiccatalogservice.entity.Track;
+import com.music.musiccatalogservice.entity.TrackUpload;
+import com.music.musiccatalogservice.exception.UploadConflictException;
+import com.music.musiccatalogservice.repository.TrackRepository;
+import com.music.musiccatalogservice.repository.TrackUploadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Возобновляемая загрузка аудио файла трека по частям (в духе протокола tus).
+ * Клиент создаёт сессию с полным размером файла и шлёт части запросами PATCH
+ * с текущим смещением. Тело запроса пишется сразу в частичный файл в каталоге трека
+ * позиционной записью FileChannel, без буферизации multipart во временный файл,
+ * поэтому ограничение spring.servlet.multipart.max-file-size сюда не относится.
+ * <p>
+ * Смещение хранится в track_uploads и сдвигается только после force(): после обрыва
+ * или перезапуска клиент узнаёт его запросом HEAD и продолжает с этого места.
+ * Когда получен последний байт, файл переносится в хранилище по содержимому
+ * и атомарно подменяет файл трека.
+ */
+@Service
+public class TrackUploadService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TrackUploadService.class);
+    
+    public static final String CONTENT_TYPE = "application/offset+octet-stream";
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,9}");
+    
+    @Value("${file.upload.tracks.dir:uploads/tracks}")
+    private String tracksDir;
+    
+    @Value("${catalog.upload.max-length:2GB}")
+    private DataSize maxLength;
+    
+    @Value("${catalog.upload.expiration-hours:24}")
+    private long expirationHours;
+    
+    @Autowired
+    private TrackUploadRepository trackUploadRepository;
+    
+    @Autowired
+    private TrackRepository trackRepository;
+    
+    @Autowired
+    private AudioDurationService audioDurationService;
+    
+    @Autowired
+    private MediaStoreService mediaStoreService;
+    
+    @Autowired
+    private MediaMetadataService mediaMetadataService;
+    
+    // Загрузки, в которые сейчас пишет запрос PATCH
+    private final Set<String> busy = ConcurrentHashMap.newKeySet();
+    
+    // SHA-256 принятых байт, пока части приходят подряд в этот экземпляр сервиса.
+    // После перезапуска или сбоя записи хэш досчитывается чтением файла при завершении
+    private final Map<String, UploadDigest> digests = new ConcurrentHashMap<>();
+    
+    /**
+     * Создаёт сессию загрузки
+     * @param uploadLength полный размер файла в байтах
+     * @param filename имя исходного файла, из него берётся расширение
+     */
+    public UploadSessionDTO createUpload(Long trackId, long uploadLength, String filename) {
+        if (!trackRepository.existsById(trackId)) {
+            throw new RuntimeException("Track not found");
+        }
+        if (uploadLength <= 0 || uploadLength > maxLength.toBytes()) {
+            throw new RuntimeException("Upload-Length must be between 1 and " + maxLength.toBytes());
+        }
+        
+        TrackUpload upload = new TrackUpload();
+        upload.setId(UUID.randomUUID().toString());
+        upload.setTrackId(trackId);
+        upload.setUploadLength(uploadLength);
+        upload.setUploadOffset(0L);
+        upload.setExtension(getExtension(filename));
+        upload = trackUploadRepository.save(upload);
+        
+        logger.info("Upload {} created for track {}: {} bytes", upload.getId(), trackId, uploadLength);
+        return convertToDTO(upload);
+    }
+    
+    public UploadSessionDTO getUpload(String uploadId) {
+        return convertToDTO(findUpload(uploadId));
+    }
+    
+    /**
+     * Дописывает тело запроса в файл загрузки начиная с offset.
+     * Принятые байты сохраняются и при обрыве соединения: смещение сдвигается
+     * на всё, что успело записаться. Последняя часть завершает загрузку.
+     * @param offset смещение, с которого клиент шлёт данные; должно совпадать с сохранённым
+     * @throws UploadConflictException если смещение не совпало или загрузка уже занята
+     */
+    public UploadSessionDTO appendChunk(String uploadId, long offset, InputStream body) throws IOException {
+        if (!busy.add(uploadId)) {
+            throw new UploadConflictException("Upload is already in progress");
+        }
+        try {
+            TrackUpload upload = findUpload(uploadId);
+            if (offset != upload.getUploadOffset()) {
+                throw new UploadConflictException("Upload-Offset mismatch: expected " + upload.getUploadOffset());
+            }
+            
+            UploadDigest uploadDigest = offset == 0 ? new UploadDigest() : digests.get(uploadId);
+            if (uploadDigest != null && uploadDigest.bytes != offset) {
+                uploadDigest = null;
+            }
+            if (uploadDigest != null) {
+                digests.put(uploadId, uploadDigest);
+            } else {
+                digests.remove(uploadId);
+            }
+            
+            long length = upload.getUploadLength();
+            long position = offset;
+            // На полном смещении частичный файл не открывается: после переноса в хранилище
+            // его уже нет, и пустой PATCH не должен создать вместо него пустой
+            if (offset < length) {
+                Path partPath = getPartPath(upload);
+                Files.createDirectories(partPath.getParent());
+                try (FileChannel channel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                    try {
+                        int read;
+                        while ((read = body.read(buffer.array())) != -1) {
+                            if (position + read > length) {
+                                throw new RuntimeException("Chunk exceeds Upload-Length " + length);
+                            }
+                            buffer.clear().limit(read);
+                            // Позиционная запись: после обрыва повтор с сохранённого смещения
+                            // перезапишет хвост, не дописанный в прошлый раз
+                            while (buffer.hasRemaining()) {
+                                position += channel.write(buffer, position);
+                            }
+                            if (uploadDigest != null) {
+                                uploadDigest.digest.update(buffer.array(), 0, read);
+                                uploadDigest.bytes += read;
+                            }
+                        }
+                    } finally {
+                        if (position > offset) {
+                            channel.force(false);
+                            upload.setUploadOffset(position);
+                            upload = trackUploadRepository.save(upload);
+                        }
+                    }
+                }
+            } else if (body.read() != -1) {
+                throw new RuntimeException("Chunk exceeds Upload-Length " + length);
+            }
+            
+            // Пустой PATCH на полном смещении повторяет завершение, если оно не удалось
+            if (position == length) {
+                complete(upload);
+            }
+            return convertToDTO(upload);
+        } finally {
+            busy.remove(uploadId);
+        }
+    }
+    
+    /**
+     * Отменяет загрузку и удаляет частичный файл
+     */
+    public void terminate(String uploadId) throws IOException {
+        if (!busy.add(uploadId)) {
+            throw new UploadConflictException("Upload is already in progress");
+        }
+        try {
+            TrackUpload upload = findUpload(uploadId);
+            Files.deleteIfExists(getPartPath(upload));
+            trackUploadRepository.delete(upload);
+            digests.remove(uploadId);
+        } finally {
+            busy.remove(uploadId);
+        }
+    }
+    
+    /**
+     * Удаляет брошенные загрузки, в которые давно ничего не приходило
+     */
+    @Scheduled(fixedDelayString = "${catalog.upload.cleanup-interval-ms:3600000}")
+    public void purgeExpiredUploads() {
+        LocalDateTime threshold = LocalDateTime.now().minusHours(expirationHours);
+        for (TrackUpload upload : trackUploadRepository.findByUpdatedAtBefore(threshold)) {
+            if (!busy.add(upload.getId())) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(getPartPath(upload));
+                trackUploadRepository.delete(upload);
+                digests.remove(upload.getId());
+                logger.info("Expired upload {} for track {} removed at {} of {} bytes",
+                        upload.getId(), upload.getTrackId(), upload.getUploadOffset(), upload.getUploadLength());
+            } catch (Exception e) {
+                logger.warn("Could not remove expired upload {}", upload.getId(), e);
+            } finally {
+                busy.remove(upload.getId());
+            }
+        }
+    }
+    
+    private void complete(TrackUpload upload) throws IOException {
+        Track track = trackRepository.findByIdUncached(upload.getTrackId())
+                .orElseThrow(() -> new RuntimeException("Track not found"));
+        
+        MediaBlobDTO blob;
+        Path partPath = getPartPath(upload);
+        if (Files.exists(partPath)) {
+            // Хэш запоминается до переноса: перенос убирает частичный файл, и повтор
+            // после сбоя ниже найдёт файл уже в хранилище
+            if (upload.getBlobHash() == null) {
+                UploadDigest uploadDigest = digests.remove(upload.getId());
+                upload.setBlobHash(uploadDigest != null && uploadDigest.bytes == upload.getUploadLength()
+                        ? HexFormat.of().formatHex(uploadDigest.digest.digest())
+                        : MediaStoreService.hashFile(partPath));
+                upload = trackUploadRepository.save(upload);
+            }
+            blob = mediaStoreService.storeFile(partPath, upload.getExtension(), upload.getBlobHash());
+        } else if (upload.getBlobHash() != null) {
+            blob = mediaStoreService.findStored(upload.getBlobHash());
+            if (blob == null) {
+                throw new RuntimeException("Upload file is missing, start a new upload");
+            }
+        } else {
+            throw new RuntimeException("Upload file is missing, start a new upload");
+        }
+        Path filePath = Paths.get(blob.getPath());
+        
+        mediaStoreService.deleteLegacyFile(track.getFilePath(), track.getFileHash());
+        track.setFilePath(blob.getPath());
+        track.setFileHash(blob.getHash());
+        try {
+            Integer duration = audioDurationService.getDurationSeconds(filePath);
+            if (duration != null && duration > 0) {
+                track.setDurationSeconds(duration);
+            }
+        } catch (Exception e) {
+            // Длительность дозаполнит фоновый проход, загрузку не проваливаем
+            logger.warn("Could not detect duration for track {}: {}", track.getId(), e.getMessage());
+        }
+        mediaMetadataService.apply(track, filePath);
+        trackRepository.save(track);
+        trackUploadRepository.delete(upload);
+        
+        logger.info("Upload {} completed for track {}: {} bytes", upload.getId(), track.getId(), upload.getUploadLength());
+    }
+    
+    private TrackUpload findUpload(String uploadId) {
+        return trackUploadRepository.findById(uploadId)
+                .orElseThrow(() -> new RuntimeException("Upload not found"));
+    }
+    
+    private Path getPartPath(TrackUpload upload) {
+        return Paths.get(tracksDir, upload.getTrackId().toString()).resolve(upload.getId() + ".part");
+    }
+    
+    private String getExtension(String filename) {
+        if (filename == null || filename.lastIndexOf('.') < 0) {
+            return ".mp3"; // По умолчанию
+        }
+        String extension = filename.substring(filename.lastIndexOf('.')).toLowerCase();
+        if (!EXTENSION.matcher(extension).matches()) {
+            throw new RuntimeException("Invalid file extension: " + extension);
+        }
+        return extension;
+    }
+    
+    private UploadSessionDTO convertToDTO(TrackUpload upload) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setUploadId(upload.getId());
+        dto.setTrackId(upload.getTrackId());
+        dto.setUploadLength(upload.getUploadLength());
+        dto.setUploadOffset(upload.getUploadOffset());
+        dto.setCreatedAt(upload.getCreatedAt());
+        dto.setUpdatedAt(upload.getUpdatedAt());
+        return dto;
+    }
+    
+    /**
+     * Хэш первых bytes байт загрузки
+     */
+    private static class UploadDigest {
+        private final MessageDigest digest = MediaStoreService.newDigest();
+        private long bytes;
+    }
+}
@@ -0,0 +1,3 @@
+-- Частичный индекс для фонового заполнения длительности:
+-- в нём только треки с duration_seconds IS NULL, и он худеет по мере прохода
+CREATE INDEX IF NOT EXISTS idx_tracks_missing_duration ON tracks(id) WHERE duration_seconds IS NULL;
@@ -0,0 +1,12 @@
+-- Сессии возобновляемой загрузки аудио файлов по частям
+CREATE TABLE IF NOT EXISTS track_uploads (
+    id            VARCHAR(36)  PRIMARY KEY,
+    track_id      BIGINT       NOT NULL REFERENCES tracks(id) ON DELETE CASCADE,
+    upload_length BIGINT       NOT NULL,
+    upload_offset BIGINT       NOT NULL DEFAULT 0,
+    extension     VARCHAR(10)  NOT NULL,
+    created_at    TIMESTAMP    NOT NULL DEFAULT NOW(),
+    updated_at    TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_track_uploads_updated ON track_uploads(updated_at);
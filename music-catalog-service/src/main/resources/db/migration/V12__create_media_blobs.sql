@@ -0,0 +1,69 @@
+-- Хранилище медиафайлов по содержимому: один файл на SHA-256, ссылки из треков, альбомов и артистов.
+-- Счётчик ссылок ведут триггеры, поэтому он верен и при каскадном удалении артиста или альбома
+CREATE TABLE IF NOT EXISTS media_blobs (
+    hash       VARCHAR(64)  PRIMARY KEY,
+    path       VARCHAR(500) NOT NULL,
+    size_bytes BIGINT       NOT NULL,
+    ref_count  INTEGER      NOT NULL DEFAULT 0,
+    created_at TIMESTAMP    NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP    NOT NULL DEFAULT NOW()
+);
+
+-- Кандидаты на удаление для сборщика неиспользуемых файлов
+CREATE INDEX IF NOT EXISTS idx_media_blobs_unreferenced ON media_blobs(updated_at) WHERE ref_count <= 0;
+
+ALTER TABLE tracks  ADD COLUMN IF NOT EXISTS file_hash    VARCHAR(64) REFERENCES media_blobs(hash);
+ALTER TABLE tracks  ADD COLUMN IF NOT EXISTS artwork_hash VARCHAR(64) REFERENCES media_blobs(hash);
+ALTER TABLE albums  ADD COLUMN IF NOT EXISTS artwork_hash VARCHAR(64) REFERENCES media_blobs(hash);
+ALTER TABLE artists ADD COLUMN IF NOT EXISTS image_hash   VARCHAR(64) REFERENCES media_blobs(hash);
+
+-- Без индексов удаление строки media_blobs проверяло бы внешние ключи полным просмотром таблиц
+CREATE INDEX IF NOT EXISTS idx_tracks_file_hash    ON tracks(file_hash)     WHERE file_hash IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_tracks_artwork_hash ON tracks(artwork_hash)  WHERE artwork_hash IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_albums_artwork_hash ON albums(artwork_hash)  WHERE artwork_hash IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_artists_image_hash  ON artists(image_hash)   WHERE image_hash IS NOT NULL;
+
+-- Аргументы триггера - имена столбцов с хэшами
+CREATE OR REPLACE FUNCTION media_blobs_adjust_refs() RETURNS TRIGGER AS $$
+DECLARE
+    col      TEXT;
+    old_hash TEXT;
+    new_hash TEXT;
+BEGIN
+    FOREACH col IN ARRAY TG_ARGV LOOP
+        old_hash := NULL;
+        new_hash := NULL;
+        IF TG_OP <> 'INSERT' THEN
+            old_hash := to_jsonb(OLD) ->> col;
+        END IF;
+        IF TG_OP <> 'DELETE' THEN
+            new_hash := to_jsonb(NEW) ->> col;
+        END IF;
+
+        IF old_hash IS DISTINCT FROM new_hash THEN
+            IF old_hash IS NOT NULL THEN
+                UPDATE media_blobs SET ref_count = ref_count - 1, updated_at = NOW() WHERE hash = old_hash;
+            END IF;
+            IF new_hash IS NOT NULL THEN
+                UPDATE media_blobs SET ref_count = ref_count + 1, updated_at = NOW() WHERE hash = new_hash;
+            END IF;
+        END IF;
+    END LOOP;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_tracks_media_refs ON tracks;
+CREATE TRIGGER trg_tracks_media_refs
+    AFTER INSERT OR UPDATE OF file_hash, artwork_hash OR DELETE ON tracks
+    FOR EACH ROW EXECUTE FUNCTION media_blobs_adjust_refs('file_hash', 'artwork_hash');
+
+DROP TRIGGER IF EXISTS trg_albums_media_refs ON albums;
+CREATE TRIGGER trg_albums_media_refs
+    AFTER INSERT OR UPDATE OF artwork_hash OR DELETE ON albums
+    FOR EACH ROW EXECUTE FUNCTION media_blobs_adjust_refs('artwork_hash');
+
+DROP TRIGGER IF EXISTS trg_artists_media_refs ON artists;
+CREATE TRIGGER trg_artists_media_refs
+    AFTER INSERT OR UPDATE OF image_hash OR DELETE ON artists
+    FOR EACH ROW EXECUTE FUNCTION media_blobs_adjust_refs('image_hash');
@@ -0,0 +1,11 @@
+-- Метаданные аудио файла трека, заполняемые при загрузке: по ним отдача файла
+-- выставляет Content-Length, Content-Type и валидаторы без обращения к файловой системе.
+-- Контрольная сумма - уже существующий file_hash (SHA-256 из хранилища по содержимому)
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS file_size_bytes  BIGINT;
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS mime_type        VARCHAR(100);
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS bitrate_kbps     INTEGER;
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS file_modified_at TIMESTAMP;
+
+-- Частичный индекс для фонового заполнения метаданных у уже загруженных треков
+CREATE INDEX IF NOT EXISTS idx_tracks_missing_media_metadata ON tracks(id)
+    WHERE file_size_bytes IS NULL AND file_path IS NOT NULL;
@@ -0,0 +1,4 @@
+-- Хэш файла загрузки, записанный до переноса в хранилище: если завершение упало после переноса,
+-- повторный PATCH берёт файл из media_blobs. Без внешнего ключа - сборщик может удалить
+-- файл брошенной загрузки, тогда повтор просит начать загрузку заново
+ALTER TABLE track_uploads ADD COLUMN IF NOT EXISTS blob_hash VARCHAR(64);
@@ -0,0 +1,16 @@
+-- Предагрегированные счётчики прослушиваний (часовые и дневные корзины)
+CREATE TABLE IF NOT EXISTS track_play_hourly (
+    track_id     BIGINT    NOT NULL REFERENCES tracks(id) ON DELETE CASCADE,
+    bucket_start TIMESTAMP NOT NULL,
+    play_count   BIGINT    NOT NULL DEFAULT 0,
+    PRIMARY KEY (track_id, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS track_play_daily (
+    track_id     BIGINT    NOT NULL REFERENCES tracks(id) ON DELETE CASCADE,
+    bucket_start TIMESTAMP NOT NULL,
+    play_count   BIGINT    NOT NULL DEFAULT 0,
+    PRIMARY KEY (track_id, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_track_play_hourly_bucket ON track_play_hourly(bucket_start);
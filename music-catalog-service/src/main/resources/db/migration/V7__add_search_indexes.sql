@@ -0,0 +1,12 @@
+-- Индексы для поиска по названиям треков, альбомов и именам артистов.
+-- Триграммные GIN индексы обслуживают LIKE '%q%' и нечёткое сравнение (оператор %),
+-- btree с text_pattern_ops - поиск по префиксу для коротких запросов.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_tracks_title_trgm   ON tracks  USING GIN (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_albums_title_trgm   ON albums  USING GIN (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_artists_name_trgm   ON artists USING GIN (lower(name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_tracks_title_prefix ON tracks  (lower(title) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_albums_title_prefix ON albums  (lower(title) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_artists_name_prefix ON artists (lower(name) text_pattern_ops);
@@ -0,0 +1,10 @@
+-- Составные индексы для keyset-пагинации по владельцу: WHERE owner_id = ? AND id > ? ORDER BY id.
+-- Одиночные индексы по owner_id из V1 не отдают строки в порядке id и требуют сортировки.
+CREATE INDEX IF NOT EXISTS idx_tracks_artist_id ON tracks(artist_id, id);
+CREATE INDEX IF NOT EXISTS idx_tracks_album_id  ON tracks(album_id, id);
+CREATE INDEX IF NOT EXISTS idx_albums_artist_id ON albums(artist_id, id);
+
+-- Составные индексы покрывают и поиск по владельцу, одиночные больше не нужны
+DROP INDEX IF EXISTS idx_tracks_artist;
+DROP INDEX IF EXISTS idx_tracks_album;
+DROP INDEX IF EXISTS idx_albums_artist;
@@ -0,0 +1,3 @@
+-- Индекс для страниц жанра (WHERE genre = ? AND id > ? ORDER BY id),
+-- MIN/MAX id жанра и случайной выборки по точкам id
+CREATE INDEX IF NOT EXISTS idx_tracks_genre_id ON tracks(genre, id);
@@ -0,0 +1,85 @@
+package com.music.musiccatalogservice.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение определения длительности MP3: {@link AudioHeaderProbe} против AudioSystem.getAudioFileFormat
+ * с mp3spi, которым пользовался AudioDurationService до появления пробы.
+ * Файлы - 4 минуты MPEG1 Layer III: с заголовком Xing и без него (проход по фреймам).
+ * <p>
+ * Не тест, surefire его не запускает. Запуск после mvn test-compile:
+ * java -cp target/test-classes:target/classes:$(classpath теста) com.music.musiccatalogservice.service.AudioDurationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioDurationBenchmark {
+    
+    // 4 минуты при 1152 сэмплах на фрейм и 44.1 кГц
+    private static final int FRAMES = 9188;
+    
+    @Param({"xing", "cbr"})
+    public String file;
+    
+    private final AudioHeaderProbe probe = new AudioHeaderProbe();
+    
+    private Path dir;
+    private Path path;
+    
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("audio-benchmark");
+        byte[] content = "xing".equals(file)
+                ? AudioFixtures.mp3(FRAMES, "Xing", FRAMES, false, false)
+                : AudioFixtures.mp3(FRAMES, null, 0, false, false);
+        path = AudioFixtures.write(dir, file + ".mp3",
+                AudioFixtures.concat(AudioFixtures.id3v2(4096), content, AudioFixtures.id3v1()));
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+        Files.deleteIfExists(dir);
+    }
+    
+    @Benchmark
+    public Double headerProbe() throws IOException {
+        return probe.probeDurationSeconds(path);
+    }
+    
+    @Benchmark
+    public AudioFileFormat javaSound() throws IOException, UnsupportedAudioFileException {
+        return AudioSystem.getAudioFileFormat(path.toFile());
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AudioDurationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
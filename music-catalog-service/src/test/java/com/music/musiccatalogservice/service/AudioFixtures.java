@@ -0,0 +1,182 @@
+package com.music.musiccatalogservice.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Минимальные аудио файлы для тестов и бенчмарка: только заголовки и фреймы без звука.
+ * MP3 - MPEG1 Layer III, 128 кбит/с, 44.1 кГц, фрейм 417 байт и 1152 сэмпла.
+ */
+final class AudioFixtures {
+    
+    static final int MP3_FRAME_LENGTH = 417;
+    static final int MP3_SAMPLES_PER_FRAME = 1152;
+    static final int MP3_SAMPLE_RATE = 44100;
+    
+    private AudioFixtures() {
+    }
+    
+    /**
+     * Поток MP3
+     * @param frames число звуковых фреймов
+     * @param vbrTag "Xing", "Info", "VBRI" или null - первый фрейм с VBR-заголовком
+     * @param vbrFrames число фреймов, записанное в VBR-заголовок
+     * @param crc фреймы защищены CRC (бит protection = 0)
+     * @param mono одноканальный режим: side info 17 байт вместо 32
+     */
+    static byte[] mp3(int frames, String vbrTag, int vbrFrames, boolean crc, boolean mono) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (vbrTag != null) {
+            byte[] frame = mp3Frame(crc, mono);
+            int offset = "VBRI".equals(vbrTag) ? 36 : 4 + (crc ? 2 : 0) + (mono ? 17 : 32);
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            buffer.position(offset);
+            buffer.put(vbrTag.getBytes(StandardCharsets.US_ASCII));
+            if ("VBRI".equals(vbrTag)) {
+                // version, delay, quality, размер потока в байтах, число фреймов
+                buffer.putShort((short) 1).putShort((short) 0).putShort((short) 75);
+                buffer.putInt(vbrFrames * MP3_FRAME_LENGTH).putInt(vbrFrames);
+            } else {
+                // Флаг 0x1: поле числа фреймов заполнено
+                buffer.putInt(0x1).putInt(vbrFrames);
+            }
+            out.writeBytes(frame);
+        }
+        for (int i = 0; i < frames; i++) {
+            out.writeBytes(mp3Frame(crc, mono));
+        }
+        return out.toByteArray();
+    }
+    
+    private static byte[] mp3Frame(boolean crc, boolean mono) {
+        byte[] frame = new byte[MP3_FRAME_LENGTH];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) (crc ? 0xFA : 0xFB);
+        frame[2] = (byte) 0x90;
+        frame[3] = (byte) (mono ? 0xC0 : 0x00);
+        return frame;
+    }
+    
+    /**
+     * Тег ID3v2 заданного размера перед аудио
+     */
+    static byte[] id3v2(int size) {
+        byte[] tag = new byte[10 + size];
+        tag[0] = 'I';
+        tag[1] = 'D';
+        tag[2] = '3';
+        tag[3] = 4;
+        tag[6] = (byte) ((size >> 21) & 0x7F);
+        tag[7] = (byte) ((size >> 14) & 0x7F);
+        tag[8] = (byte) ((size >> 7) & 0x7F);
+        tag[9] = (byte) (size & 0x7F);
+        return tag;
+    }
+    
+    /**
+     * Тег ID3v1 в конце файла
+     */
+    static byte[] id3v1() {
+        byte[] tag = new byte[128];
+        tag[0] = 'T';
+        tag[1] = 'A';
+        tag[2] = 'G';
+        return tag;
+    }
+    
+    static byte[] flac(int sampleRate, long totalSamples) {
+        ByteBuffer buffer = ByteBuffer.allocate(42);
+        buffer.put("fLaC".getBytes(StandardCharsets.US_ASCII));
+        // Последний блок метаданных, тип 0 (STREAMINFO), длина 34
+        buffer.put((byte) 0x80).put((byte) 0).put((byte) 0).put((byte) 34);
+        buffer.putShort((short) 4096).putShort((short) 4096);
+        buffer.put(new byte[6]);
+        int channels = 2;
+        int bitsPerSample = 16;
+        buffer.put((byte) (sampleRate >> 12));
+        buffer.put((byte) (sampleRate >> 4));
+        buffer.put((byte) (((sampleRate & 0xF) << 4) | ((channels - 1) << 1) | ((bitsPerSample - 1) >> 4)));
+        buffer.put((byte) ((((bitsPerSample - 1) & 0xF) << 4) | (int) ((totalSamples >> 32) & 0xF)));
+        buffer.putInt((int) totalSamples);
+        return buffer.array();
+    }
+    
+    /**
+     * @param dataSize размер в заголовке чанка data; фактически пишется dataBytes байт
+     */
+    static byte[] wav(int byteRate, int dataSize, int dataBytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(12 + 8 + 16 + 8 + dataBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(buffer.capacity() - 8);
+        buffer.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        buffer.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16);
+        buffer.putShort((short) 1).putShort((short) 2).putInt(byteRate / 4).putInt(byteRate);
+        buffer.putShort((short) 4).putShort((short) 16);
+        buffer.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataSize);
+        return buffer.array();
+    }
+    
+    static byte[] oggVorbis(int sampleRate, long lastGranule) {
+        ByteBuffer packet = ByteBuffer.allocate(30).order(ByteOrder.LITTLE_ENDIAN);
+        packet.put((byte) 1).put("vorbis".getBytes(StandardCharsets.US_ASCII));
+        packet.putInt(0).put((byte) 2).putInt(sampleRate);
+        return ogg(packet.array(), lastGranule);
+    }
+    
+    static byte[] oggOpus(int preSkip, long lastGranule) {
+        ByteBuffer packet = ByteBuffer.allocate(19).order(ByteOrder.LITTLE_ENDIAN);
+        packet.put("OpusHead".getBytes(StandardCharsets.US_ASCII));
+        packet.put((byte) 1).put((byte) 2).putShort((short) preSkip).putInt(48000);
+        return ogg(packet.array(), lastGranule);
+    }
+    
+    private static byte[] ogg(byte[] firstPacket, long lastGranule) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(oggPage(0, firstPacket));
+        out.writeBytes(oggPage(lastGranule / 2, new byte[200]));
+        out.writeBytes(oggPage(lastGranule, new byte[100]));
+        return out.toByteArray();
+    }
+    
+    private static byte[] oggPage(long granule, byte[] packet) {
+        ByteBuffer page = ByteBuffer.allocate(27 + 1 + packet.length).order(ByteOrder.LITTLE_ENDIAN);
+        page.put("OggS".getBytes(StandardCharsets.US_ASCII)).put((byte) 0).put((byte) 0);
+        page.putLong(granule).putInt(0x1234).putInt(0).putInt(0);
+        page.put((byte) 1).put((byte) packet.length);
+        page.put(packet);
+        return page.array();
+    }
+    
+    static byte[] m4a(int version, long timescale, long duration) {
+        ByteBuffer mvhd = ByteBuffer.allocate(version == 1 ? 8 + 32 : 8 + 20);
+        mvhd.putInt(mvhd.capacity()).put("mvhd".getBytes(StandardCharsets.US_ASCII));
+        mvhd.put((byte) version).put(new byte[3]);
+        if (version == 1) {
+            mvhd.putLong(0).putLong(0).putInt((int) timescale).putLong(duration);
+        } else {
+            mvhd.putInt(0).putInt(0).putInt((int) timescale).putInt((int) duration);
+        }
+        ByteBuffer file = ByteBuffer.allocate(16 + 8 + 8 + mvhd.capacity());
+        file.putInt(16).put("ftypM4A ".getBytes(StandardCharsets.US_ASCII)).putInt(0);
+        file.putInt(8).put("free".getBytes(StandardCharsets.US_ASCII));
+        file.putInt(8 + mvhd.capacity()).put("moov".getBytes(StandardCharsets.US_ASCII));
+        file.put(mvhd.array());
+        return file.array();
+    }
+    
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+    
+    static Path write(Path dir, String name, byte[] content) throws IOException {
+        return Files.write(dir.resolve(name), content);
+    }
+}
@@ -0,0 +1,157 @@
+package com.music.musiccatalogservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static com.music.musiccatalogservice.service.AudioFixtures.MP3_FRAME_LENGTH;
+import static com.music.musiccatalogservice.service.AudioFixtures.MP3_SAMPLES_PER_FRAME;
+import static com.music.musiccatalogservice.service.AudioFixtures.MP3_SAMPLE_RATE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AudioHeaderProbeTest {
+    
+    private final AudioHeaderProbe probe = new AudioHeaderProbe();
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void mp3WithoutVbrHeaderIsScannedFrameByFrame() throws IOException {
+        Path file = AudioFixtures.write(dir, "cbr.mp3", AudioFixtures.mp3(200, null, 0, false, false));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(seconds(200), within(1e-9));
+    }
+    
+    @Test
+    void mp3XingFrameCountIsUsed() throws IOException {
+        // В заголовке 10000 фреймов, в файле 20: длительность берётся из заголовка, без прохода по фреймам
+        Path file = AudioFixtures.write(dir, "xing.mp3", AudioFixtures.mp3(20, "Xing", 10000, false, false));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(seconds(10000), within(1e-9));
+    }
+    
+    @Test
+    void mp3XingHeaderAfterCrcIsFound() throws IOException {
+        Path file = AudioFixtures.write(dir, "xing-crc.mp3", AudioFixtures.mp3(20, "Xing", 10000, true, false));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(seconds(10000), within(1e-9));
+    }
+    
+    @Test
+    void mp3MonoInfoHeaderIsFound() throws IOException {
+        Path file = AudioFixtures.write(dir, "info-mono.mp3", AudioFixtures.mp3(20, "Info", 5000, false, true));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(seconds(5000), within(1e-9));
+    }
+    
+    @Test
+    void mp3VbriHeaderIsFound() throws IOException {
+        Path file = AudioFixtures.write(dir, "vbri.mp3", AudioFixtures.mp3(20, "VBRI", 3000, false, false));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(seconds(3000), within(1e-9));
+    }
+    
+    @Test
+    void mp3Id3TagsAreSkipped() throws IOException {
+        byte[] content = AudioFixtures.concat(AudioFixtures.id3v2(5000),
+                AudioFixtures.mp3(150, null, 0, false, false), AudioFixtures.id3v1());
+        Path file = AudioFixtures.write(dir, "tagged.mp3", content);
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(seconds(150), within(1e-9));
+    }
+    
+    @Test
+    void mp3FrameIndexSkipsVbrHeaderFrame() throws IOException {
+        Path file = AudioFixtures.write(dir, "index.mp3", AudioFixtures.mp3(50, "Info", 50, false, false));
+        
+        Mp3FrameIndex index = probe.indexMp3Frames(file);
+        
+        assertThat(index.getFrameCount()).isEqualTo(50);
+        assertThat(index.getOffset(0)).isEqualTo(MP3_FRAME_LENGTH);
+        assertThat(index.getOffset(index.getFrameCount())).isEqualTo(51L * MP3_FRAME_LENGTH);
+    }
+    
+    @Test
+    void mp3FrameIndexSkipsVbrHeaderFrameWithCrc() throws IOException {
+        Path file = AudioFixtures.write(dir, "index-crc.mp3", AudioFixtures.mp3(50, "Info", 50, true, false));
+        
+        Mp3FrameIndex index = probe.indexMp3Frames(file);
+        
+        assertThat(index.getFrameCount()).isEqualTo(50);
+        assertThat(index.getOffset(0)).isEqualTo(MP3_FRAME_LENGTH);
+    }
+    
+    @Test
+    void mp3FrameIndexStopsBeforeId3v1() throws IOException {
+        byte[] content = AudioFixtures.concat(AudioFixtures.id3v2(100),
+                AudioFixtures.mp3(30, null, 0, false, false), AudioFixtures.id3v1());
+        Path file = AudioFixtures.write(dir, "index-tagged.mp3", content);
+        
+        Mp3FrameIndex index = probe.indexMp3Frames(file);
+        
+        assertThat(index.getFrameCount()).isEqualTo(30);
+        assertThat(index.getOffset(0)).isEqualTo(110);
+        assertThat(index.getTime(30)).isCloseTo(seconds(30), within(1e-9));
+    }
+    
+    @Test
+    void flacStreamInfo() throws IOException {
+        Path file = AudioFixtures.write(dir, "track.flac", AudioFixtures.flac(44100, 44100L * 183));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(183.0, within(1e-9));
+        assertThat(probe.indexMp3Frames(file)).isNull();
+    }
+    
+    @Test
+    void oggVorbisLastGranule() throws IOException {
+        Path file = AudioFixtures.write(dir, "track.ogg", AudioFixtures.oggVorbis(48000, 48000L * 61));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(61.0, within(1e-9));
+    }
+    
+    @Test
+    void oggOpusPreSkipIsSubtracted() throws IOException {
+        Path file = AudioFixtures.write(dir, "track.opus", AudioFixtures.oggOpus(312, 48000L * 30 + 312));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(30.0, within(1e-9));
+    }
+    
+    @Test
+    void wavDataChunk() throws IOException {
+        Path file = AudioFixtures.write(dir, "track.wav", AudioFixtures.wav(176400, 176400 * 2, 176400 * 2));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(2.0, within(1e-9));
+    }
+    
+    @Test
+    void wavWrittenAsStreamUsesRestOfFile() throws IOException {
+        Path file = AudioFixtures.write(dir, "stream.wav", AudioFixtures.wav(176400, 0, 176400));
+        
+        assertThat(probe.probeDurationSeconds(file)).isCloseTo(1.0, within(1e-9));
+    }
+    
+    @Test
+    void m4aMovieHeader() throws IOException {
+        Path v0 = AudioFixtures.write(dir, "v0.m4a", AudioFixtures.m4a(0, 600, 600L * 95));
+        Path v1 = AudioFixtures.write(dir, "v1.m4a", AudioFixtures.m4a(1, 44100, 44100L * 240));
+        
+        assertThat(probe.probeDurationSeconds(v0)).isCloseTo(95.0, within(1e-9));
+        assertThat(probe.probeDurationSeconds(v1)).isCloseTo(240.0, within(1e-9));
+    }
+    
+    @Test
+    void unknownFormatIsNotRecognized() throws IOException {
+        Path file = AudioFixtures.write(dir, "notes.txt", "just some text, not audio".getBytes());
+        
+        assertThat(probe.probeDurationSeconds(file)).isNull();
+        assertThat(probe.indexMp3Frames(file)).isNull();
+    }
+    
+    private static double seconds(int frames) {
+        return (double) frames * MP3_SAMPLES_PER_FRAME / MP3_SAMPLE_RATE;
+    }
+}
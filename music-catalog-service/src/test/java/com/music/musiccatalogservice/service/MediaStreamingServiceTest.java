@@ -0,0 +1,61 @@
+package com.music.musiccatalogservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Отдача через sendfile: файл проверяется до того, как Tomcat отправит заголовки
+ */
+class MediaStreamingServiceTest {
+    
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    
+    private final MediaStreamingService service = new MediaStreamingService();
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void sendfileIsUsedForExistingFile() throws IOException {
+        Path file = Files.write(dir.resolve("track.mp3"), new byte[1000]);
+        MockHttpServletRequest request = sendfileRequest();
+        request.addHeader("Range", "bytes=100-199");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        service.stream(request, response, file, "audio/mpeg", null, "hash", 1000, 0);
+        
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 100-199/1000");
+        assertThat(request.getAttribute(SENDFILE_FILENAME_ATTR)).isEqualTo(file.toAbsolutePath().toString());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(100L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(200L);
+    }
+    
+    @Test
+    void missingFileIsNotFoundBeforeSendfile() throws IOException {
+        // Метаданные в БД есть, а файл уже удалён
+        MockHttpServletRequest request = sendfileRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        service.stream(request, response, dir.resolve("gone.mp3"), "audio/mpeg", null, "hash", 1000, 0);
+        
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(response.getHeader("Content-Length")).isNull();
+        assertThat(request.getAttribute(SENDFILE_FILENAME_ATTR)).isNull();
+    }
+    
+    private static MockHttpServletRequest sendfileRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/tracks/1");
+        request.setAttribute(SENDFILE_SUPPORT_ATTR, Boolean.TRUE);
+        return request;
+    }
+}
@@ -0,0 +1,281 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.dto.ImportJobDTO;
+import com.music.musiccatalogservice.dto.ImportRequestDTO;
+import com.music.musiccatalogservice.dto.MediaBlobDTO;
+import com.music.musiccatalogservice.entity.Track;
+import com.music.musiccatalogservice.repository.TrackRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Скачивание импорта против локального HTTP-сервера: продолжение по Range,
+ * молчащий источник и слишком большой файл
+ */
+class TrackImportServiceTest {
+    
+    private static final long IDLE_TIMEOUT_MS = 300;
+    
+    private final byte[] content = new byte[200_000];
+    
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    
+    private final List<String> ifRanges = new CopyOnWriteArrayList<>();
+    
+    private final AtomicReference<byte[]> stored = new AtomicReference<>();
+    
+    // Отпускает зависшие обработчики, чтобы сервер мог остановиться
+    private final CountDownLatch released = new CountDownLatch(1);
+    
+    private HttpServer server;
+    
+    private ExecutorService executor;
+    
+    private TrackImportService service;
+    
+    @TempDir
+    Path dir;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        executor = Executors.newCachedThreadPool();
+        
+        TrackRepository trackRepository = mock(TrackRepository.class);
+        when(trackRepository.existsById(anyLong())).thenReturn(true);
+        when(trackRepository.findByIdUncached(anyLong())).thenAnswer(invocation -> Optional.of(new Track()));
+        when(trackRepository.findExistingIds(anyCollection())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+        
+        MediaStoreService mediaStoreService = mock(MediaStoreService.class);
+        when(mediaStoreService.storeFile(any(), any(), any())).thenAnswer(invocation -> {
+            Path part = invocation.getArgument(0);
+            stored.set(Files.readAllBytes(part));
+            MediaBlobDTO blob = new MediaBlobDTO();
+            blob.setHash("hash");
+            blob.setPath(part.toString());
+            blob.setSizeBytes(Files.size(part));
+            return blob;
+        });
+        
+        service = new TrackImportService();
+        ReflectionTestUtils.setField(service, "tracksDir", dir.toString());
+        ReflectionTestUtils.setField(service, "maxConcurrent", 2);
+        ReflectionTestUtils.setField(service, "maxPerHost", 2);
+        ReflectionTestUtils.setField(service, "queueCapacity", 10);
+        ReflectionTestUtils.setField(service, "maxResumeAttempts", 3);
+        ReflectionTestUtils.setField(service, "responseTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(service, "idleTimeoutMs", IDLE_TIMEOUT_MS);
+        ReflectionTestUtils.setField(service, "maxTransferMs", 30_000L);
+        ReflectionTestUtils.setField(service, "jobRetentionMinutes", 5L);
+        ReflectionTestUtils.setField(service, "importHttpClient", HttpClient.newHttpClient());
+        ReflectionTestUtils.setField(service, "importExecutor", executor);
+        ReflectionTestUtils.setField(service, "fileDownloadService", new FileDownloadService());
+        ReflectionTestUtils.setField(service, "audioDurationService", mock(AudioDurationService.class));
+        ReflectionTestUtils.setField(service, "trackRepository", trackRepository);
+        ReflectionTestUtils.setField(service, "mediaStoreService", mediaStoreService);
+        ReflectionTestUtils.setField(service, "mediaMetadataService", mock(MediaMetadataService.class));
+        service.init();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        released.countDown();
+        service.shutdown();
+        executor.shutdownNow();
+        server.stop(0);
+    }
+    
+    @Test
+    void brokenTransferIsResumedWithRange() throws Exception {
+        // Первый ответ обрывается на середине, второй отдаёт остаток по Range
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/broken.mp3", exchange -> {
+            if (requests.incrementAndGet() == 1) {
+                sendFull(exchange, content.length / 2);
+            } else {
+                sendRest(exchange);
+            }
+        });
+        
+        ImportJobDTO job = awaitFinished(service.startImport(1L, url("/broken.mp3")));
+        
+        assertThat(job.getState()).isEqualTo(TrackImportService.STATE_SUCCEEDED);
+        assertThat(job.getResumes()).isEqualTo(1);
+        assertThat(ranges).containsExactly(null, "bytes=" + content.length / 2 + "-");
+        assertThat(ifRanges).containsExactly("\"v1\"");
+        assertThat(stored.get()).isEqualTo(content);
+    }
+    
+    @Test
+    void stalledSourceIsClosedAndResumed() throws Exception {
+        // Первый ответ присылает половину и замолкает, не закрывая соединение
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/stalled.mp3", exchange -> {
+            if (requests.incrementAndGet() == 1) {
+                ranges.add(exchange.getRequestHeaders().getFirst("Range"));
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, content.length);
+                OutputStream body = exchange.getResponseBody();
+                body.write(content, 0, content.length / 2);
+                body.flush();
+                await(released);
+                exchange.close();
+            } else {
+                sendRest(exchange);
+            }
+        });
+        
+        long started = System.nanoTime();
+        ImportJobDTO job = awaitFinished(service.startImport(1L, url("/stalled.mp3")));
+        
+        assertThat(job.getState()).isEqualTo(TrackImportService.STATE_SUCCEEDED);
+        assertThat(job.getResumes()).isEqualTo(1);
+        assertThat(ranges).containsExactly(null, "bytes=" + content.length / 2 + "-");
+        assertThat(ifRanges).containsExactly("\"v1\"");
+        assertThat(stored.get()).isEqualTo(content);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(IDLE_TIMEOUT_MS * 10);
+    }
+    
+    @Test
+    void oversizedFileIsRejectedWithoutResume() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        server.createContext("/huge.mp3", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, FileDownloadService.MAX_FILE_SIZE + 1L);
+            exchange.getResponseBody().write(content);
+            exchange.close();
+        });
+        
+        ImportJobDTO job = awaitFinished(service.startImport(1L, url("/huge.mp3")));
+        
+        assertThat(job.getState()).isEqualTo(TrackImportService.STATE_FAILED);
+        assertThat(job.getError()).contains("слишком большой");
+        assertThat(job.getResumes()).isZero();
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(stored.get()).isNull();
+        try (var files = Files.walk(dir)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+    
+    @Test
+    void bulkImportReturnsJobIdsAndStopsWaitingAfterMaxWait() throws Exception {
+        server.createContext("/fast.mp3", exchange -> sendFull(exchange, content.length));
+        // Источник не отвечает, пока тест не отпустит обработчик
+        server.createContext("/slow.mp3", exchange -> {
+            await(released);
+            exchange.close();
+        });
+        
+        long started = System.nanoTime();
+        List<ImportJobDTO> results = service.bulkImport(
+                List.of(request(1L, url("/slow.mp3")), request(2L, url("/fast.mp3")), request(3L, "not a url")),
+                Duration.ofMillis(IDLE_TIMEOUT_MS / 2)).toList();
+        
+        // Ошибки проверки, затем id всех принятых задач, затем успевшие завершиться импорты
+        assertThat(results).hasSize(4);
+        assertThat(results.get(0).getState()).isEqualTo(TrackImportService.STATE_FAILED);
+        assertThat(results.get(0).getJobId()).isNull();
+        assertThat(results.subList(1, 3)).extracting(ImportJobDTO::getTrackId).containsExactly(1L, 2L);
+        assertThat(results.subList(1, 3)).allMatch(job -> job.getJobId() != null);
+        assertThat(results.get(3).getTrackId()).isEqualTo(2L);
+        assertThat(results.get(3).getState()).isEqualTo(TrackImportService.STATE_SUCCEEDED);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(IDLE_TIMEOUT_MS * 5);
+        
+        // Незавершённый импорт продолжается, его состояние доступно по id
+        ImportJobDTO slow = service.getJob(results.get(1).getJobId());
+        assertThat(slow.getState()).isIn(TrackImportService.STATE_QUEUED, TrackImportService.STATE_RUNNING);
+    }
+    
+    // Отдаёт заголовки полного файла, но только первые length байт тела
+    private void sendFull(HttpExchange exchange, int length) throws IOException {
+        ranges.add(exchange.getRequestHeaders().getFirst("Range"));
+        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+        exchange.sendResponseHeaders(200, content.length);
+        // Закрытие до конца тела обрывает соединение
+        exchange.getResponseBody().write(content, 0, length);
+        exchange.getResponseBody().flush();
+        exchange.close();
+    }
+    
+    private void sendRest(HttpExchange exchange) throws IOException {
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        ranges.add(range);
+        ifRanges.add(String.valueOf(exchange.getRequestHeaders().getFirst("If-Range")));
+        int from = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+        exchange.getResponseHeaders().set("Content-Range",
+                "bytes " + from + "-" + (content.length - 1) + "/" + content.length);
+        exchange.sendResponseHeaders(206, content.length - from);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(Arrays.copyOfRange(content, from, content.length));
+        }
+    }
+    
+    private ImportJobDTO awaitFinished(ImportJobDTO started) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        ImportJobDTO job = started;
+        while (System.nanoTime() < deadline) {
+            job = service.getJob(started.getJobId());
+            if (TrackImportService.STATE_SUCCEEDED.equals(job.getState())
+                    || TrackImportService.STATE_FAILED.equals(job.getState())) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Import did not finish: " + job.getState() + ", " + job.getBytesReceived() + " bytes");
+    }
+    
+    private static ImportRequestDTO request(Long trackId, String url) {
+        ImportRequestDTO request = new ImportRequestDTO();
+        request.setTrackId(trackId);
+        request.setUrl(url);
+        return request;
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+}
@@ -0,0 +1,139 @@
+package com.music.musiccatalogservice.service;
+
+import com.music.musiccatalogservice.dto.MediaBlobDTO;
+import com.music.musiccatalogservice.dto.UploadSessionDTO;
+import com.music.musiccatalogservice.entity.Track;
+import com.music.musiccatalogservice.entity.TrackUpload;
+import com.music.musiccatalogservice.repository.TrackRepository;
+import com.music.musiccatalogservice.repository.TrackUploadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Завершение загрузки по частям: повтор после сбоя, случившегося уже после переноса файла в хранилище
+ */
+class TrackUploadServiceTest {
+    
+    private final byte[] content = "not really an mp3, but enough bytes to upload".getBytes();
+    
+    // Строки track_uploads по id
+    private final Map<String, TrackUpload> uploads = new HashMap<>();
+    
+    private final Track track = new Track();
+    
+    private TrackRepository trackRepository;
+    
+    private MediaStoreService mediaStoreService;
+    
+    private TrackUploadService service;
+    
+    @TempDir
+    Path dir;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        track.setId(1L);
+        
+        TrackUploadRepository trackUploadRepository = mock(TrackUploadRepository.class);
+        when(trackUploadRepository.save(any())).thenAnswer(invocation -> {
+            TrackUpload upload = invocation.getArgument(0);
+            uploads.put(upload.getId(), upload);
+            return upload;
+        });
+        when(trackUploadRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(uploads.get(invocation.<String>getArgument(0))));
+        
+        trackRepository = mock(TrackRepository.class);
+        when(trackRepository.existsById(anyLong())).thenReturn(true);
+        when(trackRepository.findByIdUncached(anyLong())).thenReturn(Optional.of(track));
+        
+        // Хранилище переносит частичный файл к себе, как MediaStoreService.commit
+        Path blobPath = dir.resolve("blob.mp3");
+        mediaStoreService = mock(MediaStoreService.class);
+        when(mediaStoreService.storeFile(any(), anyString(), anyString())).thenAnswer(invocation -> {
+            Files.move(invocation.<Path>getArgument(0), blobPath);
+            return blob(invocation.getArgument(2), blobPath);
+        });
+        when(mediaStoreService.findStored(anyString()))
+                .thenAnswer(invocation -> blob(invocation.getArgument(0), blobPath));
+        
+        service = new TrackUploadService();
+        ReflectionTestUtils.setField(service, "tracksDir", dir.resolve("tracks").toString());
+        ReflectionTestUtils.setField(service, "maxLength", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(service, "expirationHours", 24L);
+        ReflectionTestUtils.setField(service, "trackUploadRepository", trackUploadRepository);
+        ReflectionTestUtils.setField(service, "trackRepository", trackRepository);
+        ReflectionTestUtils.setField(service, "audioDurationService", mock(AudioDurationService.class));
+        ReflectionTestUtils.setField(service, "mediaStoreService", mediaStoreService);
+        ReflectionTestUtils.setField(service, "mediaMetadataService", mock(MediaMetadataService.class));
+    }
+    
+    @Test
+    void completionFailedAfterStoreIsRepeatedFromStoredFile() throws Exception {
+        String hash = HexFormat.of().formatHex(MediaStoreService.newDigest().digest(content));
+        when(trackRepository.save(any()))
+                .thenThrow(new RuntimeException("connection reset"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        
+        UploadSessionDTO session = service.createUpload(1L, content.length, "song.mp3");
+        String uploadId = session.getUploadId();
+        
+        assertThatThrownBy(() -> service.appendChunk(uploadId, 0, new ByteArrayInputStream(content)))
+                .hasMessage("connection reset");
+        // Все байты приняты, частичного файла уже нет, хэш записан до переноса
+        assertThat(uploads.get(uploadId).getUploadOffset()).isEqualTo(content.length);
+        assertThat(uploads.get(uploadId).getBlobHash()).isEqualTo(hash);
+        assertThat(dir.resolve("tracks/1/" + uploadId + ".part")).doesNotExist();
+        
+        // Пустой PATCH на полном смещении повторяет завершение
+        service.appendChunk(uploadId, content.length, InputStream.nullInputStream());
+        
+        verify(mediaStoreService, times(1)).storeFile(any(), anyString(), eq(hash));
+        verify(mediaStoreService).findStored(hash);
+        verify(trackRepository, times(2)).save(track);
+        assertThat(track.getFileHash()).isEqualTo(hash);
+        assertThat(track.getFilePath()).isEqualTo(dir.resolve("blob.mp3").toString());
+    }
+    
+    @Test
+    void completionWithoutPartOrStoredFileAsksForNewUpload() throws Exception {
+        UploadSessionDTO session = service.createUpload(1L, content.length, "song.mp3");
+        TrackUpload upload = uploads.get(session.getUploadId());
+        upload.setUploadOffset((long) content.length);
+        
+        assertThatThrownBy(() -> service.appendChunk(upload.getId(), content.length, InputStream.nullInputStream()))
+                .hasMessage("Upload file is missing, start a new upload");
+        verify(mediaStoreService, never()).findStored(anyString());
+    }
+    
+    private static MediaBlobDTO blob(String hash, Path path) {
+        MediaBlobDTO blob = new MediaBlobDTO();
+        blob.setHash(hash);
+        blob.setPath(path.toString());
+        return blob;
+    }
+}
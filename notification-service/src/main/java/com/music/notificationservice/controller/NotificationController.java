@@ -1,5 +1,8 @@
 package com.music.notificationservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.music.common.dto.CursorPage;
+import com.music.common.web.NdjsonWriter;
 import com.music.notificationservice.dto.NotificationDTO;
 import com.music.notificationservice.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -7,8 +10,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -20,6 +25,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @PostMapping
     @Operation(summary = "Create a new notification")
     public ResponseEntity<NotificationDTO> createNotification(@Valid @RequestBody NotificationDTO notificationDTO) {
@@ -34,6 +42,22 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
     
+    @GetMapping(params = "limit")
+    @Operation(summary = "Get notifications page by cursor, newest first")
+    public ResponseEntity<CursorPage<NotificationDTO>> getAllNotifications(@RequestParam(required = false) String after,
+                                                                           @RequestParam int limit) {
+        CursorPage<NotificationDTO> notifications = notificationService.getAllNotifications(after, limit);
+        return ResponseEntity.ok(notifications);
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all notifications as NDJSON, newest first")
+    public ResponseEntity<StreamingResponseBody> streamAllNotifications() {
+        StreamingResponseBody body = out -> notificationService.streamAllNotifications(
+                notification -> NdjsonWriter.writeLine(objectMapper, out, notification));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get notifications by user ID")
     public ResponseEntity<List<NotificationDTO>> getNotificationsByUserId(@PathVariable Long userId) {
@@ -41,6 +65,23 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
     
+    @GetMapping(value = "/user/{userId}", params = "limit")
+    @Operation(summary = "Get notifications page by user ID, newest first")
+    public ResponseEntity<CursorPage<NotificationDTO>> getNotificationsByUserId(@PathVariable Long userId,
+                                                                                @RequestParam(required = false) String after,
+                                                                                @RequestParam int limit) {
+        CursorPage<NotificationDTO> notifications = notificationService.getNotificationsByUserId(userId, after, limit);
+        return ResponseEntity.ok(notifications);
+    }
+    
+    @GetMapping(value = "/user/{userId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream notifications by user ID as NDJSON, newest first")
+    public ResponseEntity<StreamingResponseBody> streamNotificationsByUserId(@PathVariable Long userId) {
+        StreamingResponseBody body = out -> notificationService.streamNotificationsByUserId(
+                userId, notification -> NdjsonWriter.writeLine(objectMapper, out, notification));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
     @GetMapping("/user/{userId}/unread")
     @Operation(summary = "Get unread notifications by user ID")
     public ResponseEntity<List<NotificationDTO>> getUnreadNotifications(@PathVariable Long userId) {
@@ -48,6 +89,15 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
     
+    @GetMapping(value = "/user/{userId}/unread", params = "limit")
+    @Operation(summary = "Get unread notifications page by user ID, newest first")
+    public ResponseEntity<CursorPage<NotificationDTO>> getUnreadNotifications(@PathVariable Long userId,
+                                                                              @RequestParam(required = false) String after,
+                                                                              @RequestParam int limit) {
+        CursorPage<NotificationDTO> notifications = notificationService.getUnreadNotificationsByUserId(userId, after, limit);
+        return ResponseEntity.ok(notifications);
+    }
+    
     @GetMapping("/user/{userId}/unread/count")
     @Operation(summary = "Get count of unread notifications by user ID")
     public ResponseEntity<Long> getUnreadCount(@PathVariable Long userId) {
@@ -76,4 +126,3 @@ public class NotificationController {
         return ResponseEntity.noContent().build();
     }
 }
-
@@ -1,15 +1,39 @@
 package com.music.notificationservice.repository;
 
 import com.music.notificationservice.entity.Notification;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findByUserId(Long userId);
     List<Notification> findByUserIdAndIsRead(Long userId, Boolean isRead);
     Long countByUserIdAndIsRead(Long userId, Boolean isRead);
+    
+    // Keyset-пагинация от новых к старым: строки идут в порядке индекса, без OFFSET
+    List<Notification> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+    List<Notification> findByUserIdAndIdLessThanOrderByIdDesc(Long userId, Long id, Pageable pageable);
+    List<Notification> findByUserIdAndIsReadAndIdLessThanOrderByIdDesc(Long userId, Boolean isRead, Long id,
+                                                                     Pageable pageable);
+    
+    // Потоковое чтение курсором БД: строки приходят порциями по fetch size, а не одним списком
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Notification> streamAllByOrderByIdDesc();
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Notification> streamByUserIdOrderByIdDesc(Long userId);
 }
 
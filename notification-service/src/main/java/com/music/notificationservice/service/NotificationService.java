@@ -1,14 +1,19 @@
 package com.music.notificationservice.service;
 
+import com.music.common.dto.CursorPage;
 import com.music.notificationservice.dto.NotificationDTO;
 import com.music.notificationservice.entity.Notification;
 import com.music.notificationservice.repository.NotificationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -17,6 +22,9 @@ public class NotificationService {
     @Autowired
     private NotificationRepository notificationRepository;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     public NotificationDTO createNotification(NotificationDTO notificationDTO) {
         Notification notification = new Notification();
         notification.setUserId(notificationDTO.getUserId());
@@ -36,6 +44,24 @@ public class NotificationService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<NotificationDTO> getAllNotifications(String after, int limit) {
+        Long beforeId = CursorPage.decodeCursor(after, Long.MAX_VALUE);
+        List<Notification> rows = notificationRepository.findByIdLessThanOrderByIdDesc(beforeId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Notification::getId, this::convertToDTOs);
+    }
+    
+    /**
+     * Отдаёт все уведомления от новых к старым, читая их курсором БД.
+     * Каждая сущность отсоединяется сразу после преобразования, поэтому память не растёт с числом строк.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllNotifications(Consumer<NotificationDTO> consumer) {
+        try (Stream<Notification> notifications = notificationRepository.streamAllByOrderByIdDesc()) {
+            streamTo(notifications, consumer);
+        }
+    }
+    
     @Transactional(readOnly = true)
     public List<NotificationDTO> getNotificationsByUserId(Long userId) {
         return notificationRepository.findByUserId(userId).stream()
@@ -43,6 +69,21 @@ public class NotificationService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<NotificationDTO> getNotificationsByUserId(Long userId, String after, int limit) {
+        Long beforeId = CursorPage.decodeCursor(after, Long.MAX_VALUE);
+        List<Notification> rows = notificationRepository.findByUserIdAndIdLessThanOrderByIdDesc(
+                userId, beforeId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Notification::getId, this::convertToDTOs);
+    }
+    
+    @Transactional(readOnly = true)
+    public void streamNotificationsByUserId(Long userId, Consumer<NotificationDTO> consumer) {
+        try (Stream<Notification> notifications = notificationRepository.streamByUserIdOrderByIdDesc(userId)) {
+            streamTo(notifications, consumer);
+        }
+    }
+    
     @Transactional(readOnly = true)
     public List<NotificationDTO> getUnreadNotificationsByUserId(Long userId) {
         return notificationRepository.findByUserIdAndIsRead(userId, false).stream()
@@ -50,6 +91,14 @@ public class NotificationService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<NotificationDTO> getUnreadNotificationsByUserId(Long userId, String after, int limit) {
+        Long beforeId = CursorPage.decodeCursor(after, Long.MAX_VALUE);
+        List<Notification> rows = notificationRepository.findByUserIdAndIsReadAndIdLessThanOrderByIdDesc(
+                userId, false, beforeId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Notification::getId, this::convertToDTOs);
+    }
+    
     @Transactional(readOnly = true)
     public NotificationDTO getNotificationById(Long id) {
         Notification notification = notificationRepository.findById(id)
@@ -76,6 +125,19 @@ public class NotificationService {
         return notificationRepository.countByUserIdAndIsRead(userId, false);
     }
     
+    private void streamTo(Stream<Notification> notifications, Consumer<NotificationDTO> consumer) {
+        notifications.forEach(notification -> {
+            consumer.accept(convertToDTO(notification));
+            entityManager.detach(notification);
+        });
+    }
+    
+    private List<NotificationDTO> convertToDTOs(List<Notification> notifications) {
+        return notifications.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
     private NotificationDTO convertToDTO(Notification notification) {
         NotificationDTO dto = new NotificationDTO();
         dto.setId(notification.getId());
@@ -0,0 +1,6 @@
+-- Составные индексы для ленты уведомлений пользователя, от новых к старым:
+-- WHERE user_id = ? AND id < ? ORDER BY id DESC.
+CREATE INDEX IF NOT EXISTS idx_notifications_user_id ON notifications(user_id, id);
+CREATE INDEX IF NOT EXISTS idx_notifications_user_unread ON notifications(user_id, id) WHERE is_read = FALSE;
+
+DROP INDEX IF EXISTS idx_notifications_user;
@@ -22,6 +22,18 @@ if (-not $mvnVersion) {
 Write-Host "Maven найден" -ForegroundColor Green
 Write-Host ""
 
+# Общий модуль (CursorPage, NDJSON) подключается к сервисам как зависимость из локального репозитория
+Write-Host "Сборка общего модуля common..." -ForegroundColor Yellow
+Push-Location $PSScriptRoot
+mvn -q install -pl common -am -DskipTests
+$commonExitCode = $LASTEXITCODE
+Pop-Location
+if ($commonExitCode -ne 0) {
+    Write-Host "ОШИБКА: Не удалось собрать модуль common" -ForegroundColor Red
+    exit 1
+}
+Write-Host ""
+
 # Функция для запуска сервиса
 function Start-Service {
     param(
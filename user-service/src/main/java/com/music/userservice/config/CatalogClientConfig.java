@@ -0,0 +1,57 @@
+package com.music.userservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class CatalogClientConfig {
+    
+    @Value("${catalog.client.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+    
+    @Value("${catalog.client.read-timeout-ms:3000}")
+    private long readTimeoutMs;
+    
+    @Value("${catalog.client.threads:16}")
+    private int threads;
+    
+    @Value("${catalog.client.queue-capacity:256}")
+    private int queueCapacity;
+    
+    // Запросы к music-catalog-service идут напрямую через Eureka, минуя gateway
+    @Bean
+    @LoadBalanced
+    public RestTemplate catalogRestTemplate(RestTemplateBuilder builder) {
+        return builder
+                .setConnectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .setReadTimeout(Duration.ofMillis(readTimeoutMs))
+                .build();
+    }
+    
+    // Ограниченный пул для параллельных запросов к каталогу.
+    // При переполнении очереди задача выполняется в вызывающем потоке, а не отбрасывается.
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService catalogExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "catalog-client-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
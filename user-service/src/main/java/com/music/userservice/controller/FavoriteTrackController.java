@@ -1,5 +1,6 @@
 package com.music.userservice.controller;
 
+import com.music.common.dto.CursorPage;
 import com.music.userservice.entity.FavoriteTrack;
 import com.music.userservice.repository.FavoriteTrackRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/favorite-tracks")
@@ -37,6 +39,16 @@ public class FavoriteTrackController {
         return ResponseEntity.ok(trackIds);
     }
     
+    @GetMapping(value = "/user/{userId}", params = "limit")
+    public ResponseEntity<CursorPage<Long>> getFavoriteTrackIdsByUserId(@PathVariable Long userId,
+                                                                        @RequestParam(required = false) String after,
+                                                                        @RequestParam int limit) {
+        Long afterTrackId = CursorPage.decodeCursor(after, 0L);
+        List<Long> rows = favoriteTrackRepository.findTrackIdsByUserIdAfter(
+                userId, afterTrackId, CursorPage.request(limit));
+        return ResponseEntity.ok(CursorPage.of(rows, limit, Function.identity(), Function.identity()));
+    }
+    
     @GetMapping("/user/{userId}/track/{trackId}")
     public ResponseEntity<Boolean> isFavorite(@PathVariable Long userId, @PathVariable Long trackId) {
         boolean exists = favoriteTrackRepository.existsByUserIdAndTrackId(userId, trackId);
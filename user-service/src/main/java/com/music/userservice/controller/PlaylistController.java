@@ -1,6 +1,9 @@
 package com.music.userservice.controller;
 
+import com.music.common.dto.CursorPage;
+import com.music.userservice.dto.ExpandedPlaylistDTO;
 import com.music.userservice.dto.PlaylistDTO;
+import com.music.userservice.service.PlaylistExpansionService;
 import com.music.userservice.service.PlaylistService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +20,9 @@ public class PlaylistController {
     @Autowired
     private PlaylistService playlistService;
     
+    @Autowired
+    private PlaylistExpansionService playlistExpansionService;
+    
     @PostMapping
     public ResponseEntity<PlaylistDTO> createPlaylist(@Valid @RequestBody PlaylistDTO playlistDTO) {
         PlaylistDTO createdPlaylist = playlistService.createPlaylist(playlistDTO);
@@ -29,18 +35,39 @@ public class PlaylistController {
         return ResponseEntity.ok(playlists);
     }
     
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<PlaylistDTO>> getAllPlaylists(@RequestParam(required = false) String after,
+                                                                   @RequestParam int limit) {
+        CursorPage<PlaylistDTO> playlists = playlistService.getAllPlaylists(after, limit);
+        return ResponseEntity.ok(playlists);
+    }
+    
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<PlaylistDTO>> getPlaylistsByUserId(@PathVariable Long userId) {
         List<PlaylistDTO> playlists = playlistService.getPlaylistsByUserId(userId);
         return ResponseEntity.ok(playlists);
     }
     
+    @GetMapping(value = "/user/{userId}", params = "limit")
+    public ResponseEntity<CursorPage<PlaylistDTO>> getPlaylistsByUserId(@PathVariable Long userId,
+                                                                        @RequestParam(required = false) String after,
+                                                                        @RequestParam int limit) {
+        CursorPage<PlaylistDTO> playlists = playlistService.getPlaylistsByUserId(userId, after, limit);
+        return ResponseEntity.ok(playlists);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<PlaylistDTO> getPlaylistById(@PathVariable Long id) {
         PlaylistDTO playlist = playlistService.getPlaylistById(id);
         return ResponseEntity.ok(playlist);
     }
     
+    @GetMapping("/{id}/expanded")
+    public ResponseEntity<ExpandedPlaylistDTO> getExpandedPlaylist(@PathVariable Long id) {
+        ExpandedPlaylistDTO playlist = playlistExpansionService.getExpandedPlaylist(id);
+        return ResponseEntity.ok(playlist);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<PlaylistDTO> updatePlaylist(@PathVariable Long id, 
                                                       @Valid @RequestBody PlaylistDTO playlistDTO) {
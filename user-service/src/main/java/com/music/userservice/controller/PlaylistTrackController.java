@@ -1,5 +1,6 @@
 package com.music.userservice.controller;
 
+import com.music.common.dto.CursorPage;
 import com.music.userservice.entity.PlaylistTrack;
 import com.music.userservice.repository.PlaylistTrackRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/playlist-tracks")
@@ -36,6 +38,16 @@ public class PlaylistTrackController {
         return ResponseEntity.ok(trackIds);
     }
     
+    @GetMapping(value = "/playlist/{playlistId}", params = "limit")
+    public ResponseEntity<CursorPage<Long>> getTrackIdsByPlaylistId(@PathVariable Long playlistId,
+                                                                    @RequestParam(required = false) String after,
+                                                                    @RequestParam int limit) {
+        Long afterTrackId = CursorPage.decodeCursor(after, 0L);
+        List<Long> rows = playlistTrackRepository.findTrackIdsByPlaylistIdAfter(
+                playlistId, afterTrackId, CursorPage.request(limit));
+        return ResponseEntity.ok(CursorPage.of(rows, limit, Function.identity(), Function.identity()));
+    }
+    
     @DeleteMapping("/playlist/{playlistId}/track/{trackId}")
     public ResponseEntity<Void> removeTrackFromPlaylist(@PathVariable Long playlistId, 
                                                         @PathVariable Long trackId) {
@@ -1,5 +1,8 @@
 package com.music.userservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.music.common.dto.CursorPage;
+import com.music.common.web.NdjsonWriter;
 import com.music.userservice.dto.UserCreateDTO;
 import com.music.userservice.dto.UserDTO;
 import com.music.userservice.dto.UserUpdateDTO;
@@ -11,8 +14,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -24,6 +29,9 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @PostMapping
     @Operation(summary = "Create a new user")
     public ResponseEntity<UserDTO> createUser(@Valid @RequestBody UserCreateDTO userCreateDTO) {
@@ -45,6 +53,21 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
     
+    @GetMapping(params = "limit")
+    @Operation(summary = "Get users page by cursor")
+    public ResponseEntity<CursorPage<UserDTO>> getAllUsers(@RequestParam(required = false) String after,
+                                                           @RequestParam int limit) {
+        CursorPage<UserDTO> users = userService.getAllUsers(after, limit);
+        return ResponseEntity.ok(users);
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all users as NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        StreamingResponseBody body = out -> userService.streamAllUsers(user -> NdjsonWriter.writeLine(objectMapper, out, user));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get user by ID")
     public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
@@ -67,4 +90,3 @@ public class UserController {
         return ResponseEntity.noContent().build();
     }
 }
-
@@ -0,0 +1,61 @@
+package com.music.userservice.dto;
+
+import java.time.LocalDateTime;
+
+public class CatalogAlbumDTO {
+    private Long id;
+    private Long artistId;
+    private String title;
+    private Integer releaseYear;
+    private String artworkPath;
+    private LocalDateTime createdAt;
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getArtistId() {
+        return artistId;
+    }
+    
+    public void setArtistId(Long artistId) {
+        this.artistId = artistId;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public Integer getReleaseYear() {
+        return releaseYear;
+    }
+    
+    public void setReleaseYear(Integer releaseYear) {
+        this.releaseYear = releaseYear;
+    }
+    
+    public String getArtworkPath() {
+        return artworkPath;
+    }
+    
+    public void setArtworkPath(String artworkPath) {
+        this.artworkPath = artworkPath;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
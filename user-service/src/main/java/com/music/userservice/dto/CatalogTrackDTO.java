@@ -0,0 +1,88 @@
+package com.music.userservice.dto;
+
+import java.time.LocalDateTime;
+
+public class CatalogTrackDTO {
+    private Long id;
+    private Long albumId;
+    private Long artistId;
+    private String title;
+    private Integer durationSeconds;
+    private String filePath;
+    private String genre;
+    private String artworkPath;
+    private LocalDateTime createdAt;
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getAlbumId() {
+        return albumId;
+    }
+    
+    public void setAlbumId(Long albumId) {
+        this.albumId = albumId;
+    }
+    
+    public Long getArtistId() {
+        return artistId;
+    }
+    
+    public void setArtistId(Long artistId) {
+        this.artistId = artistId;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public Integer getDurationSeconds() {
+        return durationSeconds;
+    }
+    
+    public void setDurationSeconds(Integer durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+    
+    public String getFilePath() {
+        return filePath;
+    }
+    
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+    
+    public String getGenre() {
+        return genre;
+    }
+    
+    public void setGenre(String genre) {
+        this.genre = genre;
+    }
+    
+    public String getArtworkPath() {
+        return artworkPath;
+    }
+    
+    public void setArtworkPath(String artworkPath) {
+        this.artworkPath = artworkPath;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
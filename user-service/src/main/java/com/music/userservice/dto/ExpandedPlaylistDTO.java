@@ -0,0 +1,44 @@
+package com.music.userservice.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class ExpandedPlaylistDTO {
+    private PlaylistDTO playlist;
+    private List<CatalogTrackDTO> tracks;
+    private Map<Long, CatalogArtistDTO> artists;
+    private Map<Long, CatalogAlbumDTO> albums;
+    
+    // Getters and Setters
+    public PlaylistDTO getPlaylist() {
+        return playlist;
+    }
+    
+    public void setPlaylist(PlaylistDTO playlist) {
+        this.playlist = playlist;
+    }
+    
+    public List<CatalogTrackDTO> getTracks() {
+        return tracks;
+    }
+    
+    public void setTracks(List<CatalogTrackDTO> tracks) {
+        this.tracks = tracks;
+    }
+    
+    public Map<Long, CatalogArtistDTO> getArtists() {
+        return artists;
+    }
+    
+    public void setArtists(Map<Long, CatalogArtistDTO> artists) {
+        this.artists = artists;
+    }
+    
+    public Map<Long, CatalogAlbumDTO> getAlbums() {
+        return albums;
+    }
+    
+    public void setAlbums(Map<Long, CatalogAlbumDTO> albums) {
+        this.albums = albums;
+    }
+}
@@ -1,6 +1,7 @@
 package com.music.userservice.repository;
 
 import com.music.userservice.entity.FavoriteTrack;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,6 +16,12 @@ public interface FavoriteTrackRepository extends JpaRepository<FavoriteTrack, Fa
     @Query("SELECT ft.trackId FROM FavoriteTrack ft WHERE ft.userId = :userId")
     List<Long> findTrackIdsByUserId(@Param("userId") Long userId);
     
+    // Keyset-пагинация по первичному ключу (user_id, track_id)
+    @Query("SELECT ft.trackId FROM FavoriteTrack ft WHERE ft.userId = :userId AND ft.trackId > :afterTrackId ORDER BY ft.trackId")
+    List<Long> findTrackIdsByUserIdAfter(@Param("userId") Long userId,
+                                         @Param("afterTrackId") Long afterTrackId,
+                                         Pageable pageable);
+    
     boolean existsByUserIdAndTrackId(Long userId, Long trackId);
     
     void deleteByUserIdAndTrackId(Long userId, Long trackId);
@@ -1,6 +1,7 @@
 package com.music.userservice.repository;
 
 import com.music.userservice.entity.Playlist;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,5 +10,9 @@ import java.util.List;
 @Repository
 public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
     List<Playlist> findByUserId(Long userId);
+    
+    // Keyset-пагинация: строки идут в порядке индекса, без OFFSET
+    List<Playlist> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    List<Playlist> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Pageable pageable);
 }
 
@@ -1,6 +1,7 @@
 package com.music.userservice.repository;
 
 import com.music.userservice.entity.PlaylistTrack;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -15,6 +16,12 @@ public interface PlaylistTrackRepository extends JpaRepository<PlaylistTrack, Pl
     @Query("SELECT pt.trackId FROM PlaylistTrack pt WHERE pt.playlistId = :playlistId")
     List<Long> findTrackIdsByPlaylistId(@Param("playlistId") Long playlistId);
     
+    // Keyset-пагинация по первичному ключу (playlist_id, track_id)
+    @Query("SELECT pt.trackId FROM PlaylistTrack pt WHERE pt.playlistId = :playlistId AND pt.trackId > :afterTrackId ORDER BY pt.trackId")
+    List<Long> findTrackIdsByPlaylistIdAfter(@Param("playlistId") Long playlistId,
+                                             @Param("afterTrackId") Long afterTrackId,
+                                             Pageable pageable);
+    
     void deleteByPlaylistId(Long playlistId);
 }
 
@@ -1,10 +1,16 @@
 package com.music.userservice.repository;
 
 import com.music.userservice.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -12,5 +18,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+    
+    // Keyset-пагинация: строки идут в порядке индекса, без OFFSET
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    // Потоковое чтение курсором БД: строки приходят порциями по fetch size, а не одним списком
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<User> streamAllByOrderByIdAsc();
 }
 
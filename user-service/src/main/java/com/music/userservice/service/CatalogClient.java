@@ -0,0 +1,135 @@
+package com.music.userservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.music.userservice.dto.CatalogAlbumDTO;
+import com.music.userservice.dto.CatalogArtistDTO;
+import com.music.userservice.dto.CatalogTrackDTO;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Клиент music-catalog-service с локальным кэшем.
+ * Промахи кэша запрашиваются пачками, пачки уходят параллельно на ограниченном пуле.
+ * Методы не блокируют поток пула: результат собирается из future отдельных пачек.
+ */
+@Service
+public class CatalogClient {
+    
+    private static final String CATALOG_URL = "http://music-catalog-service";
+    
+    // Треки запрашиваются через POST, артисты и альбомы через GET - там id идут в строке запроса
+    private static final int TRACK_BATCH_SIZE = 500;
+    private static final int QUERY_BATCH_SIZE = 100;
+    
+    @Value("${catalog.cache.ttl-seconds:60}")
+    private long cacheTtlSeconds;
+    
+    @Value("${catalog.cache.max-size:10000}")
+    private long cacheMaxSize;
+    
+    @Autowired
+    private RestTemplate catalogRestTemplate;
+    
+    @Autowired
+    private ExecutorService catalogExecutor;
+    
+    private Cache<Long, CatalogTrackDTO> trackCache;
+    private Cache<Long, CatalogArtistDTO> artistCache;
+    private Cache<Long, CatalogAlbumDTO> albumCache;
+    
+    @PostConstruct
+    public void init() {
+        trackCache = newCache();
+        artistCache = newCache();
+        albumCache = newCache();
+    }
+    
+    public CompletableFuture<Map<Long, CatalogTrackDTO>> fetchTracks(Collection<Long> ids) {
+        return fetchAll(ids, trackCache, TRACK_BATCH_SIZE, this::loadTracks, CatalogTrackDTO::getId);
+    }
+    
+    public CompletableFuture<Map<Long, CatalogArtistDTO>> fetchArtists(Collection<Long> ids) {
+        return fetchAll(ids, artistCache, QUERY_BATCH_SIZE, this::loadArtists, CatalogArtistDTO::getId);
+    }
+    
+    public CompletableFuture<Map<Long, CatalogAlbumDTO>> fetchAlbums(Collection<Long> ids) {
+        return fetchAll(ids, albumCache, QUERY_BATCH_SIZE, this::loadAlbums, CatalogAlbumDTO::getId);
+    }
+    
+    private <T> CompletableFuture<Map<Long, T>> fetchAll(Collection<Long> ids, Cache<Long, T> cache, int batchSize,
+                                                         Function<List<Long>, T[]> loader, Function<T, Long> idOf) {
+        LinkedHashSet<Long> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Long, T> result = new HashMap<>(cache.getAllPresent(uniqueIds));
+        List<Long> missing = uniqueIds.stream()
+                .filter(id -> !result.containsKey(id))
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+        
+        List<CompletableFuture<T[]>> batches = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            List<Long> batch = missing.subList(from, Math.min(from + batchSize, missing.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> loader.apply(batch), catalogExecutor));
+        }
+        
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    for (CompletableFuture<T[]> batch : batches) {
+                        T[] items = batch.join();
+                        if (items == null) {
+                            continue;
+                        }
+                        for (T item : items) {
+                            Long id = idOf.apply(item);
+                            cache.put(id, item);
+                            result.put(id, item);
+                        }
+                    }
+                    return result;
+                });
+    }
+    
+    private CatalogTrackDTO[] loadTracks(List<Long> ids) {
+        return catalogRestTemplate.postForObject(CATALOG_URL + "/api/tracks/batch", ids, CatalogTrackDTO[].class);
+    }
+    
+    private CatalogArtistDTO[] loadArtists(List<Long> ids) {
+        return catalogRestTemplate.getForObject(CATALOG_URL + "/api/artists?ids={ids}",
+                CatalogArtistDTO[].class, joinIds(ids));
+    }
+    
+    private CatalogAlbumDTO[] loadAlbums(List<Long> ids) {
+        return catalogRestTemplate.getForObject(CATALOG_URL + "/api/albums?ids={ids}",
+                CatalogAlbumDTO[].class, joinIds(ids));
+    }
+    
+    private String joinIds(List<Long> ids) {
+        return ids.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+    
+    private <T> Cache<Long, T> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+    }
+}
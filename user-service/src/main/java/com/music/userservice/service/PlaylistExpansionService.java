@@ -0,0 +1,91 @@
+package com.music.userservice.service;
+
+import com.music.userservice.dto.CatalogAlbumDTO;
+import com.music.userservice.dto.CatalogArtistDTO;
+import com.music.userservice.dto.CatalogTrackDTO;
+import com.music.userservice.dto.ExpandedPlaylistDTO;
+import com.music.userservice.dto.PlaylistDTO;
+import com.music.userservice.repository.PlaylistTrackRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Собирает страницу плейлиста за один запрос: плейлист, его треки, артисты и альбомы.
+ * Артисты и альбомы запрашиваются у каталога параллельно; если они недоступны,
+ * страница всё равно отдаётся - с треками, но без имён.
+ */
+@Service
+public class PlaylistExpansionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PlaylistExpansionService.class);
+    
+    @Autowired
+    private PlaylistService playlistService;
+    
+    @Autowired
+    private PlaylistTrackRepository playlistTrackRepository;
+    
+    @Autowired
+    private CatalogClient catalogClient;
+    
+    public ExpandedPlaylistDTO getExpandedPlaylist(Long id) {
+        PlaylistDTO playlist = playlistService.getPlaylistById(id);
+        List<Long> trackIds = playlistTrackRepository.findTrackIdsByPlaylistId(id);
+        
+        Map<Long, CatalogTrackDTO> tracksById = await(catalogClient.fetchTracks(trackIds));
+        List<CatalogTrackDTO> tracks = trackIds.stream()
+                .distinct()
+                .map(tracksById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        
+        Set<Long> artistIds = tracks.stream()
+                .map(CatalogTrackDTO::getArtistId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> albumIds = tracks.stream()
+                .map(CatalogTrackDTO::getAlbumId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        
+        CompletableFuture<Map<Long, CatalogArtistDTO>> artists = catalogClient.fetchArtists(artistIds)
+                .exceptionally(e -> {
+                    logger.warn("Failed to load artists for playlist {}", id, e);
+                    return Collections.emptyMap();
+                });
+        CompletableFuture<Map<Long, CatalogAlbumDTO>> albums = catalogClient.fetchAlbums(albumIds)
+                .exceptionally(e -> {
+                    logger.warn("Failed to load albums for playlist {}", id, e);
+                    return Collections.emptyMap();
+                });
+        
+        ExpandedPlaylistDTO expanded = new ExpandedPlaylistDTO();
+        expanded.setPlaylist(playlist);
+        expanded.setTracks(tracks);
+        expanded.setArtists(artists.join());
+        expanded.setAlbums(albums.join());
+        return expanded;
+    }
+    
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
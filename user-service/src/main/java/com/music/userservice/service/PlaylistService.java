@@ -1,5 +1,6 @@
 package com.music.userservice.service;
 
+import com.music.common.dto.CursorPage;
 import com.music.userservice.dto.PlaylistDTO;
 import com.music.userservice.entity.Playlist;
 import com.music.userservice.repository.PlaylistRepository;
@@ -35,6 +36,13 @@ public class PlaylistService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<PlaylistDTO> getAllPlaylists(String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Playlist> rows = playlistRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Playlist::getId, this::convertToDTOs);
+    }
+    
     @Transactional(readOnly = true)
     public List<PlaylistDTO> getPlaylistsByUserId(Long userId) {
         return playlistRepository.findByUserId(userId).stream()
@@ -42,6 +50,14 @@ public class PlaylistService {
                 .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<PlaylistDTO> getPlaylistsByUserId(Long userId, String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<Playlist> rows = playlistRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(
+                userId, afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, Playlist::getId, this::convertToDTOs);
+    }
+    
     @Transactional(readOnly = true)
     public PlaylistDTO getPlaylistById(Long id) {
         Playlist playlist = playlistRepository.findById(id)
@@ -74,6 +90,12 @@ public class PlaylistService {
         playlistRepository.deleteById(id);
     }
     
+    private List<PlaylistDTO> convertToDTOs(List<Playlist> playlists) {
+        return playlists.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
     private PlaylistDTO convertToDTO(Playlist playlist) {
         PlaylistDTO dto = new PlaylistDTO();
         dto.setId(playlist.getId());
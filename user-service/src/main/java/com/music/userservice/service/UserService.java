@@ -1,10 +1,13 @@
 package com.music.userservice.service;
 
+import com.music.common.dto.CursorPage;
 import com.music.userservice.dto.UserCreateDTO;
 import com.music.userservice.dto.UserDTO;
 import com.music.userservice.dto.UserUpdateDTO;
 import com.music.userservice.entity.User;
 import com.music.userservice.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,7 +15,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -21,6 +26,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     public UserDTO createUser(UserCreateDTO userCreateDTO) {
         if (userRepository.existsByUsername(userCreateDTO.getUsername())) {
             throw new RuntimeException("Username already exists");
@@ -53,6 +61,27 @@ public class UserService {
                 .map(this::convertToDTO);
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<UserDTO> getAllUsers(String after, int limit) {
+        Long afterId = CursorPage.decodeCursor(after, 0L);
+        List<User> rows = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, CursorPage.request(limit));
+        return CursorPage.of(rows, limit, User::getId, this::convertToDTOs);
+    }
+    
+    /**
+     * Отдаёт всех пользователей по одному, читая их курсором БД.
+     * Каждая сущность отсоединяется сразу после преобразования, поэтому память не растёт с числом строк.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserDTO> consumer) {
+        try (Stream<User> users = userRepository.streamAllByOrderByIdAsc()) {
+            users.forEach(user -> {
+                consumer.accept(convertToDTO(user));
+                entityManager.detach(user);
+            });
+        }
+    }
+    
     @Transactional(readOnly = true)
     public UserDTO getUserById(Long id) {
         User user = userRepository.findById(id)
@@ -103,6 +132,12 @@ public class UserService {
         userRepository.deleteById(id);
     }
     
+    private List<UserDTO> convertToDTOs(List<User> users) {
+        return users.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
     private UserDTO convertToDTO(User user) {
         UserDTO dto = new UserDTO();
         dto.setId(user.getId());
@@ -0,0 +1,5 @@
+-- Составной индекс для keyset-пагинации плейлистов пользователя: WHERE user_id = ? AND id > ? ORDER BY id.
+-- Списки треков плейлиста и избранного уже покрыты первичными ключами (owner_id, track_id).
+CREATE INDEX IF NOT EXISTS idx_playlists_user_id ON playlists(user_id, id);
+
+DROP INDEX IF EXISTS idx_playlists_user;